@@ -0,0 +1,172 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.util.IntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * View counts estimated in constant memory, however many ids are viewed. A count-min sketch of
+ * {@code depth} rows by {@code width} counters estimates every id, never below its real count and above it
+ * only through collisions. A min-heap keeps the {@code topCapacity} ids with the highest estimates,
+ * an id enters it once its estimate beats the smallest one kept.
+ * <p>
+ * Counts of deleted tasks are kept, they fade out of the top as other tasks are viewed. Not thread-safe.
+ */
+public class AccessStatistics {
+    private static final int DEFAULT_WIDTH = 2048;
+    private static final int DEFAULT_DEPTH = 4;
+    private static final int DEFAULT_TOP_CAPACITY = 64;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F, 0x165667B1, 0xD3A2646C};
+
+    private final int[][] counters;
+    private final int widthMask;
+    private final int[] heapIds;
+    private final long[] heapViews;
+    private final IntIntHashMap heapIndexById;
+    private int heapSize;
+
+    public AccessStatistics() {
+        this(DEFAULT_WIDTH, DEFAULT_DEPTH, DEFAULT_TOP_CAPACITY);
+    }
+
+    /**
+     * @param width       counters per sketch row, rounded up to a power of two
+     * @param depth       sketch rows, more rows make collisions less likely to inflate an estimate
+     * @param topCapacity number of the most viewed ids tracked for {@link #getMostViewed}
+     */
+    public AccessStatistics(int width, int depth, int topCapacity) {
+        if (width <= 0 || depth <= 0 || depth > SEEDS.length || topCapacity <= 0) {
+            throw new IllegalArgumentException("Unsupported sketch size " + width + "x" + depth
+                    + " or top capacity " + topCapacity);
+        }
+        int rowWidth = Integer.highestOneBit(width - 1) << 1;
+        this.counters = new int[depth][Math.max(rowWidth, 1)];
+        this.widthMask = counters[0].length - 1;
+        this.heapIds = new int[topCapacity];
+        this.heapViews = new long[topCapacity];
+        this.heapIndexById = new IntIntHashMap(topCapacity);
+    }
+
+    /**
+     * Counts a view of the task, null is ignored like in {@link HistoryManager#addTask}.
+     */
+    public void recordView(Task task) {
+        if (task != null) {
+            recordView(task.getId());
+        }
+    }
+
+    public void recordView(int id) {
+        long views = increment(id);
+        int index = heapIndexById.get(id);
+        if (index != IntIntHashMap.NO_VALUE) {
+            heapViews[index] = views;
+            siftDown(index);
+        } else if (heapSize < heapIds.length) {
+            heapIds[heapSize] = id;
+            heapViews[heapSize] = views;
+            heapIndexById.put(id, heapSize);
+            siftUp(heapSize++);
+        } else if (views > heapViews[0]) {
+            heapIndexById.remove(heapIds[0]);
+            heapIds[0] = id;
+            heapViews[0] = views;
+            heapIndexById.put(id, 0);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Returns the estimated number of views of the id, never less than the real one.
+     */
+    public long getEstimatedViews(int id) {
+        long views = Long.MAX_VALUE;
+        for (int row = 0; row < counters.length; row++) {
+            views = Math.min(views, Integer.toUnsignedLong(counters[row][column(row, id)]));
+        }
+        return views;
+    }
+
+    /**
+     * Returns up to {@code k} ids with the highest estimated views, the most viewed first.
+     * At most the top capacity of ids is tracked.
+     */
+    public List<ViewCount> getMostViewed(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Negative count: " + k);
+        }
+        List<ViewCount> top = new ArrayList<>(heapSize);
+        for (int i = 0; i < heapSize; i++) {
+            top.add(new ViewCount(heapIds[i], heapViews[i]));
+        }
+        top.sort(Comparator.comparingLong(ViewCount::views).reversed().thenComparingInt(ViewCount::taskId));
+        return top.subList(0, Math.min(k, top.size()));
+    }
+
+    /**
+     * Conservative update: only the smallest counters of the id grow, which keeps collisions from
+     * inflating estimates more than needed. Counters saturate instead of overflowing.
+     */
+    private long increment(int id) {
+        long views = getEstimatedViews(id);
+        if (views == 0xFFFF_FFFFL) {
+            return views;
+        }
+        for (int row = 0; row < counters.length; row++) {
+            int column = column(row, id);
+            if (Integer.toUnsignedLong(counters[row][column]) == views) {
+                counters[row][column]++;
+            }
+        }
+        return views + 1;
+    }
+
+    private int column(int row, int id) {
+        int hash = id * SEEDS[row];
+        return (hash ^ (hash >>> 15)) & widthMask;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heapViews[parent] <= heapViews[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = index * 2 + 1;
+            int right = left + 1;
+            if (left < heapSize && heapViews[left] < heapViews[smallest]) {
+                smallest = left;
+            }
+            if (right < heapSize && heapViews[right] < heapViews[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int first, int second) {
+        int id = heapIds[first];
+        long views = heapViews[first];
+        heapIds[first] = heapIds[second];
+        heapViews[first] = heapViews[second];
+        heapIds[second] = id;
+        heapViews[second] = views;
+        heapIndexById.put(heapIds[first], first);
+        heapIndexById.put(heapIds[second], second);
+    }
+}
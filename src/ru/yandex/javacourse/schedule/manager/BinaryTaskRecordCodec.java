@@ -0,0 +1,232 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Compact codec: every record is a varint body length followed by the body.
+ * The body holds the operation ordinal and a varint sequence, then, depending on the operation, a task,
+ * a type ordinal and id, or just an id or group size. Tasks are written as type and status ordinals, varint ids,
+ * length-prefixed UTF-8 strings, the duration in minutes and the start time as epoch seconds plus nanos,
+ * which keeps the precision of the CSV format.
+ */
+class BinaryTaskRecordCodec implements TaskRecordCodec {
+    static final String NAME = "binary";
+    private static final int HAS_DURATION = 1;
+    private static final int HAS_START_TIME = 2;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final JournalOperation[] OPERATIONS = JournalOperation.values();
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(JournalRecord record) {
+        Output body = new Output();
+        body.writeByte(record.operation().ordinal());
+        body.writeVarLong(record.sequence());
+        switch (record.operation()) {
+            case ADD, UPDATE -> writeTask(body, record.task());
+            case DELETE -> {
+                body.writeByte(record.type().ordinal());
+                body.writeVarLong(record.id());
+            }
+            case CLEAR -> body.writeByte(record.type().ordinal());
+            case VIEW, BEGIN -> body.writeVarLong(record.id());
+        }
+        Output framed = new Output();
+        framed.writeVarLong(body.size);
+        framed.write(body.bytes, 0, body.size);
+        return framed.toByteArray();
+    }
+
+    @Override
+    public RecordReader reader(InputStream in) {
+        return () -> {
+            long length = readVarLong(in);
+            if (length < 0) {
+                return null;
+            }
+            byte[] body = in.readNBytes((int) length);
+            if (body.length < length) {
+                return null;
+            }
+            return decode(new Input(body));
+        };
+    }
+
+    private static JournalRecord decode(Input body) {
+        JournalOperation operation = OPERATIONS[body.readByte()];
+        long sequence = body.readVarLong();
+        return switch (operation) {
+            case ADD, UPDATE -> JournalRecord.ofTask(sequence, operation, readTask(body));
+            case DELETE -> JournalRecord.deleted(sequence, TYPES[body.readByte()], (int) body.readVarLong());
+            case CLEAR -> JournalRecord.cleared(sequence, TYPES[body.readByte()]);
+            case VIEW -> JournalRecord.viewed(sequence, (int) body.readVarLong());
+            case BEGIN -> JournalRecord.begun(sequence, (int) body.readVarLong());
+        };
+    }
+
+    private static void writeTask(Output out, Task task) {
+        out.writeByte(task.getType().ordinal());
+        out.writeVarLong(task.getId());
+        out.writeByte(task.getStatus() == null ? 0 : task.getStatus().ordinal() + 1);
+        out.writeString(task.getName());
+        out.writeString(task.getDescription());
+        if (task instanceof Subtask subtask) {
+            out.writeVarLong(subtask.getEpicId());
+        }
+        if (task instanceof Epic) {
+            out.writeByte(0);
+            return;
+        }
+        Duration duration = task.getDuration();
+        LocalDateTime startTime = task.getStartTime();
+        out.writeByte((duration != null ? HAS_DURATION : 0) | (startTime != null ? HAS_START_TIME : 0));
+        if (duration != null) {
+            out.writeVarLong(zigZag(duration.toMinutes()));
+        }
+        if (startTime != null) {
+            out.writeVarLong(zigZag(startTime.toEpochSecond(ZoneOffset.UTC)));
+            out.writeVarLong(startTime.getNano());
+        }
+    }
+
+    private static Task readTask(Input in) {
+        TaskType type = TYPES[in.readByte()];
+        int id = (int) in.readVarLong();
+        int statusOrdinal = in.readByte();
+        TaskStatus status = statusOrdinal == 0 ? null : STATUSES[statusOrdinal - 1];
+        String name = in.readString();
+        String description = in.readString();
+        int epicId = type == TaskType.SUBTASK ? (int) in.readVarLong() : 0;
+        int flags = in.readByte();
+        Duration duration = (flags & HAS_DURATION) != 0 ? Duration.ofMinutes(unZigZag(in.readVarLong())) : null;
+        LocalDateTime startTime = null;
+        if ((flags & HAS_START_TIME) != 0) {
+            long epochSecond = unZigZag(in.readVarLong());
+            startTime = LocalDateTime.ofEpochSecond(epochSecond, (int) in.readVarLong(), ZoneOffset.UTC);
+        }
+        return switch (type) {
+            case EPIC -> new Epic(id, name, description, status);
+            case SUBTASK -> new Subtask(id, name, description, status, epicId, duration, startTime);
+            case TASK -> new Task(id, name, description, status, type, duration, startTime);
+        };
+    }
+
+    /**
+     * Returns -1 at a clean end of stream and when the length itself is cut short.
+     */
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int next = in.read();
+            if (next < 0) {
+                return -1;
+            }
+            value |= (long) (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new ManagerSaveException("Malformed record length");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Output {
+        private byte[] bytes = new byte[64];
+        private int size;
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            write(utf8, 0, utf8.length);
+        }
+
+        void write(byte[] source, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class Input {
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() {
+            return bytes[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int next = readByte();
+                value |= (long) (next & 0x7F) << shift;
+                if ((next & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new ManagerSaveException("Malformed varint");
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            if (length == 0) {
+                return null;
+            }
+            String value = new String(bytes, position, length - 1, StandardCharsets.UTF_8);
+            position += length - 1;
+            return value;
+        }
+    }
+}
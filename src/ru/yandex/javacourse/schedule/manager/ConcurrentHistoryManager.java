@@ -0,0 +1,216 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Task;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe history manager recording views without a shared lock. Each thread appends its views to one
+ * of several striped ring buffers with a single compare-and-set, the buffered views are drained in batches
+ * into an ordered history, by default an {@link InMemoryHistoryManager}, under a drain lock.
+ * A buffer is drained by the thread that fills half of it if the lock is free, by the thread finding it full,
+ * and before every read or removal, so reads and removals always see every view recorded before them.
+ * <p>
+ * Views of one thread keep their order. Views of different threads drained in the same batch are ordered
+ * stripe by stripe, which may differ from the order they were made in by a few entries.
+ * <p>
+ * Drained views are also counted in {@link AccessStatistics}, so counting takes no extra lock either.
+ */
+public class ConcurrentHistoryManager implements HistoryManager {
+    private static final int BUFFER_SIZE = 128;
+    private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+
+    private final HistoryManager history;
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final AccessStatistics statistics = new AccessStatistics();
+    private final ViewBuffer[] buffers;
+    private final int stripeMask;
+
+    public ConcurrentHistoryManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    /**
+     * Buffers views in front of the given history, which is only accessed under the drain lock.
+     */
+    public ConcurrentHistoryManager(HistoryManager history) {
+        this.history = history;
+        int stripes = Math.max(4, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+        this.buffers = new ViewBuffer[stripes];
+        for (int i = 0; i < stripes; i++) {
+            buffers[i] = new ViewBuffer();
+        }
+        this.stripeMask = stripes - 1;
+    }
+
+    @Override
+    public void addTask(Task task) {
+        if (task == null) {
+            return;
+        }
+        ViewBuffer buffer = buffers[stripeOfCurrentThread()];
+        while (true) {
+            int pending = buffer.offer(task);
+            if (pending >= 0) {
+                if (pending >= DRAIN_THRESHOLD && drainLock.tryLock()) {
+                    try {
+                        drainAll();
+                    } finally {
+                        drainLock.unlock();
+                    }
+                }
+                return;
+            }
+            // the buffer is full, make room before retrying
+            drainLock.lock();
+            try {
+                drainAll();
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        drainLock.lock();
+        try {
+            drainAll();
+            return history.getHistory();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistorySnapshot() {
+        drainLock.lock();
+        try {
+            drainAll();
+            return history.getHistorySnapshot();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        drainLock.lock();
+        try {
+            drainAll();
+            history.remove(id);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public void removeAll() {
+        drainLock.lock();
+        try {
+            drainAll();
+            history.removeAll();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Set<Integer> ids) {
+        drainLock.lock();
+        try {
+            drainAll();
+            history.removeAll(ids);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    List<ViewCount> getMostViewed(int k) {
+        drainLock.lock();
+        try {
+            drainAll();
+            return statistics.getMostViewed(k);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    long getEstimatedViews(int id) {
+        drainLock.lock();
+        try {
+            drainAll();
+            return statistics.getEstimatedViews(id);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    /**
+     * Called with the drain lock held.
+     */
+    private void drainAll() {
+        for (ViewBuffer buffer : buffers) {
+            buffer.drainTo(history, statistics);
+        }
+    }
+
+    private int stripeOfCurrentThread() {
+        long threadId = Thread.currentThread().threadId();
+        int hash = (int) (threadId ^ (threadId >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    /**
+     * Ring buffer with many writers and a single reader holding the drain lock. A writer claims a position
+     * by advancing the write index and then publishes the task into its slot, the reader stops at the first
+     * claimed slot not published yet and continues from it on the next drain.
+     */
+    private static final class ViewBuffer {
+        private final AtomicReferenceArray<Task> slots = new AtomicReferenceArray<>(BUFFER_SIZE);
+        private final AtomicLong writeIndex = new AtomicLong();
+        private volatile long readIndex;
+
+        /**
+         * Returns the number of views pending after this one, or -1 if the buffer is full.
+         */
+        int offer(Task task) {
+            while (true) {
+                long write = writeIndex.get();
+                long pending = write - readIndex;
+                if (pending >= BUFFER_SIZE) {
+                    return -1;
+                }
+                if (writeIndex.compareAndSet(write, write + 1)) {
+                    slots.set(slot(write), task);
+                    return (int) pending + 1;
+                }
+            }
+        }
+
+        void drainTo(HistoryManager history, AccessStatistics statistics) {
+            long read = readIndex;
+            long write = writeIndex.get();
+            while (read < write) {
+                int slot = slot(read);
+                Task task = slots.get(slot);
+                if (task == null) {
+                    break;
+                }
+                slots.lazySet(slot, null);
+                history.addTask(task);
+                statistics.recordView(task);
+                read++;
+            }
+            readIndex = read;
+        }
+
+        private static int slot(long index) {
+            return (int) (index & (BUFFER_SIZE - 1));
+        }
+    }
+}
@@ -0,0 +1,867 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe task manager. Reads never lock: tasks live in concurrent maps and an epic is never changed
+ * once published, every change of an epic or its subtasks publishes a fresh copy of the epic.
+ * Writers lock only what they touch: a stripe per epic guards the epic and its subtasks, a stripe per task
+ * guards a plain task, and one schedule lock makes the overlap check and the schedule update atomic.
+ * Locks are always taken in stripe index order, then the schedule lock, and the text index lock last.
+ * The text index is brought in line with the maps after every change of a name or description.
+ * <p>
+ * Bulk deletes remove tasks one by one, a task added concurrently with one may survive it.
+ * Stored tasks should not be modified by callers, updates are done by passing a new instance.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+    private static final int STRIPES = 64;
+    private static final int NO_ID = Integer.MIN_VALUE;
+
+    private final ConcurrentMap<Integer, Task> tasks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Epic> epics = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Subtask> subtasks = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Task> prioritizedTasks = new ConcurrentSkipListSet<>(
+            Comparator.comparing(Task::getStartTime).thenComparingInt(Task::getId));
+    private final IntervalIndex schedule = new IntervalIndex();
+    private final ReentrantLock scheduleLock = new ReentrantLock();
+    private final TextIndex textIndex = new TextIndex();
+    private final ReentrantLock textLock = new ReentrantLock();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final AtomicInteger generatorId = new AtomicInteger();
+    private final ConcurrentHistoryManager historyManager;
+    private final Collection<Task> tasksView = Collections.unmodifiableCollection(tasks.values());
+    private final Collection<Subtask> subtasksView = Collections.unmodifiableCollection(subtasks.values());
+    private final Collection<Epic> epicsView = Collections.unmodifiableCollection(epics.values());
+
+    public ConcurrentTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    /**
+     * Views are recorded through a {@link ConcurrentHistoryManager}, any other history manager is wrapped
+     * into one and does not have to be thread-safe.
+     */
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager instanceof ConcurrentHistoryManager concurrent
+                ? concurrent
+                : new ConcurrentHistoryManager(historyManager);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return new ArrayList<>(subtasks.values());
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return new ArrayList<>(epics.values());
+    }
+
+    /**
+     * The view is weakly consistent, it never fails on concurrent changes.
+     */
+    @Override
+    public Collection<Task> getTasksView() {
+        return tasksView;
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        return subtasksView;
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        return epicsView;
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return null;
+        }
+        List<Subtask> epicSubtasks = new ArrayList<>();
+        for (int subtaskId : epic.getSubtaskIds()) {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) {
+                epicSubtasks.add(subtask);
+            }
+        }
+        return epicSubtasks;
+    }
+
+    /**
+     * Filters the concurrent maps, keeping status indexes consistent with lock-free reads would cost
+     * every writer more than these scans cost their callers.
+     */
+    @Override
+    public List<Task> getTasks(TaskStatus status) {
+        return withStatus(tasks.values(), status);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(TaskStatus status) {
+        return withStatus(subtasks.values(), status);
+    }
+
+    @Override
+    public List<Epic> getEpics(TaskStatus status) {
+        return withStatus(epics.values(), status);
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId, TaskStatus status) {
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return null;
+        }
+        if (epic.getSubtaskCount(status) == 0) {
+            return new ArrayList<>();
+        }
+        List<Subtask> epicSubtasks = getEpicSubtasks(epicId);
+        return epicSubtasks == null ? new ArrayList<>() : withStatus(epicSubtasks, status);
+    }
+
+    /**
+     * Searches hold the text index lock, a change may be stored but not yet searchable meanwhile.
+     */
+    @Override
+    public List<Integer> searchTasks(String query, int limit) {
+        textLock.lock();
+        try {
+            return textIndex.search(query, limit);
+        } finally {
+            textLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> findTasks(TaskType type, TaskStatus status) {
+        return switch (type) {
+            case TASK -> getTasks(status);
+            case SUBTASK -> new ArrayList<>(getSubtasks(status));
+            case EPIC -> new ArrayList<>(getEpics(status));
+        };
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return viewed(tasks, id);
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return viewed(subtasks, id);
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return viewed(epics, id);
+    }
+
+    @Override
+    public Integer addNewTask(Task task) {
+        if (task.getStartTime() == null) {
+            return putTask(task);
+        }
+        scheduleLock.lock();
+        try {
+            if (schedule.overlapsAny(task)) {
+                return null;
+            }
+            int id = putTask(task);
+            addToSchedule(task);
+            return id;
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public Integer addNewEpic(Epic epic) {
+        int id = generatorId.incrementAndGet();
+        epic.setId(id);
+        epics.put(id, epic);
+        reindex(id);
+        return id;
+    }
+
+    @Override
+    public Integer addNewSubtask(Subtask subtask) {
+        int epicId = subtask.getEpicId();
+        ReentrantLock stripe = stripeFor(epicId);
+        stripe.lock();
+        try {
+            Epic epic = epics.get(epicId);
+            if (epic == null) {
+                return null;
+            }
+            if (subtask.getStartTime() == null) {
+                return putSubtask(epic, subtask);
+            }
+            scheduleLock.lock();
+            try {
+                if (schedule.overlapsAny(subtask)) {
+                    return null;
+                }
+                int id = putSubtask(epic, subtask);
+                addToSchedule(subtask);
+                return id;
+            } finally {
+                scheduleLock.unlock();
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public List<ImportResult> importTasks(List<? extends Task> batch) {
+        lockAllStripes();
+        scheduleLock.lock();
+        try {
+            return stageImport(batch);
+        } finally {
+            scheduleLock.unlock();
+            unlockAllStripes();
+        }
+    }
+
+    /**
+     * Holds every lock while validating and applying, so other writers see the transaction applied at once.
+     * Epics the transaction touches are copied once, changed in the copies and published together at the end,
+     * like {@link PersistentTaskManager} does. Lock-free readers may still see some tasks applied before others.
+     */
+    @Override
+    public List<Integer> commit(TaskTransaction transaction) {
+        lockAllStripes();
+        scheduleLock.lock();
+        try {
+            transaction.validate(this::findTask, schedule);
+            vacateSlots(transaction);
+            List<Integer> addedIds = new ArrayList<>();
+            Map<Integer, Integer> idsByProvisional = new HashMap<>();
+            Map<Integer, Epic> stagedEpics = new LinkedHashMap<>();
+            for (TaskTransaction.Operation operation : transaction.operations()) {
+                Task task = operation.task();
+                if (task instanceof Subtask subtask && subtask.getEpicId() < 0) {
+                    subtask.setEpicId(idsByProvisional.get(subtask.getEpicId()));
+                }
+                switch (operation.kind()) {
+                    case ADD -> {
+                        int id;
+                        if (task instanceof Epic epic) {
+                            id = generatorId.incrementAndGet();
+                            epic.setId(id);
+                            stagedEpics.put(id, epic);
+                        } else if (task instanceof Subtask subtask) {
+                            Epic epic = staged(stagedEpics, subtask.getEpicId());
+                            id = generatorId.incrementAndGet();
+                            subtask.setId(id);
+                            putStagedSubtask(null, subtask);
+                            epic.addSubtask(subtask);
+                        } else {
+                            id = putTask(task);
+                            addToSchedule(task);
+                        }
+                        idsByProvisional.put(operation.id(), id);
+                        addedIds.add(id);
+                    }
+                    case UPDATE -> {
+                        if (task instanceof Epic epic) {
+                            Epic copy = staged(stagedEpics, epic.getId());
+                            copy.setName(epic.getName());
+                            copy.setDescription(epic.getDescription());
+                        } else if (task instanceof Subtask subtask) {
+                            Subtask saved = subtasks.get(subtask.getId());
+                            Epic from = staged(stagedEpics, saved.getEpicId());
+                            Epic to = staged(stagedEpics, subtask.getEpicId());
+                            putStagedSubtask(saved, subtask);
+                            if (from != to) {
+                                from.removeSubtask(subtask.getId());
+                            }
+                            to.addSubtask(subtask);
+                        } else {
+                            updateTask(task);
+                        }
+                    }
+                    case DELETE -> {
+                        switch (operation.type()) {
+                            case TASK -> deleteTask(operation.id());
+                            case EPIC -> {
+                                stagedEpics.remove(operation.id());
+                                deleteEpic(operation.id());
+                            }
+                            case SUBTASK -> {
+                                Subtask subtask = subtasks.remove(operation.id());
+                                staged(stagedEpics, subtask.getEpicId()).removeSubtask(subtask.getId());
+                                removeFromSchedule(subtask);
+                                reindex(subtask.getId());
+                                removeFromHistory(subtask.getId());
+                            }
+                        }
+                    }
+                }
+            }
+            epics.putAll(stagedEpics);
+            stagedEpics.keySet().forEach(this::reindex);
+            return addedIds;
+        } finally {
+            scheduleLock.unlock();
+            unlockAllStripes();
+        }
+    }
+
+    /**
+     * Returns the copy of the epic the transaction changes, copying the published one the first time.
+     */
+    private Epic staged(Map<Integer, Epic> stagedEpics, int epicId) {
+        return stagedEpics.computeIfAbsent(epicId, id -> {
+            Epic published = epics.get(id);
+            return rebuild(published, published.getName(), published.getDescription(), List.of(), NO_ID);
+        });
+    }
+
+    /**
+     * Puts a validated subtask in place of the saved one, its epic is published by the caller.
+     */
+    private void putStagedSubtask(Subtask saved, Subtask subtask) {
+        if (saved != null) {
+            removeFromSchedule(saved);
+        }
+        subtasks.put(subtask.getId(), subtask);
+        addToSchedule(subtask);
+        reindex(subtask.getId());
+    }
+
+    /**
+     * Takes every replaced or deleted task off the schedule up front, so the public methods applying the
+     * transaction one step at a time accept slots that are only freed by a later step, as in a swap.
+     */
+    private void vacateSlots(TaskTransaction transaction) {
+        for (TaskTransaction.Operation operation : transaction.operations()) {
+            if (operation.kind() == TaskTransaction.Operation.Kind.ADD) {
+                continue;
+            }
+            Task saved = findTask(operation.kind() == TaskTransaction.Operation.Kind.UPDATE ? operation.task().getId()
+                    : operation.id());
+            if (saved instanceof Epic epic) {
+                if (operation.kind() == TaskTransaction.Operation.Kind.DELETE) {
+                    for (int subtaskId : epic.getSubtaskIds()) {
+                        removeFromSchedule(subtasks.get(subtaskId));
+                    }
+                }
+            } else if (saved != null) {
+                removeFromSchedule(saved);
+            }
+        }
+    }
+
+    /**
+     * Indexes what the maps hold for the id now, or drops the id if nothing. Every change is followed by
+     * this call and the last of them reads the final state, so writers racing on one id cannot leave it stale.
+     */
+    private void reindex(int id) {
+        textLock.lock();
+        try {
+            Task task = findTask(id);
+            if (task == null) {
+                textIndex.remove(id);
+            } else {
+                textIndex.put(task);
+            }
+        } finally {
+            textLock.unlock();
+        }
+    }
+
+    private Task findTask(int id) {
+        Task task = tasks.get(id);
+        if (task != null) {
+            return task;
+        }
+        Epic epic = epics.get(id);
+        return epic != null ? epic : subtasks.get(id);
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        int id = task.getId();
+        ReentrantLock stripe = stripeFor(id);
+        stripe.lock();
+        try {
+            Task saved = tasks.get(id);
+            if (saved == null) {
+                return;
+            }
+            if (saved.getStartTime() == null && task.getStartTime() == null) {
+                tasks.put(id, task);
+                reindex(id);
+                return;
+            }
+            scheduleLock.lock();
+            try {
+                if (schedule.overlapsOthers(task)) {
+                    return;
+                }
+                removeFromSchedule(saved);
+                tasks.put(id, task);
+                addToSchedule(task);
+                reindex(id);
+            } finally {
+                scheduleLock.unlock();
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        int id = epic.getId();
+        ReentrantLock stripe = stripeFor(id);
+        stripe.lock();
+        try {
+            Epic saved = epics.get(id);
+            if (saved == null) {
+                return;
+            }
+            epics.put(id, rebuild(saved, epic.getName(), epic.getDescription(), List.of(), NO_ID));
+            reindex(id);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        int id = subtask.getId();
+        int newEpicId = subtask.getEpicId();
+        while (true) {
+            Subtask current = subtasks.get(id);
+            if (current == null) {
+                return;
+            }
+            int oldEpicId = current.getEpicId();
+            List<ReentrantLock> locks = lockStripes(oldEpicId, newEpicId);
+            try {
+                Subtask saved = subtasks.get(id);
+                if (saved == null) {
+                    return;
+                }
+                if (saved.getEpicId() != oldEpicId) {
+                    // moved to another epic meanwhile, retry under the right stripe
+                    continue;
+                }
+                if (!epics.containsKey(newEpicId)) {
+                    return;
+                }
+                scheduleLock.lock();
+                try {
+                    if (schedule.overlapsOthers(subtask)) {
+                        return;
+                    }
+                    removeFromSchedule(saved);
+                    subtasks.put(id, subtask);
+                    addToSchedule(subtask);
+                    reindex(id);
+                } finally {
+                    scheduleLock.unlock();
+                }
+                if (oldEpicId != newEpicId) {
+                    epics.computeIfPresent(oldEpicId, (epicId, epic) -> withoutSubtask(epic, id));
+                }
+                epics.computeIfPresent(newEpicId, (epicId, epic) -> withSubtasks(epic, List.of(subtask)));
+                return;
+            } finally {
+                locks.forEach(ReentrantLock::unlock);
+            }
+        }
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        ReentrantLock stripe = stripeFor(id);
+        stripe.lock();
+        try {
+            Task task = tasks.remove(id);
+            if (task != null) {
+                removeFromScheduleLocking(task);
+                reindex(id);
+            }
+        } finally {
+            stripe.unlock();
+        }
+        removeFromHistory(id);
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        List<Integer> removedIds = new ArrayList<>();
+        ReentrantLock stripe = stripeFor(id);
+        stripe.lock();
+        try {
+            Epic epic = epics.remove(id);
+            if (epic == null) {
+                return;
+            }
+            removedIds.add(id);
+            for (int subtaskId : epic.getSubtaskIds()) {
+                Subtask subtask = subtasks.remove(subtaskId);
+                if (subtask != null) {
+                    removeFromScheduleLocking(subtask);
+                    removedIds.add(subtaskId);
+                }
+            }
+        } finally {
+            stripe.unlock();
+        }
+        removedIds.forEach(this::reindex);
+        removedIds.forEach(this::removeFromHistory);
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        while (true) {
+            Subtask current = subtasks.get(id);
+            if (current == null) {
+                return;
+            }
+            int epicId = current.getEpicId();
+            ReentrantLock stripe = stripeFor(epicId);
+            stripe.lock();
+            try {
+                Subtask subtask = subtasks.get(id);
+                if (subtask == null) {
+                    return;
+                }
+                if (subtask.getEpicId() != epicId) {
+                    continue;
+                }
+                subtasks.remove(id);
+                removeFromScheduleLocking(subtask);
+                reindex(id);
+                epics.computeIfPresent(epicId, (key, epic) -> withoutSubtask(epic, id));
+            } finally {
+                stripe.unlock();
+            }
+            removeFromHistory(id);
+            return;
+        }
+    }
+
+    @Override
+    public void deleteTasks() {
+        new ArrayList<>(tasks.keySet()).forEach(this::deleteTask);
+    }
+
+    @Override
+    public void deleteSubtasks() {
+        new ArrayList<>(subtasks.keySet()).forEach(this::deleteSubtask);
+    }
+
+    @Override
+    public void deleteEpics() {
+        new ArrayList<>(epics.keySet()).forEach(this::deleteEpic);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getHistorySnapshot() {
+        return historyManager.getHistorySnapshot();
+    }
+
+    /**
+     * Views still buffered in the history are counted before answering.
+     */
+    @Override
+    public List<ViewCount> getMostViewed(int k) {
+        return historyManager.getMostViewed(k);
+    }
+
+    @Override
+    public long getEstimatedViews(int id) {
+        return historyManager.getEstimatedViews(id);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return new ArrayList<>(prioritizedTasks);
+    }
+
+    /**
+     * The view is weakly consistent, it never fails on concurrent changes.
+     */
+    @Override
+    public NavigableSet<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return Collections.unmodifiableNavigableSet(
+                prioritizedTasks.subSet(ScheduleCursor.at(from).probe(), false, ScheduleCursor.at(to).probe(), false));
+    }
+
+    @Override
+    public SchedulePage getPrioritizedTasks(ScheduleCursor cursor, int limit) {
+        return SchedulePage.of(prioritizedTasks, cursor, limit);
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit) {
+        scheduleLock.lock();
+        try {
+            return schedule.findFreeSlots(duration, from, to, limit);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    /**
+     * A slot taken by a concurrent writer between the search and the add is searched past again.
+     * An epic deleted meanwhile puts the original start of the task back.
+     */
+    @Override
+    public Integer scheduleAtEarliest(Task task, LocalDateTime notBefore) {
+        if (task instanceof Epic) {
+            throw new IllegalArgumentException("Epic times follow its subtasks");
+        }
+        if (task instanceof Subtask subtask && !epics.containsKey(subtask.getEpicId())) {
+            return null;
+        }
+        Duration duration = InMemoryTaskManager.durationOf(task);
+        LocalDateTime originalStart = task.getStartTime();
+        LocalDateTime from = notBefore;
+        while (true) {
+            TimeSlot slot;
+            scheduleLock.lock();
+            try {
+                slot = schedule.findFreeSlot(from, duration);
+            } finally {
+                scheduleLock.unlock();
+            }
+            task.setStartTime(slot.start());
+            Integer id = task instanceof Subtask subtask ? addNewSubtask(subtask) : addNewTask(task);
+            if (id != null) {
+                return id;
+            }
+            if (task instanceof Subtask subtask && !epics.containsKey(subtask.getEpicId())) {
+                task.setStartTime(originalStart);
+                return null;
+            }
+            from = slot.start();
+        }
+    }
+
+    @Override
+    public List<Task> getOverlappingTasks(LocalDateTime start, LocalDateTime end) {
+        scheduleLock.lock();
+        try {
+            return schedule.findOverlaps(start, end);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    /**
+     * Records the view and takes it back if the task was deleted meanwhile. Deletes clear the history after
+     * removing the task, so either the delete clears this view or this check sees the task gone.
+     */
+    private <T extends Task> T viewed(Map<Integer, T> storage, int id) {
+        T task = storage.get(id);
+        if (task == null) {
+            return null;
+        }
+        historyManager.addTask(task);
+        if (!storage.containsKey(id)) {
+            historyManager.remove(id);
+        }
+        return task;
+    }
+
+    private static <T extends Task> List<T> withStatus(Collection<T> source, TaskStatus status) {
+        List<T> matching = new ArrayList<>();
+        for (T task : source) {
+            if (task.getStatus() == status) {
+                matching.add(task);
+            }
+        }
+        return matching;
+    }
+
+    private void removeFromHistory(int id) {
+        historyManager.remove(id);
+    }
+
+    private int putTask(Task task) {
+        int id = generatorId.incrementAndGet();
+        task.setId(id);
+        tasks.put(id, task);
+        reindex(id);
+        return id;
+    }
+
+    /**
+     * Called with the epic stripe held.
+     */
+    private int putSubtask(Epic epic, Subtask subtask) {
+        int id = generatorId.incrementAndGet();
+        subtask.setId(id);
+        subtasks.put(id, subtask);
+        epics.put(epic.getId(), withSubtasks(epic, List.of(subtask)));
+        reindex(id);
+        return id;
+    }
+
+    /**
+     * Called with the schedule lock held.
+     */
+    private void addToSchedule(Task task) {
+        if (task.getStartTime() != null) {
+            prioritizedTasks.add(task);
+            schedule.add(task);
+        }
+    }
+
+    private void removeFromSchedule(Task task) {
+        if (task.getStartTime() != null) {
+            prioritizedTasks.remove(task);
+            schedule.remove(task);
+        }
+    }
+
+    private void removeFromScheduleLocking(Task task) {
+        if (task.getStartTime() == null) {
+            return;
+        }
+        scheduleLock.lock();
+        try {
+            removeFromSchedule(task);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    /**
+     * Imports through a private {@link InMemoryTaskManager} to reuse its validation, called with every lock held.
+     * The staging manager gets copies of the epics and the schedule. Adds of epics and untimed tasks take
+     * no lock, so the batch reserves its whole range of ids up front and accepted tasks take ids only from it.
+     */
+    private List<ImportResult> stageImport(List<? extends Task> batch) {
+        InMemoryTaskManager staging = new InMemoryTaskManager();
+        List<Task> current = new ArrayList<>(epics.size() + prioritizedTasks.size());
+        epics.values().forEach(epic -> current.add(copyOf(epic)));
+        current.addAll(prioritizedTasks);
+        staging.restoreTasks(current);
+        staging.generateIdsAfter(generatorId.getAndAdd(batch.size()));
+        List<ImportResult> results = staging.importTasks(batch, false);
+
+        Set<Integer> importedEpicIds = new HashSet<>();
+        Map<Integer, List<Subtask>> addedToStoredEpics = new HashMap<>();
+        for (ImportResult result : results) {
+            if (result.isAccepted() && result.task() instanceof Epic epic) {
+                // the staged epic is already linked to its subtasks from the batch
+                epics.put(epic.getId(), epic);
+                importedEpicIds.add(epic.getId());
+            }
+        }
+        for (ImportResult result : results) {
+            if (!result.isAccepted() || result.task() instanceof Epic) {
+                continue;
+            }
+            Task task = result.task();
+            if (task instanceof Subtask subtask) {
+                subtasks.put(subtask.getId(), subtask);
+                if (!importedEpicIds.contains(subtask.getEpicId())) {
+                    addedToStoredEpics.computeIfAbsent(subtask.getEpicId(), epicId -> new ArrayList<>()).add(subtask);
+                }
+            } else {
+                tasks.put(task.getId(), task);
+            }
+            addToSchedule(task);
+        }
+        addedToStoredEpics.forEach((epicId, added) ->
+                epics.computeIfPresent(epicId, (key, epic) -> withSubtasks(epic, added)));
+        results.stream().filter(ImportResult::isAccepted).forEach(result -> reindex(result.id()));
+        return results;
+    }
+
+    private static Epic copyOf(Epic epic) {
+        return new Epic(epic.getId(), epic.getName(), epic.getDescription());
+    }
+
+    private Epic withSubtasks(Epic epic, List<Subtask> linkedSubtasks) {
+        return rebuild(epic, epic.getName(), epic.getDescription(), linkedSubtasks, NO_ID);
+    }
+
+    private Epic withoutSubtask(Epic epic, int subtaskId) {
+        return rebuild(epic, epic.getName(), epic.getDescription(), List.of(), subtaskId);
+    }
+
+    /**
+     * Copies the epic with the given name and description. The copy links the current subtasks of the epic
+     * except the unlinked one, linked subtasks replace the ones with the same ids or are added after them.
+     */
+    private Epic rebuild(Epic epic, String name, String description, List<Subtask> linkedSubtasks, int unlinkedId) {
+        Map<Integer, Subtask> added = new LinkedHashMap<>();
+        linkedSubtasks.forEach(subtask -> added.put(subtask.getId(), subtask));
+        Epic copy = new Epic(epic.getId(), name, description);
+        for (int subtaskId : epic.getSubtaskIds()) {
+            Subtask linked = added.containsKey(subtaskId) ? added.remove(subtaskId) : subtasks.get(subtaskId);
+            if (subtaskId != unlinkedId && linked != null) {
+                copy.addSubtask(linked);
+            }
+        }
+        added.values().forEach(copy::addSubtask);
+        return copy;
+    }
+
+    private ReentrantLock stripeFor(int id) {
+        return stripes[stripeIndex(id)];
+    }
+
+    private static int stripeIndex(int id) {
+        int hash = id * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private List<ReentrantLock> lockStripes(int firstId, int secondId) {
+        int first = stripeIndex(firstId);
+        int second = stripeIndex(secondId);
+        List<ReentrantLock> locks = first == second
+                ? List.of(stripes[first])
+                : List.of(stripes[Math.min(first, second)], stripes[Math.max(first, second)]);
+        locks.forEach(ReentrantLock::lock);
+        return locks;
+    }
+
+    private void lockAllStripes() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    private void unlockAllStripes() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Epic;
+import ru.yandex.javacourse.schedule.tasks.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads {@code tasks.csv} in line-aligned chunks parsed in parallel on the common fork-join pool.
+ * Only the bytes of the chunks being parsed are held at a time, never the whole file as strings.
+ */
+final class CsvTaskLoader {
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    private static final int MAX_CHUNK_SIZE = 32 << 20;
+    private static final int BOUNDARY_SCAN_SIZE = 4096;
+
+    private final Path path;
+    private final LoadListener listener;
+    private final AtomicLong loadedBytes = new AtomicLong();
+    private final AtomicLong peakHeapBytes = new AtomicLong();
+    private long totalBytes;
+
+    CsvTaskLoader(Path path, LoadListener listener) {
+        this.path = path;
+        this.listener = listener;
+    }
+
+    /**
+     * Parsed content of the file with epics listed first, so it can be restored in one pass.
+     */
+    record Result(List<Task> tasks, long bytes) {
+    }
+
+    Result load() {
+        sampleHeap();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            totalBytes = channel.size();
+            List<Chunk> chunks = split(channel);
+            List<Chunk> parsed = chunks.size() == 1
+                    ? List.of(parse(channel, chunks.getFirst()))
+                    : chunks.parallelStream().map(chunk -> parse(channel, chunk)).toList();
+            int size = parsed.stream().mapToInt(chunk -> chunk.epics.size() + chunk.others.size()).sum();
+            List<Task> tasks = new ArrayList<>(size);
+            parsed.forEach(chunk -> tasks.addAll(chunk.epics));
+            parsed.forEach(chunk -> tasks.addAll(chunk.others));
+            return new Result(tasks, totalBytes);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+    }
+
+    long getPeakHeapBytes() {
+        sampleHeap();
+        return peakHeapBytes.get();
+    }
+
+    /**
+     * Cuts the file after the column names into chunks ending right after a line break.
+     */
+    private List<Chunk> split(FileChannel channel) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        long start = nextLineStart(channel, 0);
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        long chunkSize = Math.clamp((totalBytes - start) / (parallelism * 4L), MIN_CHUNK_SIZE, MAX_CHUNK_SIZE);
+        while (start < totalBytes) {
+            long end = start + chunkSize >= totalBytes ? totalBytes : nextLineStart(channel, start + chunkSize);
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        if (chunks.isEmpty()) {
+            chunks.add(new Chunk(totalBytes, totalBytes));
+        }
+        return chunks;
+    }
+
+    private long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        while (position < totalBytes) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return totalBytes;
+    }
+
+    private Chunk parse(FileChannel channel, Chunk chunk) {
+        byte[] data = new byte[(int) (chunk.end - chunk.start)];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, chunk.start + buffer.position()) < 0) {
+                    throw new ManagerSaveException("File was truncated while loading");
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e.getMessage());
+        }
+        int lineStart = 0;
+        for (int i = 0; i <= data.length; i++) {
+            if (i == data.length || data[i] == '\n') {
+                int lineEnd = i > lineStart && data[i - 1] == '\r' ? i - 1 : i;
+                if (lineEnd > lineStart) {
+                    chunk.add(decode(new String(data, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8)));
+                }
+                lineStart = i + 1;
+            }
+        }
+        sampleHeap();
+        listener.onProgress(loadedBytes.addAndGet(data.length), totalBytes);
+        return chunk;
+    }
+
+    private static Task decode(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            return CsvTaskRecordCodec.decodeTask(line);
+        } catch (RuntimeException e) {
+            throw new ManagerSaveException("Malformed task line: " + line);
+        }
+    }
+
+    private void sampleHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        peakHeapBytes.accumulateAndGet(runtime.totalMemory() - runtime.freeMemory(), Math::max);
+    }
+
+    private static final class Chunk {
+        private final long start;
+        private final long end;
+        private final List<Task> epics = new ArrayList<>();
+        private final List<Task> others = new ArrayList<>();
+
+        private Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private void add(Task task) {
+            if (task instanceof Epic) {
+                epics.add(task);
+            } else if (task != null) {
+                others.add(task);
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.*;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Line-based codec using the {@code tasks.csv} columns.
+ * Commas, backslashes and line breaks inside names and descriptions are escaped with a backslash,
+ * so files without such characters are the same as before escaping was introduced.
+ */
+class CsvTaskRecordCodec implements TaskRecordCodec {
+    static final String NAME = "csv";
+    private static final int TASK_COLUMNS = 8;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(JournalRecord record) {
+        StringBuilder line = new StringBuilder(64)
+                .append(record.sequence()).append(',')
+                .append(record.operation()).append(',');
+        switch (record.operation()) {
+            case ADD, UPDATE -> appendTask(line, record.task());
+            case DELETE -> line.append(record.type()).append(',').append(record.id());
+            case CLEAR -> line.append(record.type());
+            case VIEW, BEGIN -> line.append(record.id());
+        }
+        return line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public RecordReader reader(InputStream in) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.isBlank());
+            return line == null ? null : decode(line);
+        };
+    }
+
+    static JournalRecord decode(String line) {
+        int operationStart = line.indexOf(',');
+        int payloadStart = line.indexOf(',', operationStart + 1);
+        if (operationStart < 0 || payloadStart < 0) {
+            throw new ManagerSaveException("Malformed journal record: " + line);
+        }
+        long sequence = Long.parseLong(line.substring(0, operationStart));
+        JournalOperation operation = JournalOperation.valueOf(line.substring(operationStart + 1, payloadStart));
+        String payload = line.substring(payloadStart + 1);
+        return switch (operation) {
+            case ADD, UPDATE -> JournalRecord.ofTask(sequence, operation, decodeTask(payload));
+            case DELETE -> {
+                int separator = payload.indexOf(',');
+                yield JournalRecord.deleted(sequence, TaskType.valueOf(payload.substring(0, separator)),
+                        Integer.parseInt(payload.substring(separator + 1)));
+            }
+            case CLEAR -> JournalRecord.cleared(sequence, TaskType.valueOf(payload));
+            case VIEW -> JournalRecord.viewed(sequence, Integer.parseInt(payload));
+            case BEGIN -> JournalRecord.begun(sequence, Integer.parseInt(payload));
+        };
+    }
+
+    static String encodeTask(Task task) {
+        return appendTask(new StringBuilder(64), task).toString();
+    }
+
+    static Task decodeTask(String line) {
+        String[] taskProperties = split(line);
+        int id = Integer.parseInt(taskProperties[0]);
+        TaskType taskType = TaskType.valueOf(taskProperties[1]);
+        String name = taskProperties[2];
+        TaskStatus status = TaskStatus.valueOf(taskProperties[3]);
+        String description = taskProperties[4];
+
+        if (TaskType.SUBTASK.equals(taskType)) {
+            int epicId = Integer.parseInt(taskProperties[5]);
+            Duration duration = parseDuration(taskProperties[6]);
+            LocalDateTime startTime = parseStartTime(taskProperties[7]);
+            return new Subtask(id, name, description, status, epicId, duration, startTime);
+        } else if (taskType == TaskType.EPIC) {
+            return new Epic(id, name, description, status);
+        } else {
+            Duration duration = parseDuration(taskProperties[6]);
+            LocalDateTime startTime = parseStartTime(taskProperties[7]);
+            return new Task(id, name, description, status, taskType, duration, startTime);
+        }
+    }
+
+    private static StringBuilder appendTask(StringBuilder line, Task task) {
+        line.append(task.getId()).append(',')
+                .append(task.getType()).append(',');
+        appendEscaped(line, task.getName()).append(',')
+                .append(task.getStatus()).append(',');
+        appendEscaped(line, task.getDescription()).append(',');
+        if (task instanceof Subtask subtask) {
+            line.append(subtask.getEpicId());
+        }
+        line.append(',');
+        Duration duration = task.getDuration();
+        if (duration != null) {
+            line.append(duration.toMinutes());
+        }
+        line.append(',');
+        LocalDateTime startTime = task.getStartTime();
+        if (startTime != null) {
+            line.append(startTime);
+        }
+        return line;
+    }
+
+    private static StringBuilder appendEscaped(StringBuilder line, String value) {
+        if (value == null) {
+            return line.append("null");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case ',' -> line.append("\\,");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                default -> line.append(c);
+            }
+        }
+        return line;
+    }
+
+    private static String[] split(String line) {
+        if (line.indexOf('\\') < 0 && line.indexOf('\r') < 0 && line.indexOf('\n') < 0) {
+            return splitUnescaped(line);
+        }
+        String[] columns = new String[TASK_COLUMNS];
+        StringBuilder column = new StringBuilder();
+        int index = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                char escaped = line.charAt(++i);
+                column.append(escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+            } else if (c == ',' && index < TASK_COLUMNS - 1) {
+                columns[index++] = column.toString();
+                column.setLength(0);
+            } else if (c != '\n' && c != '\r') {
+                column.append(c);
+            }
+        }
+        columns[index++] = column.toString();
+        while (index < TASK_COLUMNS) {
+            columns[index++] = "";
+        }
+        return columns;
+    }
+
+    /**
+     * Most lines have nothing escaped, their columns are plain substrings.
+     */
+    private static String[] splitUnescaped(String line) {
+        String[] columns = new String[TASK_COLUMNS];
+        int index = 0;
+        int start = 0;
+        int comma;
+        while (index < TASK_COLUMNS - 1 && (comma = line.indexOf(',', start)) >= 0) {
+            columns[index++] = line.substring(start, comma);
+            start = comma + 1;
+        }
+        columns[index++] = line.substring(start);
+        while (index < TASK_COLUMNS) {
+            columns[index++] = "";
+        }
+        return columns;
+    }
+
+    private static Duration parseDuration(String minutes) {
+        return minutes.isEmpty() ? null : Duration.ofMinutes(Long.parseLong(minutes));
+    }
+
+    private static LocalDateTime parseStartTime(String startTime) {
+        if (startTime.isEmpty()) {
+            return null;
+        }
+        LocalDateTime parsed = parseIsoFast(startTime);
+        return parsed != null ? parsed : LocalDateTime.parse(startTime);
+    }
+
+    /**
+     * Parses the {@code yyyy-MM-ddTHH:mm[:ss[.fraction]]} form written by {@link LocalDateTime#toString()}
+     * without going through a formatter, returns null for anything else.
+     */
+    private static LocalDateTime parseIsoFast(String value) {
+        int length = value.length();
+        if (length < 16 || value.charAt(4) != '-' || value.charAt(7) != '-' || value.charAt(10) != 'T'
+                || value.charAt(13) != ':') {
+            return null;
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 7);
+        int day = digits(value, 8, 10);
+        int hour = digits(value, 11, 13);
+        int minute = digits(value, 14, 16);
+        int second = 0;
+        int nano = 0;
+        if (length > 16) {
+            if (length < 19 || value.charAt(16) != ':') {
+                return null;
+            }
+            second = digits(value, 17, 19);
+            if (length > 19) {
+                if (value.charAt(19) != '.' || length > 29 || length == 20) {
+                    return null;
+                }
+                nano = digits(value, 20, length);
+                for (int i = length; i < 29; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        if ((year | month | day | hour | minute | second | nano) < 0) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+}
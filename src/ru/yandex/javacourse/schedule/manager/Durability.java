@@ -0,0 +1,69 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import java.time.Duration;
+
+/**
+ * How hard journaled storage tries to put a record on disk before reporting it as written.
+ */
+public final class Durability {
+    public enum Mode {
+        /**
+         * Every mutation waits until its record is fsync-ed.
+         */
+        SYNC,
+        /**
+         * Records are fsync-ed together once the interval passes or enough records are pending.
+         */
+        GROUP,
+        /**
+         * Records are handed to the OS page cache, fsync happens only on an explicit sync.
+         */
+        BUFFERED
+    }
+
+    private final Mode mode;
+    private final Duration groupInterval;
+    private final int groupRecords;
+
+    private Durability(Mode mode, Duration groupInterval, int groupRecords) {
+        this.mode = mode;
+        this.groupInterval = groupInterval;
+        this.groupRecords = groupRecords;
+    }
+
+    public static Durability perOperation() {
+        return new Durability(Mode.SYNC, Duration.ZERO, 1);
+    }
+
+    public static Durability group(Duration interval, int records) {
+        if (interval.isNegative() || records < 1) {
+            throw new IllegalArgumentException("Group commit needs a non-negative interval and at least one record");
+        }
+        return new Durability(Mode.GROUP, interval, records);
+    }
+
+    public static Durability osBuffered() {
+        return new Durability(Mode.BUFFERED, Duration.ZERO, Integer.MAX_VALUE);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Duration getGroupInterval() {
+        return groupInterval;
+    }
+
+    public int getGroupRecords() {
+        return groupRecords;
+    }
+
+    @Override
+    public String toString() {
+        return "Durability{" +
+                "mode=" + mode +
+                ", groupInterval=" + groupInterval +
+                ", groupRecords=" + groupRecords +
+                '}';
+    }
+}
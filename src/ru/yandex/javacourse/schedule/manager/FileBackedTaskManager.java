@@ -5,140 +5,523 @@ import ru.yandex.javacourse.schedule.tasks.*;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.time.Duration;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Stream;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
     private static final String TASK_COLUMN_NAMES = "id,type,name,status,description,epic,duration,startTime";
+    private static final int DEFAULT_COMPACTION_THRESHOLD = 100_000;
 
-    private final Path taskStorageCsv = createTaskStorage(Paths.get("tasks.csv"));
+    private final Path taskStorageCsv;
+    private TaskJournal journal;
+    private HistoryLog historyLog;
+    private ExecutorService snapshotExecutor;
+    private CompletableFuture<Void> compaction = CompletableFuture.completedFuture(null);
+    private int compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private int recordsSinceSnapshot;
 
-    public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager();
-        List<String> readTasksList;
+    public FileBackedTaskManager() {
+        this.taskStorageCsv = createTaskStorage(Paths.get("tasks.csv"));
+        this.journal = null;
+    }
+
+    private FileBackedTaskManager(TaskJournal journal, HistoryLog historyLog) {
+        this.taskStorageCsv = null;
+        this.journal = journal;
+        this.historyLog = historyLog;
+        this.snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates an empty manager in journaled mode: every mutation appends one record to the given file
+     * instead of rewriting the whole storage, and every view appends its id to a separate history log.
+     * Each mutation waits until its record is fsync-ed.
+     */
+    public static FileBackedTaskManager createJournaled(Path journalFile) {
+        return createJournaled(journalFile, Durability.perOperation());
+    }
+
+    public static FileBackedTaskManager createJournaled(Path journalFile, Durability durability) {
+        return createJournaled(journalFile, durability, StorageFormat.CSV);
+    }
+
+    /**
+     * Creates an empty journaled manager writing records in the given format.
+     * The format is stored in the file headers, loading picks it up from there.
+     */
+    public static FileBackedTaskManager createJournaled(Path journalFile, Durability durability,
+                                                       StorageFormat format) {
+        Path historyFile = HistoryLog.pathFor(journalFile);
         try {
-            readTasksList = Files.readAllLines(file.toPath());
-            if (!readTasksList.isEmpty()) {
-                readTasksList.removeFirst();
-            }
+            Files.deleteIfExists(TaskSnapshot.pathFor(journalFile));
+            Files.deleteIfExists(TaskSnapshot.archiveFor(journalFile));
+            Files.deleteIfExists(TaskSnapshot.archiveFor(historyFile));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Exception while removing previous snapshot");
+        }
+        return new FileBackedTaskManager(TaskJournal.create(journalFile, format, durability),
+                HistoryLog.create(historyFile, format, durability));
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file) {
+        return loadFromFile(file, Durability.perOperation(), LoadListener.NONE);
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, LoadListener listener) {
+        return loadFromFile(file, Durability.perOperation(), listener);
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, Durability durability) {
+        return loadFromFile(file, durability, LoadListener.NONE);
+    }
+
+    /**
+     * Loads tasks from the file. A journal keeps being appended with the given durability after replay.
+     * A {@code tasks.csv} file is parsed in parallel chunks and imported as one batch keeping the ids,
+     * tasks overlapping with earlier ones are skipped. The listener is told about parsed chunks and gets a report once the load is over.
+     */
+    public static FileBackedTaskManager loadFromFile(File file, Durability durability, LoadListener listener) {
+        StorageHeader header;
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            header = StorageHeader.read(in);
         } catch (IOException e) {
             throw new ManagerSaveException(e.getMessage());
         }
-        for (String readTask : readTasksList) {
-            Task task = manager.fromString(readTask);
-            if (task instanceof Epic epic) {
-                manager.addNewEpic(epic);
-            } else if (task instanceof Subtask subtask) {
-                manager.addNewSubtask(subtask);
-            } else {
-                manager.addNewTask(task);
-            }
+        if (header != null && TaskJournal.KIND.equals(header.kind())) {
+            return replayJournal(file.toPath(), header.format(), durability);
         }
+        long startNanos = System.nanoTime();
+        CsvTaskLoader loader = new CsvTaskLoader(file.toPath(), listener);
+        CsvTaskLoader.Result loaded = loader.load();
+        FileBackedTaskManager manager = new FileBackedTaskManager();
+        List<ImportResult> results = manager.importTasks(loaded.tasks(), true);
+        manager.save();
+        int accepted = (int) results.stream().filter(ImportResult::isAccepted).count();
+        listener.onLoaded(new LoadReport(accepted, results.size() - accepted, loaded.bytes(),
+                Duration.ofNanos(System.nanoTime() - startNanos), loader.getPeakHeapBytes()));
         return manager;
     }
 
+    /**
+     * Restores the newest snapshot, then replays only the journal and history records written after it.
+     * Records rotated out for a snapshot that never completed are replayed too and compacted right away.
+     */
+    private static FileBackedTaskManager replayJournal(Path path, StorageFormat format, Durability durability) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(null, null);
+        Path historyFile = HistoryLog.pathFor(path);
+        Path archivedJournal = TaskSnapshot.archiveFor(path);
+        Path archivedHistory = TaskSnapshot.archiveFor(historyFile);
+        TaskSnapshot snapshot = TaskSnapshot.read(TaskSnapshot.pathFor(path), manager::restoreSnapshotRecord);
+        long journalSequence = 0;
+        long historySequence = 0;
+        if (snapshot != null) {
+            manager.reserveIds(snapshot.lastId());
+            journalSequence = snapshot.journalSequence();
+            historySequence = snapshot.historySequence();
+        }
+
+        JournalTail tail = new JournalTail(journalSequence, true);
+        boolean recovering = Files.exists(archivedJournal) || Files.exists(archivedHistory);
+        if (Files.exists(archivedJournal)) {
+            tail = manager.replay(archivedJournal, journalSequence, tail);
+        }
+        tail = manager.replay(path, journalSequence, tail);
+        // a group cut short by a crash is dropped, the snapshot taken below keeps it out of later replays
+        recovering |= !tail.complete();
+        long lastJournalSequence = tail.lastSequence();
+        manager.journal = TaskJournal.resume(path, format, lastJournalSequence, durability);
+
+        long lastHistorySequence = historySequence;
+        if (Files.exists(archivedHistory)) {
+            lastHistorySequence = Math.max(lastHistorySequence, HistoryLog.replay(archivedHistory, historySequence,
+                    manager.historyManager, manager::findTask));
+        }
+        if (Files.exists(historyFile)) {
+            lastHistorySequence = Math.max(lastHistorySequence, HistoryLog.replay(historyFile, historySequence,
+                    manager.historyManager, manager::findTask));
+        }
+        manager.historyLog = HistoryLog.resume(historyFile, format, lastHistorySequence, durability);
+
+        if (recovering) {
+            manager.compact().join();
+        }
+        return manager;
+    }
+
+    /**
+     * Applies the records of the file written after the given sequence. Records of a group are held back
+     * until the whole group is read, a group the file ends in the middle of is never applied.
+     */
+    private JournalTail replay(Path path, long afterSequence, JournalTail previous) {
+        long[] last = {previous.lastSequence()};
+        List<JournalRecord> group = new ArrayList<>();
+        int[] groupSize = {0};
+        TaskRecordCodec.readFile(path, TaskJournal.KIND, record -> {
+            last[0] = Math.max(last[0], record.sequence());
+            if (record.operation() == JournalOperation.BEGIN) {
+                group.clear();
+                groupSize[0] = record.id();
+                return;
+            }
+            if (groupSize[0] == 0) {
+                applyAfter(record, afterSequence);
+                return;
+            }
+            group.add(record);
+            if (group.size() == groupSize[0]) {
+                group.forEach(grouped -> applyAfter(grouped, afterSequence));
+                group.clear();
+                groupSize[0] = 0;
+            }
+        });
+        return new JournalTail(last[0], previous.complete() && groupSize[0] == 0);
+    }
+
+    private void applyAfter(JournalRecord record, long afterSequence) {
+        if (record.sequence() > afterSequence) {
+            apply(record);
+        }
+    }
+
+    private void restoreSnapshotRecord(JournalRecord record) {
+        if (record.operation() == JournalOperation.VIEW) {
+            historyManager.addTask(findTask(record.id()));
+        } else {
+            restoreTask(record.task());
+        }
+    }
+
+    /**
+     * Sets how many journal records may pile up before a snapshot is taken automatically.
+     */
+    public void setCompactionThreshold(int records) {
+        if (records < 1) {
+            throw new IllegalArgumentException("Compaction threshold should be positive");
+        }
+        compactionThreshold = records;
+    }
+
+    /**
+     * Takes a snapshot of the journaled store and drops the journal and history records it covers.
+     * The state is captured and the logs are switched to fresh files on the calling thread,
+     * writing the snapshot and deleting the old records happens in the background.
+     * Waits for a snapshot that is still being written, so that the new one covers everything done so far.
+     */
+    public CompletableFuture<Void> compact() {
+        if (journal == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        compaction.exceptionally(e -> null).join();
+        return startCompaction();
+    }
+
+    private CompletableFuture<Void> startCompaction() {
+        TaskSnapshot snapshot = new TaskSnapshot(journal.getLastSequence(), historyLog.getLastSequence(), getLastId());
+        List<byte[]> records = captureSnapshot();
+        StorageFormat format = journal.getFormat();
+        Path snapshotFile = TaskSnapshot.pathFor(journal.getPath());
+        Path archivedJournal = TaskSnapshot.archiveFor(journal.getPath());
+        Path archivedHistory = TaskSnapshot.archiveFor(historyLog.getPath());
+        recordsSinceSnapshot = 0;
+        compaction = CompletableFuture.allOf(journal.rotate(), historyLog.rotate())
+                .thenRunAsync(() -> {
+                    snapshot.write(snapshotFile, format, records);
+                    try {
+                        Files.deleteIfExists(archivedJournal);
+                        Files.deleteIfExists(archivedHistory);
+                    } catch (IOException e) {
+                        throw new ManagerSaveException("Exception while removing compacted logs");
+                    }
+                }, snapshotExecutor);
+        return compaction;
+    }
+
+    /**
+     * Encodes the current tasks and history on the calling thread, so the background writer sees a consistent state.
+     */
+    private List<byte[]> captureSnapshot() {
+        TaskRecordCodec codec = journal.getFormat().codec();
+        List<Task> history = getHistory();
+        List<byte[]> records = new ArrayList<>(epics.size() + tasks.size() + subtasks.size() + history.size());
+        Stream.of(epics.values(), tasks.values(), subtasks.values())
+                .flatMap(Collection::stream)
+                .map(task -> codec.encode(JournalRecord.ofTask(0, JournalOperation.ADD, task)))
+                .forEach(records::add);
+        history.forEach(task -> records.add(codec.encode(JournalRecord.viewed(0, task.getId()))));
+        return records;
+    }
+
     @Override
     public Task getTask(int id) {
         Task task = super.getTask(id);
-        save();
+        saveViewed(task);
         return task;
     }
 
     @Override
     public Subtask getSubtask(int id) {
         Subtask subtask = super.getSubtask(id);
-        save();
+        saveViewed(subtask);
         return subtask;
     }
 
     @Override
     public Epic getEpic(int id) {
         Epic epic = super.getEpic(id);
-        save();
+        saveViewed(epic);
         return epic;
     }
 
     @Override
     public Integer addNewTask(Task task) {
         Integer newTaskId = super.addNewTask(task);
-        save(task);
+        saveAdded(newTaskId, task);
         return newTaskId;
     }
 
     @Override
     public Integer addNewEpic(Epic epic) {
-        int newEpicId = super.addNewEpic(epic);
-        save(epic);
+        Integer newEpicId = super.addNewEpic(epic);
+        saveAdded(newEpicId, epic);
         return newEpicId;
     }
 
     @Override
     public Integer addNewSubtask(Subtask subtask) {
         Integer subtaskId = super.addNewSubtask(subtask);
-        save(subtask);
+        saveAdded(subtaskId, subtask);
         return subtaskId;
     }
 
+    @Override
+    public List<ImportResult> importTasks(List<? extends Task> batch) {
+        List<ImportResult> results = super.importTasks(batch);
+        List<Task> accepted = new ArrayList<>(results.size());
+        results.stream().filter(result -> result.isAccepted() && result.task() instanceof Epic)
+                .forEach(result -> accepted.add(result.task()));
+        results.stream().filter(result -> result.isAccepted() && !(result.task() instanceof Epic))
+                .forEach(result -> accepted.add(result.task()));
+        if (accepted.isEmpty()) {
+            return results;
+        }
+        if (journal == null) {
+            save(accepted);
+        } else {
+            journal.appendAdded(accepted);
+            afterJournalAppend(accepted.size());
+        }
+        return results;
+    }
+
+    /**
+     * Persists the whole transaction with one write: a single rewrite of the storage file, or journal records
+     * appended together and waited for once.
+     */
+    @Override
+    public List<Integer> commit(TaskTransaction transaction) {
+        List<Integer> ids = super.commit(transaction);
+        if (transaction.isEmpty()) {
+            return ids;
+        }
+        if (journal == null) {
+            save();
+            return ids;
+        }
+        List<JournalRecord> records = new ArrayList<>(transaction.operations().size());
+        for (TaskTransaction.Operation operation : transaction.operations()) {
+            records.add(switch (operation.kind()) {
+                case ADD -> JournalRecord.ofTask(0, JournalOperation.ADD, operation.task());
+                case UPDATE -> JournalRecord.ofTask(0, JournalOperation.UPDATE, operation.task());
+                case DELETE -> JournalRecord.deleted(0, operation.type(), operation.id());
+            });
+        }
+        journal.appendAll(records);
+        afterJournalAppend(records.size());
+        return ids;
+    }
+
     @Override
     public void updateTask(Task task) {
         super.updateTask(task);
-        save();
+        if (tasks.get(task.getId()) == task) {
+            saveUpdated(task);
+        }
     }
 
     @Override
     public void updateEpic(Epic epic) {
         super.updateEpic(epic);
-        save();
+        saveUpdated(epic);
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
         super.updateSubtask(subtask);
-        save();
+        if (subtasks.get(subtask.getId()) == subtask) {
+            saveUpdated(subtask);
+        }
     }
 
     @Override
     public void deleteTask(int id) {
         super.deleteTask(id);
-        save();
+        saveDeleted(TaskType.TASK, id);
     }
 
     @Override
     public void deleteEpic(int id) {
         super.deleteEpic(id);
-        save();
+        saveDeleted(TaskType.EPIC, id);
     }
 
     @Override
     public void deleteSubtask(int id) {
         super.deleteSubtask(id);
-        save();
+        saveDeleted(TaskType.SUBTASK, id);
     }
 
     @Override
     public void deleteTasks() {
         super.deleteTasks();
-        save();
+        saveCleared(TaskType.TASK);
     }
 
     @Override
     public void deleteSubtasks() {
         super.deleteSubtasks();
-        save();
+        saveCleared(TaskType.SUBTASK);
     }
 
     @Override
     public void deleteEpics() {
         super.deleteEpics();
-        save();
+        saveCleared(TaskType.EPIC);
+    }
+
+    private void apply(JournalRecord record) {
+        switch (record.operation()) {
+            case ADD -> restoreTask(record.task());
+            case UPDATE -> {
+                Task task = record.task();
+                if (task instanceof Epic epic) {
+                    super.updateEpic(epic);
+                } else if (task instanceof Subtask subtask) {
+                    super.updateSubtask(subtask);
+                } else {
+                    super.updateTask(task);
+                }
+            }
+            case DELETE -> {
+                switch (record.type()) {
+                    case TASK -> super.deleteTask(record.id());
+                    case EPIC -> super.deleteEpic(record.id());
+                    case SUBTASK -> super.deleteSubtask(record.id());
+                }
+            }
+            case CLEAR -> {
+                switch (record.type()) {
+                    case TASK -> super.deleteTasks();
+                    case EPIC -> super.deleteEpics();
+                    case SUBTASK -> super.deleteSubtasks();
+                }
+            }
+            case VIEW, BEGIN -> throw new ManagerSaveException("Unexpected " + record.operation()
+                    + " record in journal: " + record.sequence());
+        }
+    }
+
+    /**
+     * Views only change the history order, so they never rewrite the task storage.
+     */
+    private void saveViewed(Task task) {
+        if (historyLog == null || task == null) {
+            return;
+        }
+        historyLog.append(task.getId());
+        if (historyLog.needsCompaction()) {
+            historyLog.compact(getHistory());
+        }
+    }
+
+    private void saveAdded(Integer id, Task task) {
+        if (journal == null) {
+            save(task);
+        } else if (id != null) {
+            journal.append(JournalOperation.ADD, task);
+            afterJournalAppend(1);
+        }
+    }
+
+    private void saveUpdated(Task task) {
+        if (journal == null) {
+            save();
+        } else {
+            journal.append(JournalOperation.UPDATE, task);
+            afterJournalAppend(1);
+        }
+    }
+
+    private void saveDeleted(TaskType type, int id) {
+        if (journal == null) {
+            save();
+        } else {
+            journal.appendDeleted(type, id);
+            afterJournalAppend(1);
+        }
+    }
+
+    private void saveCleared(TaskType type) {
+        if (journal == null) {
+            save();
+        } else {
+            journal.appendCleared(type);
+            afterJournalAppend(1);
+            // bulk deletes may drop history entries of other types as well, so the log is rebuilt
+            historyLog.compact(getHistory());
+        }
+    }
+
+    private void afterJournalAppend(int records) {
+        recordsSinceSnapshot += records;
+        if (recordsSinceSnapshot >= compactionThreshold && compaction.isDone()) {
+            startCompaction();
+        }
+    }
+
+    /**
+     * Barrier for journaled mode: completes once every mutation and view made so far is on disk.
+     */
+    public CompletableFuture<Void> sync() {
+        if (journal == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.allOf(journal.sync(), historyLog.sync());
+    }
+
+    @Override
+    public void close() {
+        if (journal != null) {
+            compaction.exceptionally(e -> null).join();
+            snapshotExecutor.shutdown();
+            journal.close();
+            historyLog.close();
+        }
     }
 
     private Path createTaskStorage(Path path) {
@@ -169,9 +552,15 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     private void save(Task task) {
+        save(List.of(task));
+    }
+
+    private void save(List<Task> added) {
         try (BufferedWriter bufferedWriter = Files.newBufferedWriter(taskStorageCsv, StandardCharsets.UTF_8, StandardOpenOption.APPEND)) {
-            bufferedWriter.write(toString(task));
-            bufferedWriter.newLine();
+            for (Task task : added) {
+                bufferedWriter.write(CsvTaskRecordCodec.encodeTask(task));
+                bufferedWriter.newLine();
+            }
         } catch (IOException e) {
             throw new ManagerSaveException("Exception while file writing");
         }
@@ -183,7 +572,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
             writer.newLine();
             Stream.of(tasks.values(), subtasks.values(), epics.values())
                     .flatMap(Collection::stream)
-                    .map(this::toString)
+                    .map(CsvTaskRecordCodec::encodeTask)
                     .forEach(task -> {
                         try {
                             writer.write(task);
@@ -197,37 +586,9 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         }
     }
 
-    private String toString(Task task) {
-        String durationInMinutes = task.getDuration() == null ? "" : String.valueOf(task.getDuration().toMinutes());
-        if (task instanceof Subtask subtask) {
-            return String.format("%s,%s,%s,%s,%s,%s,%s,%s", subtask.getId(), subtask.getType(), subtask.getName(),
-                    subtask.getStatus(), subtask.getDescription(), subtask.getEpicId(), durationInMinutes, subtask.getStartTime());
-        } else {
-            return String.format("%s,%s,%s,%s,%s,,%s,%s", task.getId(), task.getType(), task.getName(),
-                    task.getStatus(), task.getDescription(), durationInMinutes, task.getStartTime() == null ? "" : task.getStartTime().toString());
-        }
-    }
-
-    private Task fromString(String intialString) {
-        String string = intialString.replaceAll("[\\n\\r]", "");
-        String[] taskProperties = string.split(",");
-        int id = Integer.parseInt(taskProperties[0]);
-        TaskType taskType = TaskType.valueOf(taskProperties[1]);
-        String name = taskProperties[2];
-        TaskStatus status = TaskStatus.valueOf(taskProperties[3]);
-        String description = taskProperties[4];
-
-        if (taskProperties.length == 8 && TaskType.SUBTASK.equals(taskType)) {
-            int epicId = Integer.parseInt(taskProperties[5]);
-            Duration duration = Duration.ofMinutes(Integer.parseInt(taskProperties[6]));
-            LocalDateTime startTime = LocalDateTime.parse(taskProperties[7]);
-            return new Subtask(id, name, description, status, epicId, duration, startTime);
-        } else if (taskType == TaskType.EPIC) {
-            return new Epic(id, name, description, status);
-        } else {
-            Duration duration = Duration.ofMinutes(Integer.parseInt(taskProperties[6]));
-            LocalDateTime startTime = LocalDateTime.parse(taskProperties[7]);
-            return new Task(id, name, description, status, taskType, duration, startTime);
-        }
+    /**
+     * Last sequence read from the journal files and whether they ended outside of a group.
+     */
+    private record JournalTail(long lastSequence, boolean complete) {
     }
 }
@@ -0,0 +1,282 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends records to a file from a dedicated thread.
+ * Pending records are written with one channel write per batch and fsync-ed according to the {@link Durability},
+ * so callers never pay for opening the file and, outside of {@link Durability.Mode#SYNC}, never wait for the disk.
+ */
+class GroupCommitWriter implements AutoCloseable {
+    private static final int MAX_BATCH = 1024;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final Durability durability;
+    private FileChannel channel;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    // guards closing against queueing, so nothing is queued behind the stop
+    private final Object queueLock = new Object();
+    private final Thread thread;
+    private final List<Pending> unsynced = new ArrayList<>();
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private long firstUnsyncedNanos;
+    private volatile ManagerSaveException failure;
+    private volatile boolean closed;
+
+    GroupCommitWriter(Path path, Durability durability) {
+        this.path = path;
+        this.durability = durability;
+        try {
+            this.channel = open(path);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Exception while opening " + path.getFileName());
+        }
+        this.thread = new Thread(this::run, "writer-" + path.getFileName());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues one encoded record. The future completes once it is as durable as the configured mode promises.
+     */
+    CompletableFuture<Void> append(byte[] record) {
+        return enqueue(new Pending(Kind.RECORD, record, null));
+    }
+
+    /**
+     * Barrier: the future completes once every previously queued record is written and fsync-ed.
+     */
+    CompletableFuture<Void> sync() {
+        return enqueue(new Pending(Kind.SYNC, null, null));
+    }
+
+    /**
+     * Moves everything queued so far to the archive file and continues in a fresh file starting with the header.
+     * Runs in queue order, so records appended after this call never reach the archive.
+     */
+    CompletableFuture<Void> rotate(Path archive, byte[] header) {
+        return enqueue(new Pending(Kind.ROTATE, header, archive));
+    }
+
+    /**
+     * Waits for the record if the durability mode requires callers to block.
+     */
+    void await(CompletableFuture<Void> written) {
+        if (durability.getMode() == Durability.Mode.SYNC) {
+            join(written);
+        }
+    }
+
+    Durability getDurability() {
+        return durability;
+    }
+
+    @Override
+    public void close() {
+        Pending stop = new Pending(Kind.STOP, null, null);
+        synchronized (queueLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(stop);
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        join(stop.future);
+    }
+
+    static void join(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ManagerSaveException saveException) {
+                throw saveException;
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(Pending pending) {
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failure);
+        }
+        synchronized (queueLock) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new ManagerSaveException(path.getFileName() + " is closed"));
+            }
+            queue.add(pending);
+        }
+        return pending.future;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                Pending first = unsynced.isEmpty() ? queue.take() : queue.poll(untilGroupDeadline(), TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                }
+                running = process(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (IOException e) {
+                fail(batch, new ManagerSaveException("Exception while writing " + path.getFileName()));
+                running = batch.stream().noneMatch(pending -> pending.kind == Kind.STOP);
+            }
+            batch.clear();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            fail(batch, new ManagerSaveException("Exception while closing " + path.getFileName()));
+        }
+        // records are left behind only if the thread was interrupted, their callers must not wait forever
+        List<Pending> left = new ArrayList<>();
+        synchronized (queueLock) {
+            closed = true;
+            queue.drainTo(left);
+        }
+        ManagerSaveException stopped = new ManagerSaveException(path.getFileName() + " is closed");
+        left.forEach(pending -> pending.future.completeExceptionally(stopped));
+    }
+
+    private boolean process(List<Pending> batch) throws IOException {
+        if (failure != null) {
+            batch.forEach(pending -> pending.future.completeExceptionally(failure));
+            return batch.stream().noneMatch(pending -> pending.kind == Kind.STOP);
+        }
+        boolean forceRequested = false;
+        boolean stop = false;
+        List<Pending> written = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            switch (pending.kind) {
+                case RECORD -> put(pending.record);
+                case SYNC -> forceRequested = true;
+                case STOP -> {
+                    forceRequested = true;
+                    stop = true;
+                }
+                case ROTATE -> {
+                    writeBuffer();
+                    commit(written, true);
+                    written.clear();
+                    rotate(pending);
+                    pending.future.complete(null);
+                    continue;
+                }
+            }
+            written.add(pending);
+        }
+        writeBuffer();
+        commit(written, forceRequested);
+        return !stop;
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void commit(List<Pending> written, boolean force) throws IOException {
+        if (durability.getMode() == Durability.Mode.BUFFERED && !force) {
+            written.forEach(pending -> pending.future.complete(null));
+            return;
+        }
+        if (unsynced.isEmpty() && !written.isEmpty()) {
+            firstUnsyncedNanos = System.nanoTime();
+        }
+        unsynced.addAll(written);
+        if (force || isGroupDue()) {
+            channel.force(false);
+            unsynced.forEach(pending -> pending.future.complete(null));
+            unsynced.clear();
+        }
+    }
+
+    private void rotate(Pending rotation) throws IOException {
+        Path fresh = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(fresh, rotation.record);
+        channel.close();
+        Files.move(path, rotation.archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(fresh, path, StandardCopyOption.ATOMIC_MOVE);
+        channel = open(path);
+    }
+
+    private boolean isGroupDue() {
+        return switch (durability.getMode()) {
+            case SYNC -> true;
+            case GROUP -> unsynced.size() >= durability.getGroupRecords() || untilGroupDeadline() <= 0;
+            case BUFFERED -> false;
+        };
+    }
+
+    private long untilGroupDeadline() {
+        return durability.getGroupInterval().toNanos() - (System.nanoTime() - firstUnsyncedNanos);
+    }
+
+    private void put(byte[] record) {
+        if (buffer.remaining() < record.length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + record.length));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+        buffer.put(record);
+    }
+
+    private void fail(List<Pending> batch, ManagerSaveException exception) {
+        failure = exception;
+        buffer.clear();
+        unsynced.forEach(pending -> pending.future.completeExceptionally(exception));
+        unsynced.clear();
+        batch.forEach(pending -> pending.future.completeExceptionally(exception));
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private enum Kind {
+        RECORD,
+        SYNC,
+        ROTATE,
+        STOP
+    }
+
+    private static final class Pending {
+        private final Kind kind;
+        private final byte[] record;
+        private final Path archive;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Pending(Kind kind, byte[] record, Path archive) {
+            this.kind = kind;
+            this.record = record;
+            this.archive = archive;
+        }
+    }
+}
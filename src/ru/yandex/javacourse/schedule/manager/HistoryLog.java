@@ -0,0 +1,175 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Task;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
+
+/**
+ * Append-only log of task views kept next to the task journal.
+ * A view costs one short sequence and id record handed to the background writer, views never wait for the disk.
+ * The log is rewritten from the current history once it holds noticeably more records than the history itself;
+ * a rewritten log has a reset header carrying the sequence the history was rebuilt at.
+ */
+class HistoryLog implements AutoCloseable {
+    static final String KIND = "history";
+    private static final String RESET = "reset";
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+
+    private final Path path;
+    private final StorageFormat format;
+    private final Durability durability;
+    private GroupCommitWriter writer;
+    private long lastSequence;
+    private int records;
+    private int compactionThreshold;
+
+    private HistoryLog(Path path, StorageFormat format, long lastSequence, Durability durability) {
+        this.path = path;
+        this.format = format;
+        this.durability = durability;
+        this.lastSequence = lastSequence;
+        this.compactionThreshold = compactionThreshold(0);
+        this.writer = new GroupCommitWriter(path, durability);
+    }
+
+    static Path pathFor(Path journalFile) {
+        return journalFile.resolveSibling(journalFile.getFileName() + ".history");
+    }
+
+    static HistoryLog create(Path path, StorageFormat format, Durability durability) {
+        write(path, format, StorageHeader.of(KIND, format), List.of(), 0);
+        return new HistoryLog(path, format, 0, durability);
+    }
+
+    /**
+     * Reopens the log for appending, creating it when it is missing.
+     */
+    static HistoryLog resume(Path path, StorageFormat format, long lastSequence, Durability durability) {
+        if (!Files.exists(path)) {
+            write(path, format, StorageHeader.of(KIND, format), List.of(), 0);
+        }
+        return new HistoryLog(path, format, lastSequence, durability);
+    }
+
+    /**
+     * Applies views with sequences after the given one to the history and returns the last sequence seen.
+     */
+    static long replay(Path path, long afterSequence, HistoryManager history, IntFunction<Task> lookup) {
+        long resetSequence = resetSequence(readHeader(path));
+        if (resetSequence >= afterSequence) {
+            history.removeAll();
+        }
+        long[] lastSequence = {Math.max(afterSequence, resetSequence)};
+        TaskRecordCodec.readFile(path, KIND, record -> {
+            if (record.sequence() > afterSequence) {
+                history.addTask(lookup.apply(record.id()));
+            }
+            lastSequence[0] = Math.max(lastSequence[0], record.sequence());
+        });
+        return lastSequence[0];
+    }
+
+    void append(int id) {
+        lastSequence++;
+        records++;
+        writer.append(format.codec().encode(JournalRecord.viewed(lastSequence, id)));
+    }
+
+    boolean needsCompaction() {
+        return records >= compactionThreshold;
+    }
+
+    /**
+     * Replaces the log content with the given history, one record per task.
+     */
+    void compact(List<Task> history) {
+        writer.close();
+        long resetSequence = lastSequence;
+        lastSequence = write(path, format, StorageHeader.of(KIND, format, RESET, resetSequence),
+                history.stream().map(Task::getId).toList(), resetSequence);
+        records = history.size();
+        compactionThreshold = compactionThreshold(records);
+        writer = new GroupCommitWriter(path, durability);
+    }
+
+    /**
+     * Moves the records written so far to the archive, the snapshot being taken covers them.
+     */
+    CompletableFuture<Void> rotate() {
+        records = 0;
+        compactionThreshold = compactionThreshold(0);
+        return writer.rotate(TaskSnapshot.archiveFor(path), StorageHeader.of(KIND, format).toBytes());
+    }
+
+    CompletableFuture<Void> sync() {
+        return writer.sync();
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+    }
+
+    /**
+     * Returns the sequence a rewritten log was reset at, or -1 for a log that continues the previous one.
+     */
+    private static long resetSequence(StorageHeader header) {
+        List<String> attributes = header.attributes();
+        if (attributes.size() == 2 && RESET.equals(attributes.getFirst())) {
+            return Long.parseLong(attributes.get(1));
+        }
+        return -1;
+    }
+
+    private static StorageHeader readHeader(Path path) {
+        try (var in = Files.newInputStream(path)) {
+            StorageHeader header = StorageHeader.read(in);
+            if (header == null || !KIND.equals(header.kind())) {
+                throw new ManagerSaveException("Unexpected header in " + path.getFileName());
+            }
+            return header;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Exception while reading history log");
+        }
+    }
+
+    private static long write(Path path, StorageFormat format, StorageHeader header, List<Integer> ids,
+                              long afterSequence) {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        long sequence = afterSequence;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+            out.write(header.toBytes());
+            for (int id : ids) {
+                out.write(format.codec().encode(JournalRecord.viewed(++sequence, id)));
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Exception while history log compaction");
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Exception while history log compaction");
+        }
+        return sequence;
+    }
+
+    private static int compactionThreshold(int records) {
+        return Math.max(MIN_COMPACTION_RECORDS, records * 2);
+    }
+}
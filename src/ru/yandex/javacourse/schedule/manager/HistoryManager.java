@@ -13,6 +13,14 @@ import ru.yandex.javacourse.schedule.tasks.Task;
 public interface HistoryManager {
 	List<Task> getHistory();
 
+	/**
+	 * Returns an immutable snapshot of the history. Implementations may share one snapshot between readers
+	 * until the history changes.
+	 */
+	default List<Task> getHistorySnapshot() {
+		return List.copyOf(getHistory());
+	}
+
 	void addTask(Task task);
 
 	void remove(int id);
@@ -0,0 +1,29 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Task;
+
+/**
+ * Outcome of importing one task of a batch. The id is set only for accepted tasks.
+ */
+public record ImportResult(Task task, Integer id, Outcome outcome) {
+    public enum Outcome {
+        ACCEPTED,
+        /**
+         * The task overlaps with a scheduled task or with an earlier task of the batch.
+         */
+        OVERLAP,
+        /**
+         * The subtask refers to an epic that is neither stored nor accepted in the batch.
+         */
+        MISSING_EPIC,
+        /**
+         * The task keeps its id, or is an epic subtasks of the batch refer to by its id, but the id
+         * is already taken.
+         */
+        DUPLICATE_ID
+    }
+
+    public boolean isAccepted() {
+        return outcome == Outcome.ACCEPTED;
+    }
+}
@@ -1,25 +1,78 @@
 package ru.yandex.javacourse.schedule.manager;
 
 import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.util.IntIntHashMap;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
 /**
  * In memory history manager.
+ * <p>
+ * The history is a doubly linked list kept in parallel arrays: a slot holds the task, and the previous and
+ * next slots are ints, so no node is allocated per view. Ids map to slots through a primitive map and freed
+ * slots are reused through a free list chained over the next links. Viewing a task again relinks its slot.
+ * <p>
+ * The history is unbounded by default. A {@link #builder()} may limit it to a capacity, the least recently
+ * viewed task is evicted from the head of the list once it is exceeded, and may expire views after a while.
+ * Views are ordered by time as well, so expired ones are always dropped from the head.
  *
  * @author Vladimir Ivanov (ivanov.vladimir.l@gmail.com)
  */
 public class InMemoryHistoryManager implements HistoryManager {
-    private final HashMap<Integer, Node> taskIdToNode = new HashMap<>();
-    private Node head;
-    private Node tail;
+    private static final int NIL = -1;
+    private static final int INITIAL_SLOTS = 16;
+
+    private final int capacity;
+    private final Duration expireAfterView;
+    private final Clock clock;
+    private IntIntHashMap slotById;
+    private Task[] slotTasks;
+    private int[] prev;
+    private int[] next;
+    private long[] viewedAt;
+    private int head;
+    private int tail;
+    private int size;
+    // slots from this one on were never used, freed slots below it are chained from freeSlot
+    private int usedSlots;
+    private int freeSlot;
+    // shared between readers until the next change of the history
+    private List<Task> snapshot = List.of();
+
+    public InMemoryHistoryManager() {
+        this(builder());
+    }
+
+    private InMemoryHistoryManager(Builder builder) {
+        this.capacity = builder.capacity;
+        this.expireAfterView = builder.expireAfterView;
+        this.clock = builder.clock;
+        reset();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
 
     @Override
     public List<Task> getHistory() {
-        return new ArrayList<>(getTasks());
+        expire();
+        return getTasks();
+    }
+
+    @Override
+    public List<Task> getHistorySnapshot() {
+        expire();
+        if (snapshot == null) {
+            snapshot = Collections.unmodifiableList(getTasks());
+        }
+        return snapshot;
     }
 
     @Override
@@ -27,27 +80,50 @@ public class InMemoryHistoryManager implements HistoryManager {
         if (task == null) {
             return;
         }
-        if (taskIdToNode.containsKey(task.getId())) {
-            Node alreadyInHistoryNode = taskIdToNode.get(task.getId());
-            removeNode(alreadyInHistoryNode);
+        long now = viewedAt == null ? 0 : clock.millis();
+        if (tail != NIL && slotTasks[tail] == task) {
+            // viewing the latest task again does not change the history
+            viewedAt(tail, now);
+            expire();
+            return;
+        }
+        int slot = slotById.get(task.getId());
+        if (slot != NIL) {
+            unlink(slot);
+        } else {
+            if (size == capacity) {
+                removeSlot(head);
+            }
+            slot = allocateSlot();
+            slotById.put(task.getId(), slot);
+            size++;
         }
-        linkLast(task);
+        slotTasks[slot] = task;
+        viewedAt(slot, now);
+        linkLast(slot);
+        snapshot = null;
+        expire();
+    }
+
+    public int getCapacity() {
+        return capacity;
     }
 
     @Override
     public void remove(int id) {
-        Node removingNode = taskIdToNode.remove(id);
-        if (removingNode != null) {
-            removeNode(removingNode);
+        if (slotById.containsKey(id)) {
+            removeSlot(slotById.get(id));
+            snapshot = null;
         }
     }
 
+    /**
+     * Drops the whole list at once instead of unlinking it entry by entry.
+     */
     @Override
     public void removeAll() {
-        taskIdToNode.clear();
-        while (head != null) {
-            removeNode(head);
-        }
+        reset();
+        snapshot = List.of();
     }
 
     @Override
@@ -55,56 +131,138 @@ public class InMemoryHistoryManager implements HistoryManager {
         ids.forEach(this::remove);
     }
 
-    private void linkLast(Task task) {
-        final Node oldLast = tail;
-        final Node newLast = new Node(task, oldLast, null);
-        tail = newLast;
-        if (oldLast == null) {
-            head = newLast;
-        } else {
-            oldLast.next = newLast;
+    /**
+     * Drops views older than the expiry period, they all sit at the head of the list.
+     */
+    private void expire() {
+        if (viewedAt == null || head == NIL) {
+            return;
+        }
+        long expiredBefore = clock.millis() - expireAfterView.toMillis();
+        while (head != NIL && viewedAt[head] <= expiredBefore) {
+            removeSlot(head);
+            snapshot = null;
         }
-        taskIdToNode.put(task.getId(), newLast);
     }
 
     private List<Task> getTasks() {
-        List<Task> tasks = new ArrayList<>();
-        Node current = head;
-        while (current != null) {
-            tasks.add(current.task);
-            current = current.next;
+        List<Task> tasks = new ArrayList<>(size);
+        for (int slot = head; slot != NIL; slot = next[slot]) {
+            tasks.add(slotTasks[slot]);
         }
         return tasks;
     }
 
-    private void removeNode(Node node) {
-        final Node prev = node.prev;
-        final Node next = node.next;
+    private void viewedAt(int slot, long time) {
+        if (viewedAt != null) {
+            viewedAt[slot] = time;
+        }
+    }
+
+    private void removeSlot(int slot) {
+        slotById.remove(slotTasks[slot].getId());
+        unlink(slot);
+        slotTasks[slot] = null;
+        next[slot] = freeSlot;
+        freeSlot = slot;
+        size--;
+    }
+
+    private int allocateSlot() {
+        if (freeSlot != NIL) {
+            int slot = freeSlot;
+            freeSlot = next[slot];
+            return slot;
+        }
+        if (usedSlots == slotTasks.length) {
+            int length = (int) Math.min(slotTasks.length * 2L, Math.max(capacity, INITIAL_SLOTS));
+            slotTasks = Arrays.copyOf(slotTasks, length);
+            prev = Arrays.copyOf(prev, length);
+            next = Arrays.copyOf(next, length);
+            if (viewedAt != null) {
+                viewedAt = Arrays.copyOf(viewedAt, length);
+            }
+        }
+        return usedSlots++;
+    }
 
-        if (prev == null) {
-            head = next;
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NIL;
+        if (tail == NIL) {
+            head = slot;
         } else {
-            prev.next = next;
-            node.prev = null;
+            next[tail] = slot;
         }
+        tail = slot;
+    }
 
-        if (next == null) {
-            tail = prev;
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before == NIL) {
+            head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NIL) {
+            tail = before;
         } else {
-            next.prev = prev;
-            node.next = null;
+            prev[after] = before;
         }
     }
 
-    public static class Node {
-        private Task task;
-        private Node prev;
-        private Node next;
+    private void reset() {
+        int length = Math.min(INITIAL_SLOTS, capacity);
+        slotById = new IntIntHashMap(length);
+        slotTasks = new Task[length];
+        prev = new int[length];
+        next = new int[length];
+        viewedAt = expireAfterView == null ? null : new long[length];
+        head = NIL;
+        tail = NIL;
+        size = 0;
+        usedSlots = 0;
+        freeSlot = NIL;
+    }
+
+    public static final class Builder {
+        private int capacity = Integer.MAX_VALUE;
+        private Duration expireAfterView;
+        private Clock clock = Clock.systemUTC();
+
+        private Builder() {
+        }
+
+        /**
+         * Limits the history to the given number of tasks, the least recently viewed one is evicted first.
+         */
+        public Builder capacity(int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("History capacity should be positive: " + capacity);
+            }
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * Drops tasks not viewed again within the given period.
+         */
+        public Builder expireAfterView(Duration expireAfterView) {
+            if (expireAfterView.isNegative() || expireAfterView.isZero()) {
+                throw new IllegalArgumentException("Expiry period should be positive: " + expireAfterView);
+            }
+            this.expireAfterView = expireAfterView;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
 
-        public Node(Task task, Node prev, Node next) {
-            this.task = task;
-            this.prev = prev;
-            this.next = next;
+        public InMemoryHistoryManager build() {
+            return new InMemoryHistoryManager(this);
         }
     }
 }
@@ -1,23 +1,42 @@
 package ru.yandex.javacourse.schedule.manager;
 
 import ru.yandex.javacourse.schedule.tasks.*;
+import ru.yandex.javacourse.schedule.util.IntObjectHashMap;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
-
-import static ru.yandex.javacourse.schedule.tasks.TaskStatus.IN_PROGRESS;
-import static ru.yandex.javacourse.schedule.tasks.TaskStatus.NEW;
-import static ru.yandex.javacourse.schedule.tasks.TaskType.*;
+import java.util.concurrent.Flow;
 
 public class InMemoryTaskManager implements TaskManager {
 
-	protected final Map<Integer, Task> tasks = new HashMap<>();
-	protected final Map<Integer, Epic> epics = new HashMap<>();
-	protected final Map<Integer, Subtask> subtasks = new HashMap<>();
-	protected final TreeSet<Task> prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
+	protected final IntObjectHashMap<Task> tasks = new IntObjectHashMap<>();
+	protected final IntObjectHashMap<Epic> epics = new IntObjectHashMap<>();
+	protected final IntObjectHashMap<Subtask> subtasks = new IntObjectHashMap<>();
+	protected final TreeSet<Task> prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime)
+			.thenComparingInt(Task::getId));
+	private final IntervalIndex schedule = new IntervalIndex();
+	private final StatusIndex<Task> tasksByStatus = new StatusIndex<>();
+	private final StatusIndex<Subtask> subtasksByStatus = new StatusIndex<>();
+	private final StatusIndex<Epic> epicsByStatus = new StatusIndex<>();
+	private final IntObjectHashMap<StatusIndex<Subtask>> epicSubtasksByStatus = new IntObjectHashMap<>();
+	private final TextIndex textIndex = new TextIndex();
+	private final TaskEventPublisher events = new TaskEventPublisher();
+	private Set<Epic> deferredEpics;
 	private int generatorId = 0;
-	private final HistoryManager historyManager = Managers.getDefaultHistory();
+	protected final HistoryManager historyManager;
+	private final AccessStatistics accessStatistics = new AccessStatistics();
+	private final Collection<Task> tasksView = Collections.unmodifiableCollection(tasks.values());
+	private final Collection<Subtask> subtasksView = Collections.unmodifiableCollection(subtasks.values());
+	private final Collection<Epic> epicsView = Collections.unmodifiableCollection(epics.values());
+
+	public InMemoryTaskManager() {
+		this(Managers.getDefaultHistory());
+	}
 
+	public InMemoryTaskManager(HistoryManager historyManager) {
+		this.historyManager = historyManager;
+	}
 
 	@Override
 	public List<Task> getTasks() {
@@ -34,6 +53,21 @@ public class InMemoryTaskManager implements TaskManager {
 		return new ArrayList<>(epics.values());
 	}
 
+	@Override
+	public Collection<Task> getTasksView() {
+		return tasksView;
+	}
+
+	@Override
+	public Collection<Subtask> getSubtasksView() {
+		return subtasksView;
+	}
+
+	@Override
+	public Collection<Epic> getEpicsView() {
+		return epicsView;
+	}
+
 	@Override
 	public List<Subtask> getEpicSubtasks(int epicId) {
 		ArrayList<Subtask> tasks = new ArrayList<>();
@@ -45,10 +79,60 @@ public class InMemoryTaskManager implements TaskManager {
 		return tasks;
 	}
 
+	/**
+	 * Found through status indexes every change keeps up to date, rather than by filtering every task.
+	 */
+	@Override
+	public List<Task> getTasks(TaskStatus status) {
+		return tasksByStatus.get(status);
+	}
+
+	@Override
+	public List<Subtask> getSubtasks(TaskStatus status) {
+		return subtasksByStatus.get(status);
+	}
+
+	@Override
+	public List<Epic> getEpics(TaskStatus status) {
+		return epicsByStatus.get(status);
+	}
+
+	@Override
+	public List<Subtask> getEpicSubtasks(int epicId, TaskStatus status) {
+		if (!epics.containsKey(epicId)) {
+			return null;
+		}
+		StatusIndex<Subtask> index = epicSubtasksByStatus.get(epicId);
+		return index == null ? new ArrayList<>() : index.get(status);
+	}
+
+	@Override
+	public List<Task> findTasks(TaskType type, TaskStatus status) {
+		return switch (type) {
+			case TASK -> getTasks(status);
+			case SUBTASK -> new ArrayList<>(getSubtasks(status));
+			case EPIC -> new ArrayList<>(getEpics(status));
+		};
+	}
+
+	@Override
+	public List<Integer> searchTasks(String query, int limit) {
+		return textIndex.search(query, limit);
+	}
+
+	/**
+	 * Subscribes to batches of change events, delivered asynchronously in the order of the changes.
+	 * Restoring stored tasks is not reported as creating them.
+	 */
+	public void subscribe(Flow.Subscriber<? super List<TaskEvent>> subscriber) {
+		events.subscribe(subscriber);
+	}
+
 	@Override
 	public Task getTask(int id) {
 		final Task task = tasks.get(id);
 		historyManager.addTask(task);
+		accessStatistics.recordView(task);
 		return task;
 	}
 
@@ -56,6 +140,7 @@ public class InMemoryTaskManager implements TaskManager {
 	public Subtask getSubtask(int id) {
 		final Subtask subtask = subtasks.get(id);
 		historyManager.addTask(subtask);
+		accessStatistics.recordView(subtask);
 		return subtask;
 	}
 
@@ -63,72 +148,334 @@ public class InMemoryTaskManager implements TaskManager {
 	public Epic getEpic(int id) {
 		final Epic epic = epics.get(id);
 		historyManager.addTask(epic);
+		accessStatistics.recordView(epic);
 		return epic;
 	}
 
 	@Override
 	public Integer addNewTask(Task task) {
-		if (isTaskNotInterceptsWithOther(task)) {
-			final int id = ++generatorId;
-			task.setId(id);
-			tasks.put(id, task);
-			addToPriorityTask(task);
-			return id;
+		if (!schedule.overlapsAny(task)) {
+			return insertTask(task);
 		}
 		return null;
 	}
 
+	private int insertTask(Task task) {
+		final int id = ++generatorId;
+		task.setId(id);
+		tasks.put(id, task);
+		tasksByStatus.put(task);
+		textIndex.put(task);
+		addToPriorityTask(task);
+		publish(TaskEvent.Kind.CREATED, task);
+		return id;
+	}
+
 	private void addToPriorityTask(Task task) {
 		if (task.getStartTime() != null) {
 			prioritizedTasks.add(task);
+			schedule.add(task);
+		}
+	}
+
+	private void removeFromPriorityTask(Task task) {
+		if (task == null) {
+			return;
+		}
+		final IntervalIndex.Interval indexed = schedule.remove(task);
+		if (indexed == null) {
+			return;
+		}
+		if (indexed.start().equals(task.getStartTime())) {
+			prioritizedTasks.remove(task);
+		} else {
+			// the stored task was changed in place, so its tree position no longer matches its start
+			prioritizedTasks.removeIf(scheduled -> scheduled == task);
 		}
 	}
 
 	@Override
 	public Integer addNewEpic(Epic epic) {
-		if (isTaskNotInterceptsWithOther(epic)) {
-			final int id = ++generatorId;
-			epic.setId(id);
-			epics.put(id, epic);
-			return id;
-		}
-		return null;
+		return insertEpic(epic);
+	}
+
+	private int insertEpic(Epic epic) {
+		final int id = ++generatorId;
+		epic.setId(id);
+		epics.put(id, epic);
+		epicsByStatus.put(epic);
+		textIndex.put(epic);
+		publish(TaskEvent.Kind.CREATED, epic);
+		return id;
 	}
 
 	@Override
 	public Integer addNewSubtask(Subtask subtask) {
-		if (isTaskNotInterceptsWithOther(subtask)) {
+		if (!schedule.overlapsAny(subtask)) {
 			final int epicId = subtask.getEpicId();
 			Epic epic = epics.get(epicId);
 			if (epic == null) {
 				return null;
 			}
-			final int id = ++generatorId;
-			subtask.setId(id);
-			subtasks.put(id, subtask);
-			addToPriorityTask(subtask);
-			epic.addSubtask(subtask);
-			updateEpicStatus(epicId);
-			return id;
+			return insertSubtask(epic, subtask);
 		}
 		return null;
 	}
 
+	private int insertSubtask(Epic epic, Subtask subtask) {
+		final int id = ++generatorId;
+		subtask.setId(id);
+		subtasks.put(id, subtask);
+		addToPriorityTask(subtask);
+		epic.addSubtask(subtask);
+		publish(TaskEvent.Kind.CREATED, subtask);
+		indexSubtask(epic, subtask);
+		return id;
+	}
+
+	@Override
+	public List<ImportResult> importTasks(List<? extends Task> batch) {
+		return importTasks(batch, false);
+	}
+
+	/**
+	 * Imports the batch either with fresh ids or keeping the ids the tasks carry.
+	 * Overlaps are found by {@link OverlapSweep} in one pass over the batch and the schedule,
+	 * then accepted epics are added before accepted tasks and subtasks.
+	 * Subtasks find batch epics by the ids they carry, so an epic carrying the id of a stored epic
+	 * or of an earlier batch epic is rejected even when the batch gets fresh ids.
+	 */
+	protected List<ImportResult> importTasks(Collection<? extends Task> batch, boolean keepIds) {
+		Map<Task, ImportResult.Outcome> rejected = new IdentityHashMap<>();
+		Set<Integer> batchEpicIds = new HashSet<>();
+		Set<Integer> batchIds = new HashSet<>();
+		List<Task> timed = new ArrayList<>();
+		for (Task task : batch) {
+			if (keepIds && (findTask(task.getId()) != null || !batchIds.add(task.getId()))) {
+				rejected.put(task, ImportResult.Outcome.DUPLICATE_ID);
+			} else if (task instanceof Epic
+					&& (epics.containsKey(task.getId()) || !batchEpicIds.add(task.getId()))) {
+				rejected.put(task, ImportResult.Outcome.DUPLICATE_ID);
+			}
+		}
+		for (Task task : batch) {
+			if (rejected.containsKey(task) || task instanceof Epic) {
+				continue;
+			}
+			if (task instanceof Subtask subtask && !batchEpicIds.contains(subtask.getEpicId())
+					&& !epics.containsKey(subtask.getEpicId())) {
+				rejected.put(task, ImportResult.Outcome.MISSING_EPIC);
+			} else {
+				timed.add(task);
+			}
+		}
+		OverlapSweep.findConflicts(timed, prioritizedTasks)
+				.forEach(task -> rejected.put(task, ImportResult.Outcome.OVERLAP));
+
+		List<Task> ordered = new ArrayList<>(batch);
+		ImportResult[] results = new ImportResult[ordered.size()];
+		Map<Integer, Integer> newEpicIds = new HashMap<>();
+		for (int i = 0; i < results.length; i++) {
+			Task task = ordered.get(i);
+			ImportResult.Outcome outcome = rejected.get(task);
+			if (outcome != null) {
+				results[i] = new ImportResult(task, null, outcome);
+			} else if (task instanceof Epic epic) {
+				final int id = importedId(epic, keepIds);
+				newEpicIds.put(epic.getId(), id);
+				epic.setId(id);
+				epics.put(id, epic);
+				epicsByStatus.put(epic);
+				textIndex.put(epic);
+				publish(TaskEvent.Kind.CREATED, epic);
+				results[i] = new ImportResult(epic, id, ImportResult.Outcome.ACCEPTED);
+			}
+		}
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] != null) {
+				continue;
+			}
+			Task task = ordered.get(i);
+			final int id = importedId(task, keepIds);
+			task.setId(id);
+			if (task instanceof Subtask subtask) {
+				final int epicId = newEpicIds.getOrDefault(subtask.getEpicId(), subtask.getEpicId());
+				subtask.setEpicId(epicId);
+				subtasks.put(id, subtask);
+				final Epic epic = epics.get(epicId);
+				epic.addSubtask(subtask);
+				publish(TaskEvent.Kind.CREATED, subtask);
+				indexSubtask(epic, subtask);
+			} else {
+				tasks.put(id, task);
+				tasksByStatus.put(task);
+				textIndex.put(task);
+				publish(TaskEvent.Kind.CREATED, task);
+			}
+			addToPriorityTask(task);
+			results[i] = new ImportResult(task, id, ImportResult.Outcome.ACCEPTED);
+		}
+		return Arrays.asList(results);
+	}
+
+	private int importedId(Task task, boolean keepIds) {
+		if (keepIds) {
+			reserveIds(task.getId());
+			return task.getId();
+		}
+		return ++generatorId;
+	}
+
+	protected int getLastId() {
+		return generatorId;
+	}
+
+	/**
+	 * Makes sure ids up to the given one are never generated again, even if their tasks were deleted.
+	 */
+	protected void reserveIds(int lastId) {
+		if (lastId > generatorId) {
+			generatorId = lastId;
+		}
+	}
+
+	/**
+	 * Makes the next generated id follow the given one even if higher ids are stored,
+	 * for staging managers handed a reserved range of ids.
+	 */
+	protected void generateIdsAfter(int lastId) {
+		generatorId = lastId;
+	}
+
+	protected Task findTask(int id) {
+		final Task task = tasks.get(id);
+		if (task != null) {
+			return task;
+		}
+		final Epic epic = epics.get(id);
+		return epic != null ? epic : subtasks.get(id);
+	}
+
+	/**
+	 * Puts a previously persisted task back into the manager keeping its id.
+	 * Overlap validation is skipped: the task was already accepted when it was stored.
+	 */
+	protected void restoreTask(Task task) {
+		restoreTasks(List.of(task));
+	}
+
+	/**
+	 * Restores tasks in bulk, epics should come before their subtasks.
+	 */
+	protected void restoreTasks(Collection<? extends Task> restored) {
+		for (Task task : restored) {
+			final int id = task.getId();
+			reserveIds(id);
+			if (task instanceof Epic epic) {
+				epics.put(id, epic);
+				epicsByStatus.put(epic);
+				textIndex.put(epic);
+			} else if (task instanceof Subtask subtask) {
+				final Epic epic = epics.get(subtask.getEpicId());
+				if (epic == null) {
+					continue;
+				}
+				subtasks.put(id, subtask);
+				addToPriorityTask(subtask);
+				epic.addSubtask(subtask);
+				indexSubtask(epic, subtask);
+			} else {
+				tasks.put(id, task);
+				tasksByStatus.put(task);
+				textIndex.put(task);
+				addToPriorityTask(task);
+			}
+		}
+	}
+
+	/**
+	 * Epics changed by several subtasks of the transaction are refiled and reported once, at the end.
+	 */
+	@Override
+	public List<Integer> commit(TaskTransaction transaction) {
+		transaction.validate(this::findTask, schedule);
+		List<Integer> addedIds = new ArrayList<>();
+		Map<Integer, Integer> idsByProvisional = new HashMap<>();
+		deferredEpics = new LinkedHashSet<>();
+		try {
+			for (TaskTransaction.Operation operation : transaction.operations()) {
+				final Task task = operation.task();
+				if (task instanceof Subtask subtask && subtask.getEpicId() < 0) {
+					subtask.setEpicId(idsByProvisional.get(subtask.getEpicId()));
+				}
+				switch (operation.kind()) {
+					case ADD -> {
+						final int id;
+						if (task instanceof Epic epic) {
+							id = insertEpic(epic);
+						} else if (task instanceof Subtask subtask) {
+							id = insertSubtask(epics.get(subtask.getEpicId()), subtask);
+						} else {
+							id = insertTask(task);
+						}
+						idsByProvisional.put(operation.id(), id);
+						addedIds.add(id);
+					}
+					case UPDATE -> {
+						if (task instanceof Epic epic) {
+							renameEpic(epics.get(epic.getId()), epic);
+						} else if (task instanceof Subtask subtask) {
+							replaceSubtask(subtasks.get(subtask.getId()), epics.get(subtask.getEpicId()), subtask);
+						} else {
+							replaceTask(tasks.get(task.getId()), task);
+						}
+					}
+					case DELETE -> {
+						switch (operation.type()) {
+							case TASK -> removeTask(operation.id());
+							case EPIC -> removeEpic(operation.id());
+							case SUBTASK -> removeSubtask(operation.id());
+						}
+					}
+				}
+			}
+		} finally {
+			Set<Epic> changedEpics = deferredEpics;
+			deferredEpics = null;
+			changedEpics.stream().filter(epic -> epics.get(epic.getId()) == epic).forEach(this::refileEpic);
+		}
+		return addedIds;
+	}
+
 	@Override
 	public void updateTask(Task task) {
 		final int id = task.getId();
 		final Task savedTask = tasks.get(id);
-		if (savedTask == null) {
+		if (savedTask == null || schedule.overlapsOthers(task)) {
 			return;
 		}
-		tasks.put(id, task);
+		replaceTask(savedTask, task);
+	}
+
+	private void replaceTask(Task savedTask, Task task) {
+		removeFromPriorityTask(savedTask);
+		tasks.put(task.getId(), task);
+		tasksByStatus.put(task);
+		textIndex.put(task);
+		addToPriorityTask(task);
+		publish(TaskEvent.Kind.UPDATED, task);
 	}
 
 	@Override
 	public void updateEpic(Epic epic) {
-		final Epic savedEpic = epics.get(epic.getId());
+		renameEpic(epics.get(epic.getId()), epic);
+	}
+
+	private void renameEpic(Epic savedEpic, Epic epic) {
 		savedEpic.setName(epic.getName());
 		savedEpic.setDescription(epic.getDescription());
+		textIndex.put(savedEpic);
+		publish(TaskEvent.Kind.UPDATED, savedEpic);
 	}
 
 	@Override
@@ -140,52 +487,91 @@ public class InMemoryTaskManager implements TaskManager {
 			return;
 		}
 		final Epic epic = epics.get(epicId);
-		if (epic == null) {
+		if (epic == null || schedule.overlapsOthers(subtask)) {
 			return;
 		}
+		replaceSubtask(savedSubtask, epic, subtask);
+	}
+
+	private void replaceSubtask(Subtask savedSubtask, Epic epic, Subtask subtask) {
+		final int id = subtask.getId();
+		removeFromPriorityTask(savedSubtask);
 		subtasks.put(id, subtask);
-		updateEpicStatus(epicId);
+		addToPriorityTask(subtask);
+		publish(TaskEvent.Kind.UPDATED, subtask);
+		final Epic previousEpic = epics.get(savedSubtask.getEpicId());
+		if (previousEpic != null && previousEpic != epic) {
+			previousEpic.removeSubtask(id);
+			unindexSubtask(previousEpic, id);
+		}
+		epic.addSubtask(subtask);
+		indexSubtask(epic, subtask);
 	}
 
 	@Override
 	public void deleteTask(int id) {
+		removeTask(id);
+	}
+
+	private void removeTask(int id) {
 		Task task = tasks.remove(id);
-		prioritizedTasks.remove(task);
+		tasksByStatus.remove(id);
+		textIndex.remove(id);
+		removeFromPriorityTask(task);
 		historyManager.remove(id);
+		if (task != null) {
+			publish(TaskEvent.Kind.DELETED, task);
+		}
 	}
 
 	@Override
 	public void deleteEpic(int id) {
+		removeEpic(id);
+	}
+
+	private void removeEpic(int id) {
 		final Epic epic = epics.remove(id);
+		epicsByStatus.remove(id);
+		textIndex.remove(id);
+		epicSubtasksByStatus.remove(id);
 		historyManager.remove(id);
 		for (Integer subtaskId : epic.getSubtaskIds()) {
 			Subtask subtask = subtasks.remove(subtaskId);
-			prioritizedTasks.remove(subtask);
+			subtasksByStatus.remove(subtaskId);
+			textIndex.remove(subtaskId);
+			removeFromPriorityTask(subtask);
 			historyManager.remove(subtaskId);
+			publish(TaskEvent.Kind.DELETED, subtask);
 		}
+		publish(TaskEvent.Kind.DELETED, epic);
 	}
 
 	@Override
 	public void deleteSubtask(int id) {
+		removeSubtask(id);
+	}
+
+	private void removeSubtask(int id) {
 		Subtask subtask = subtasks.remove(id);
-		prioritizedTasks.remove(subtask);
+		removeFromPriorityTask(subtask);
 		historyManager.remove(id);
 		if (subtask == null) {
 			return;
 		}
 		Epic epic = epics.get(subtask.getEpicId());
 		epic.removeSubtask(id);
-		updateEpicStatus(epic.getId());
+		publish(TaskEvent.Kind.DELETED, subtask);
+		unindexSubtask(epic, id);
 	}
 
 	@Override
 	public void deleteTasks() {
+		tasks.values().forEach(this::removeFromPriorityTask);
+		tasks.keySet().forEach(textIndex::remove);
 		tasks.clear();
+		tasksByStatus.clear();
 		historyManager.removeAll();
-		Set<Task> tasksToRemove = prioritizedTasks.stream()
-				.filter(task -> task.getType() == TASK)
-				.collect(Collectors.toSet());
-		prioritizedTasks.removeAll(tasksToRemove);
+		events.publish(TaskEvent.cleared(TaskType.TASK));
 	}
 
 	@Override
@@ -194,25 +580,76 @@ public class InMemoryTaskManager implements TaskManager {
 			Set<Integer> subtaskIds = new HashSet<>(epic.getSubtaskIds());
 			historyManager.removeAll(subtaskIds);
 			epic.cleanSubtaskIds();
-			updateEpicStatus(epic.getId());
 		}
+		subtasks.values().forEach(this::removeFromPriorityTask);
+		subtasks.keySet().forEach(textIndex::remove);
 		subtasks.clear();
-		Set<Task> subtasksToRemove = prioritizedTasks.stream()
-				.filter(task -> task.getType() == SUBTASK)
-				.collect(Collectors.toSet());
-		prioritizedTasks.removeAll(subtasksToRemove);
+		subtasksByStatus.clear();
+		epicSubtasksByStatus.clear();
+		events.publish(TaskEvent.cleared(TaskType.SUBTASK));
+		epics.values().forEach(this::refileEpic);
 	}
 
 	@Override
 	public void deleteEpics() {
 		historyManager.removeAll(epics.keySet());
 		historyManager.removeAll(subtasks.keySet());
+		subtasks.values().forEach(this::removeFromPriorityTask);
+		subtasks.keySet().forEach(textIndex::remove);
+		epics.keySet().forEach(textIndex::remove);
 		epics.clear();
 		subtasks.clear();
-		Set<Task> subtasksToRemove = prioritizedTasks.stream()
-				.filter(task -> task.getType() == SUBTASK)
-				.collect(Collectors.toSet());
-		prioritizedTasks.removeAll(subtasksToRemove);
+		epicsByStatus.clear();
+		subtasksByStatus.clear();
+		epicSubtasksByStatus.clear();
+		events.publish(TaskEvent.cleared(TaskType.SUBTASK));
+		events.publish(TaskEvent.cleared(TaskType.EPIC));
+	}
+
+	/**
+	 * Files the subtask under its status, also among the subtasks of its epic, and refiles the epic
+	 * whose status may have changed with it.
+	 */
+	private void indexSubtask(Epic epic, Subtask subtask) {
+		subtasksByStatus.put(subtask);
+		textIndex.put(subtask);
+		StatusIndex<Subtask> epicIndex = epicSubtasksByStatus.get(epic.getId());
+		if (epicIndex == null) {
+			epicIndex = new StatusIndex<>();
+			epicSubtasksByStatus.put(epic.getId(), epicIndex);
+		}
+		epicIndex.put(subtask);
+		refileEpic(epic);
+	}
+
+	private void unindexSubtask(Epic epic, int subtaskId) {
+		subtasksByStatus.remove(subtaskId);
+		textIndex.remove(subtaskId);
+		StatusIndex<Subtask> epicIndex = epicSubtasksByStatus.get(epic.getId());
+		if (epicIndex != null) {
+			epicIndex.remove(subtaskId);
+		}
+		refileEpic(epic);
+	}
+
+	private void refileEpic(Epic epic) {
+		if (deferredEpics != null) {
+			deferredEpics.add(epic);
+			return;
+		}
+		final TaskStatus previous = epicsByStatus.put(epic);
+		if (previous != null && previous != epic.getStatus() && events.hasSubscribers()) {
+			events.publish(TaskEvent.statusChanged(epic, previous));
+		}
+	}
+
+	/**
+	 * Skips creating the event, and copying the task for it, when nobody listens.
+	 */
+	private void publish(TaskEvent.Kind kind, Task task) {
+		if (events.hasSubscribers()) {
+			events.publish(TaskEvent.of(kind, task));
+		}
 	}
 
 	@Override
@@ -221,44 +658,59 @@ public class InMemoryTaskManager implements TaskManager {
 	}
 
 	@Override
-	public List<Task> getPrioritizedTasks() {
-		return new ArrayList<>(prioritizedTasks);
+	public List<Task> getHistorySnapshot() {
+		return historyManager.getHistorySnapshot();
 	}
 
-	private void updateEpicStatus(int epicId) {
-		Epic epic = epics.get(epicId);
-		List<Integer> subs = epic.getSubtaskIds();
-		if (subs.isEmpty()) {
-			epic.setStatus(NEW);
-			return;
-		}
-		TaskStatus status = null;
-		for (int id : subs) {
-			final Subtask subtask = subtasks.get(id);
-			if (status == null) {
-				status = subtask.getStatus();
-				continue;
-			}
+	@Override
+	public List<ViewCount> getMostViewed(int k) {
+		return accessStatistics.getMostViewed(k);
+	}
 
-			if (status == subtask.getStatus()
-					&& status != IN_PROGRESS) {
-				continue;
-			}
-			epic.setStatus(IN_PROGRESS);
-			return;
-		}
-		epic.setStatus(status);
+	@Override
+	public long getEstimatedViews(int id) {
+		return accessStatistics.getEstimatedViews(id);
 	}
 
-	private boolean isTaskNotInterceptsWithOther(Task checkedTask) {
-		if (checkedTask.getStartTime() != null && checkedTask.getDuration() != null) {
-			return prioritizedTasks.stream()
-					.filter(task -> task.getType() != TaskType.EPIC)
-					.noneMatch(task -> (checkedTask.getStartTime().isBefore(task.getEndTime()) && checkedTask.getStartTime().isAfter(task.getStartTime()))
-					|| (checkedTask.getEndTime().isBefore(task.getEndTime()) && checkedTask.getEndTime().isAfter(task.getStartTime()))
-					|| (checkedTask.getStartTime().isBefore(task.getStartTime()) && checkedTask.getEndTime().isAfter(task.getEndTime())));
-		} else {
-			return true;
+	@Override
+	public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit) {
+		return schedule.findFreeSlots(duration, from, to, limit);
+	}
+
+	@Override
+	public Integer scheduleAtEarliest(Task task, LocalDateTime notBefore) {
+		if (task instanceof Epic) {
+			throw new IllegalArgumentException("Epic times follow its subtasks");
 		}
+		if (task instanceof Subtask subtask && !epics.containsKey(subtask.getEpicId())) {
+			return null;
+		}
+		task.setStartTime(schedule.findFreeSlot(notBefore, durationOf(task)).start());
+		return task instanceof Subtask subtask ? addNewSubtask(subtask) : addNewTask(task);
+	}
+
+	static Duration durationOf(Task task) {
+		return task.getDuration() == null ? Duration.ZERO : task.getDuration();
+	}
+
+	@Override
+	public List<Task> getOverlappingTasks(LocalDateTime start, LocalDateTime end) {
+		return schedule.findOverlaps(start, end);
+	}
+
+	@Override
+	public List<Task> getPrioritizedTasks() {
+		return new ArrayList<>(prioritizedTasks);
+	}
+
+	@Override
+	public NavigableSet<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+		return Collections.unmodifiableNavigableSet(
+				prioritizedTasks.subSet(ScheduleCursor.at(from).probe(), false, ScheduleCursor.at(to).probe(), false));
+	}
+
+	@Override
+	public SchedulePage getPrioritizedTasks(ScheduleCursor cursor, int limit) {
+		return SchedulePage.of(prioritizedTasks, cursor, limit);
 	}
 }
@@ -0,0 +1,388 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Scheduled tasks as intervals {@code [startTime, endTime)} in a treap ordered by start time and id,
+ * every node also keeps the greatest end time of its subtree. Overlap queries skip subtrees that end
+ * before the queried interval or start after it, so they cost O(log n + k) for k reported tasks.
+ * Nodes also keep the longest gap between consecutive intervals of their subtree, so the earliest gap
+ * fitting a duration is found by skipping subtrees without one, in O(log n).
+ * A task without a duration occupies its start instant, two tasks starting at the same time always overlap.
+ * Intervals are captured on insertion and kept per task instance, so a task is removed from where it was
+ * indexed even if its times were changed in place since. Unsaved tasks may share an id, instances never do.
+ */
+final class IntervalIndex {
+    private static final int NO_ID = Integer.MIN_VALUE;
+
+    private final SplittableRandom random = new SplittableRandom(0x5eed);
+    private final IdentityHashMap<Task, Interval> intervals = new IdentityHashMap<>();
+    private Node root;
+    private int size;
+
+    /**
+     * Adds a task with a start time, tasks without one are not scheduled and are ignored.
+     */
+    void add(Task task) {
+        if (task.getStartTime() != null) {
+            add(task, new Interval(task.getStartTime(), endOf(task)));
+        }
+    }
+
+    /**
+     * Puts a task back at an interval {@link #remove} returned, whatever its times are now.
+     */
+    void add(Task task, Interval interval) {
+        root = insert(root, new Node(task, interval.start(), interval.end(), random.nextInt()));
+        intervals.put(task, interval);
+        size++;
+    }
+
+    /**
+     * Removes the task by the interval it was indexed with, returns that interval or null if the task
+     * was not indexed.
+     */
+    Interval remove(Task task) {
+        Interval interval = intervals.remove(task);
+        if (interval != null) {
+            root = delete(root, interval.start(), task.getId());
+        }
+        return interval;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Tells whether the task overlaps any indexed task.
+     */
+    boolean overlapsAny(Task task) {
+        return overlapsAny(task, NO_ID);
+    }
+
+    /**
+     * Tells whether the task overlaps an indexed task with another id, the one it is going to replace is skipped.
+     */
+    boolean overlapsOthers(Task task) {
+        return overlapsAny(task, task.getId());
+    }
+
+    private boolean overlapsAny(Task task, int ignoredId) {
+        if (task.getStartTime() == null) {
+            return false;
+        }
+        return findFirst(root, task.getStartTime(), endOf(task), ignoredId) != null;
+    }
+
+    /**
+     * Lists tasks overlapping {@code [start, end)} in start time order.
+     */
+    List<Task> findOverlaps(LocalDateTime start, LocalDateTime end) {
+        List<Task> overlaps = new ArrayList<>();
+        collect(root, start, end, overlaps);
+        return overlaps;
+    }
+
+    /**
+     * Finds the earliest free gap not before the given time where the duration fits without overlapping
+     * any indexed task. The returned slot starts where the task could start and ends at the start of
+     * the next indexed task, or has a null end when nothing is scheduled after it.
+     */
+    TimeSlot findFreeSlot(LocalDateTime notBefore, Duration duration) {
+        GapSearch search = new GapSearch(notBefore, duration);
+        findGap(root, search);
+        return new TimeSlot(search.free, search.gapEnd);
+    }
+
+    /**
+     * Lists up to {@code limit} free gaps within {@code [from, to)} where the duration fits, earliest first.
+     * Each gap is clipped to the window, every search costs O(log n).
+     */
+    List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Duration should not be negative: " + duration);
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Slot limit should be positive: " + limit);
+        }
+        List<TimeSlot> slots = new ArrayList<>(Math.min(limit, 256));
+        LocalDateTime next = from;
+        while (slots.size() < limit) {
+            TimeSlot gap = findFreeSlot(next, duration);
+            if (gap.start().plus(duration).isAfter(to) || !gap.start().isBefore(to)) {
+                break;
+            }
+            boolean last = gap.end() == null || !gap.end().isBefore(to);
+            slots.add(new TimeSlot(gap.start(), last ? to : gap.end()));
+            if (last) {
+                break;
+            }
+            next = gap.end();
+        }
+        return slots;
+    }
+
+    static LocalDateTime endOf(Task task) {
+        return task.getDuration() == null ? task.getStartTime() : task.getStartTime().plus(task.getDuration());
+    }
+
+    private static boolean overlaps(Node node, LocalDateTime start, LocalDateTime end) {
+        return node.start.equals(start) || (node.start.isBefore(end) && node.end.isAfter(start));
+    }
+
+    /**
+     * Whether the right subtree of the node, with starts not before the node's one, may hold overlaps.
+     */
+    private static boolean rightMayOverlap(Node node, LocalDateTime start, LocalDateTime end) {
+        return node.right != null && (node.start.isBefore(end) || !node.start.isAfter(start));
+    }
+
+    private static boolean mayOverlap(Node subtree, LocalDateTime start) {
+        return subtree != null && !subtree.maxEnd.isBefore(start);
+    }
+
+    private static Node findFirst(Node node, LocalDateTime start, LocalDateTime end, int ignoredId) {
+        while (node != null) {
+            if (overlaps(node, start, end) && node.task.getId() != ignoredId) {
+                return node;
+            }
+            if (mayOverlap(node.left, start)) {
+                Node found = findFirst(node.left, start, end, ignoredId);
+                if (found != null) {
+                    return found;
+                }
+            }
+            node = rightMayOverlap(node, start, end) && mayOverlap(node.right, start) ? node.right : null;
+        }
+        return null;
+    }
+
+    private static void collect(Node node, LocalDateTime start, LocalDateTime end, List<Task> overlaps) {
+        if (!mayOverlap(node, start)) {
+            return;
+        }
+        collect(node.left, start, end, overlaps);
+        if (overlaps(node, start, end)) {
+            overlaps.add(node.task);
+        }
+        if (rightMayOverlap(node, start, end)) {
+            collect(node.right, start, end, overlaps);
+        }
+    }
+
+    /**
+     * Walks the intervals in start order moving the search's free time past each of them, until a gap
+     * before the next start fits. Subtrees whose gaps are all too short are passed over as a whole.
+     */
+    private static boolean findGap(Node node, GapSearch search) {
+        if (node == null) {
+            return false;
+        }
+        if (search.fitsBefore(node.minStart)) {
+            search.gapEnd = node.minStart;
+            return true;
+        }
+        if (!search.mayFitWithin(node)) {
+            search.cover(node.maxBusyUntil);
+            return false;
+        }
+        if (findGap(node.left, search)) {
+            return true;
+        }
+        if (search.fitsBefore(node.start)) {
+            search.gapEnd = node.start;
+            return true;
+        }
+        search.cover(node.busyUntil);
+        return findGap(node.right, search);
+    }
+
+    /**
+     * An interval occupies at least its start instant, so a gap never starts at the start of a task.
+     */
+    private static LocalDateTime busyUntil(LocalDateTime start, LocalDateTime end) {
+        return end.isAfter(start) ? end : start.plusNanos(1);
+    }
+
+    private static LocalDateTime later(LocalDateTime first, LocalDateTime second) {
+        return second.isAfter(first) ? second : first;
+    }
+
+    private static Duration longer(Duration gap, LocalDateTime from, LocalDateTime to) {
+        if (!to.isAfter(from)) {
+            return gap;
+        }
+        Duration candidate = Duration.between(from, to);
+        return candidate.compareTo(gap) > 0 ? candidate : gap;
+    }
+
+    private static int compare(LocalDateTime start, int id, Node node) {
+        int byStart = start.compareTo(node.start);
+        return byStart != 0 ? byStart : Integer.compare(id, node.task.getId());
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.task.getId(), node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private Node delete(Node node, LocalDateTime start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(start, id, node);
+        if (comparison < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (comparison > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        return right;
+    }
+
+    record Interval(LocalDateTime start, LocalDateTime end) {
+    }
+
+    private static final class GapSearch {
+        private final Duration duration;
+        private LocalDateTime free;
+        private LocalDateTime gapEnd;
+
+        private GapSearch(LocalDateTime notBefore, Duration duration) {
+            this.free = notBefore;
+            this.duration = duration;
+        }
+
+        private boolean fitsBefore(LocalDateTime start) {
+            return free.isBefore(start) && !free.plus(duration).isAfter(start);
+        }
+
+        /**
+         * Whether a gap inside the subtree may fit: one of them is long enough and the subtree has
+         * a start late enough to close a gap fitting after the free time.
+         */
+        private boolean mayFitWithin(Node node) {
+            return node.maxGap.compareTo(duration) >= 0 && !node.maxGap.isZero()
+                    && free.isBefore(node.maxStart) && !free.plus(duration).isAfter(node.maxStart);
+        }
+
+        private void cover(LocalDateTime busyUntil) {
+            free = later(free, busyUntil);
+        }
+    }
+
+    private static final class Node {
+        private final Task task;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final LocalDateTime busyUntil;
+        private final int priority;
+        private LocalDateTime maxEnd;
+        private LocalDateTime minStart;
+        private LocalDateTime maxStart;
+        private LocalDateTime maxBusyUntil;
+        private Duration maxGap;
+        private Node left;
+        private Node right;
+
+        private Node(Task task, LocalDateTime start, LocalDateTime end, int priority) {
+            this.task = task;
+            this.start = start;
+            this.end = end;
+            this.busyUntil = IntervalIndex.busyUntil(start, end);
+            this.priority = priority;
+            update();
+        }
+
+        /**
+         * Recomputes the subtree bounds and its longest gap, a gap runs from the latest end of everything
+         * before a start to that start.
+         */
+        private void update() {
+            maxEnd = end;
+            if (left != null && left.maxEnd.isAfter(maxEnd)) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd.isAfter(maxEnd)) {
+                maxEnd = right.maxEnd;
+            }
+            Duration gap = Duration.ZERO;
+            LocalDateTime busy = busyUntil;
+            minStart = start;
+            if (left != null) {
+                minStart = left.minStart;
+                gap = longer(left.maxGap, left.maxBusyUntil, start);
+                busy = later(left.maxBusyUntil, busyUntil);
+            }
+            maxStart = start;
+            if (right != null) {
+                maxStart = right.maxStart;
+                gap = longer(gap, busy, right.minStart);
+                if (right.maxGap.compareTo(gap) > 0) {
+                    gap = right.maxGap;
+                }
+                busy = later(busy, right.maxBusyUntil);
+            }
+            maxBusyUntil = busy;
+            maxGap = gap;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.javacourse.schedule.manager;
+
+/**
+ * Kind of record kept in journaled storage: task mutations, history views and the start of a group
+ * of mutations that is applied as a whole.
+ */
+enum JournalOperation {
+    ADD,
+    UPDATE,
+    DELETE,
+    CLEAR,
+    VIEW,
+    BEGIN
+}
@@ -0,0 +1,32 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
+
+/**
+ * One record of journaled storage. Additions and updates carry the task,
+ * deletes carry its type and id, bulk deletes carry the type and views carry the id.
+ * A group start carries the number of records that follow it in the group.
+ */
+record JournalRecord(long sequence, JournalOperation operation, Task task, TaskType type, int id) {
+
+    static JournalRecord ofTask(long sequence, JournalOperation operation, Task task) {
+        return new JournalRecord(sequence, operation, task, task.getType(), task.getId());
+    }
+
+    static JournalRecord deleted(long sequence, TaskType type, int id) {
+        return new JournalRecord(sequence, JournalOperation.DELETE, null, type, id);
+    }
+
+    static JournalRecord cleared(long sequence, TaskType type) {
+        return new JournalRecord(sequence, JournalOperation.CLEAR, null, type, 0);
+    }
+
+    static JournalRecord viewed(long sequence, int id) {
+        return new JournalRecord(sequence, JournalOperation.VIEW, null, null, id);
+    }
+
+    static JournalRecord begun(long sequence, int count) {
+        return new JournalRecord(sequence, JournalOperation.BEGIN, null, null, count);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.javacourse.schedule.manager;
+
+/**
+ * Receives progress of loading a task file.
+ */
+public interface LoadListener {
+    LoadListener NONE = (loadedBytes, totalBytes) -> {
+    };
+
+    /**
+     * Called after each parsed chunk, possibly from several loader threads at once.
+     */
+    void onProgress(long loadedBytes, long totalBytes);
+
+    /**
+     * Called once on the loading thread when all tasks are in the manager.
+     */
+    default void onLoaded(LoadReport report) {
+    }
+}
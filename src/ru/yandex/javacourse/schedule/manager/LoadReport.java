@@ -0,0 +1,10 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import java.time.Duration;
+
+/**
+ * Summary of a finished load: how many tasks were loaded and rejected as overlapping or orphaned,
+ * how many bytes were read, how long it took and the highest heap usage observed while loading.
+ */
+public record LoadReport(int tasks, int rejected, long bytes, Duration elapsed, long peakHeapBytes) {
+}
@@ -1,5 +1,8 @@
 package ru.yandex.javacourse.schedule.manager;
 
+import java.nio.file.Path;
+import java.time.Duration;
+
 /**
  * Default managers.
  *
@@ -10,11 +13,64 @@ public class Managers {
 		return new InMemoryTaskManager();
 	}
 
+	public static TaskManager getDefault(HistoryManager historyManager) {
+		return new InMemoryTaskManager(historyManager);
+	}
+
 	public static FileBackedTaskManager getFileBackedTaskManager() {
 		return new FileBackedTaskManager();
 	}
 
+	public static FileBackedTaskManager getJournaledTaskManager(Path journalFile) {
+		return FileBackedTaskManager.createJournaled(journalFile);
+	}
+
+	public static FileBackedTaskManager getJournaledTaskManager(Path journalFile, Durability durability) {
+		return FileBackedTaskManager.createJournaled(journalFile, durability);
+	}
+
+	public static FileBackedTaskManager getJournaledTaskManager(Path journalFile, Durability durability,
+																StorageFormat format) {
+		return FileBackedTaskManager.createJournaled(journalFile, durability, format);
+	}
+
+	public static MappedFileBackedTaskManager getMappedTaskManager(Path storageFile) {
+		return MappedFileBackedTaskManager.open(storageFile);
+	}
+
+	public static ConcurrentTaskManager getConcurrentTaskManager() {
+		return new ConcurrentTaskManager();
+	}
+
+	/**
+	 * Returns a manager publishing immutable versions, with O(1) snapshots and undo.
+	 */
+	public static PersistentTaskManager getPersistentTaskManager() {
+		return new PersistentTaskManager();
+	}
+
+	/**
+	 * Returns a thread-safe history recording views into striped buffers drained in batches.
+	 */
+	public static HistoryManager getConcurrentHistory() {
+		return new ConcurrentHistoryManager();
+	}
+
 	public static HistoryManager getDefaultHistory() {
 		return new InMemoryHistoryManager();
 	}
+
+	/**
+	 * Returns a history keeping at most the given number of the most recently viewed tasks.
+	 */
+	public static HistoryManager getDefaultHistory(int capacity) {
+		return InMemoryHistoryManager.builder().capacity(capacity).build();
+	}
+
+	/**
+	 * Returns a bounded history that also forgets tasks not viewed within the expiry period.
+	 */
+	public static HistoryManager getDefaultHistory(int capacity, Duration expireAfterView) {
+		return InMemoryHistoryManager.builder().capacity(capacity).expireAfterView(expireAfterView).build();
+	}
 }
@@ -0,0 +1,166 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manager keeping tasks in a memory-mapped slot file, see {@link MappedTaskStore}.
+ * Every mutation touches only the slots of the tasks it changes, opening a store reads slots
+ * straight from the mapping instead of parsing text. Epic status and times are derived from subtasks on load,
+ * the history is not persisted.
+ */
+public class MappedFileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    private final MappedTaskStore store;
+
+    private MappedFileBackedTaskManager(MappedTaskStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Maps the given file, restoring the tasks it holds, or creates an empty store.
+     */
+    public static MappedFileBackedTaskManager open(Path file) {
+        MappedTaskStore store = MappedTaskStore.open(file);
+        MappedFileBackedTaskManager manager = new MappedFileBackedTaskManager(store);
+        store.forEach(manager::restoreTask);
+        manager.reserveIds(store.getLastId());
+        return manager;
+    }
+
+    @Override
+    public Integer addNewTask(Task task) {
+        Integer id = super.addNewTask(task);
+        if (id != null) {
+            store.put(task);
+        }
+        return id;
+    }
+
+    @Override
+    public Integer addNewEpic(Epic epic) {
+        Integer id = super.addNewEpic(epic);
+        if (id != null) {
+            store.put(epic);
+        }
+        return id;
+    }
+
+    @Override
+    public Integer addNewSubtask(Subtask subtask) {
+        Integer id = super.addNewSubtask(subtask);
+        if (id != null) {
+            store.put(subtask);
+        }
+        return id;
+    }
+
+    @Override
+    public List<ImportResult> importTasks(List<? extends Task> batch) {
+        List<ImportResult> results = super.importTasks(batch);
+        results.stream().filter(ImportResult::isAccepted).forEach(result -> store.put(result.task()));
+        return results;
+    }
+
+    @Override
+    public List<Integer> commit(TaskTransaction transaction) {
+        List<Integer> deletedSubtaskIds = new ArrayList<>();
+        for (TaskTransaction.Operation operation : transaction.operations()) {
+            if (operation.kind() == TaskTransaction.Operation.Kind.DELETE && operation.type() == TaskType.EPIC
+                    && epics.get(operation.id()) != null) {
+                deletedSubtaskIds.addAll(epics.get(operation.id()).getSubtaskIds());
+            }
+        }
+        List<Integer> ids = super.commit(transaction);
+        for (TaskTransaction.Operation operation : transaction.operations()) {
+            switch (operation.kind()) {
+                case ADD -> store.put(operation.task());
+                case UPDATE -> store.put(operation.task() instanceof Epic
+                        ? epics.get(operation.id())
+                        : operation.task());
+                case DELETE -> store.remove(operation.id());
+            }
+        }
+        deletedSubtaskIds.forEach(store::remove);
+        return ids;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        super.updateTask(task);
+        if (tasks.get(task.getId()) == task) {
+            store.put(task);
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        super.updateEpic(epic);
+        store.put(epics.get(epic.getId()));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        super.updateSubtask(subtask);
+        if (subtasks.get(subtask.getId()) == subtask) {
+            store.put(subtask);
+        }
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        super.deleteTask(id);
+        store.remove(id);
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        Epic epic = epics.get(id);
+        List<Integer> subtaskIds = epic == null ? List.of() : new ArrayList<>(epic.getSubtaskIds());
+        super.deleteEpic(id);
+        store.remove(id);
+        subtaskIds.forEach(store::remove);
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        super.deleteSubtask(id);
+        store.remove(id);
+    }
+
+    @Override
+    public void deleteTasks() {
+        List<Integer> ids = new ArrayList<>(tasks.keySet());
+        super.deleteTasks();
+        ids.forEach(store::remove);
+    }
+
+    @Override
+    public void deleteSubtasks() {
+        List<Integer> ids = new ArrayList<>(subtasks.keySet());
+        super.deleteSubtasks();
+        ids.forEach(store::remove);
+    }
+
+    @Override
+    public void deleteEpics() {
+        List<Integer> ids = new ArrayList<>(epics.keySet());
+        ids.addAll(subtasks.keySet());
+        super.deleteEpics();
+        ids.forEach(store::remove);
+    }
+
+    /**
+     * Forces every change made so far to disk.
+     */
+    public void sync() {
+        store.sync();
+    }
+
+    @Override
+    public void close() {
+        store.close();
+    }
+}
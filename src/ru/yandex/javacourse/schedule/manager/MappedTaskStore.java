@@ -0,0 +1,375 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.*;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Task storage in two memory-mapped files: fixed-size slots, one per task, and a heap with names and descriptions.
+ * An id to slot index lets an update overwrite only its own slot and a delete only mark it as a tombstone,
+ * tombstoned slots are reused by later additions. Strings that are replaced stay in the heap
+ * until they outweigh the live ones, then the heap is packed in place.
+ * <p>
+ * Writes land in the page cache and reach the disk on {@link #sync()} or when the OS flushes the pages,
+ * a slot being overwritten during a crash may be left half-written.
+ */
+class MappedTaskStore implements AutoCloseable {
+    static final int SLOT_SIZE = 64;
+    private static final long MAGIC = 0x2374_6173_6b73_6d6dL;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = SLOT_SIZE;
+    private static final int INITIAL_SLOTS = 1024;
+    private static final int INITIAL_HEAP_SIZE = 64 * 1024;
+
+    // header layout
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 8;
+    private static final int HEADER_SLOTS = 12;
+    private static final int HEADER_LAST_ID = 16;
+    private static final int HEADER_HEAP_USED = 20;
+
+    // slot layout
+    private static final int STATE = 0;
+    private static final int TYPE = 1;
+    private static final int STATUS = 2;
+    private static final int FLAGS = 3;
+    private static final int ID = 4;
+    private static final int EPIC_ID = 8;
+    private static final int NAME_REF = 12;
+    private static final int NAME_LENGTH = 16;
+    private static final int DESCRIPTION_REF = 20;
+    private static final int DESCRIPTION_LENGTH = 24;
+    private static final int DURATION_MINUTES = 28;
+    private static final int START_SECOND = 36;
+    private static final int START_NANO = 44;
+
+    private static final byte FREE = 0;
+    private static final byte LIVE = 1;
+    private static final byte TOMBSTONE = 2;
+    private static final int HAS_DURATION = 1;
+    private static final int HAS_START_TIME = 2;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final FileChannel slotChannel;
+    private final FileChannel heapChannel;
+    private MappedByteBuffer slots;
+    private MappedByteBuffer heap;
+    private final Map<Integer, Integer> index = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int usedSlots;
+    private int heapUsed;
+    private int heapGarbage;
+
+    private MappedTaskStore(FileChannel slotChannel, FileChannel heapChannel) throws IOException {
+        this.slotChannel = slotChannel;
+        this.heapChannel = heapChannel;
+        this.slots = map(slotChannel, Math.max(slotChannel.size(), HEADER_SIZE + (long) INITIAL_SLOTS * SLOT_SIZE));
+        this.heap = map(heapChannel, Math.max(heapChannel.size(), INITIAL_HEAP_SIZE));
+    }
+
+    static Path heapPathFor(Path slotFile) {
+        return slotFile.resolveSibling(slotFile.getFileName() + ".heap");
+    }
+
+    /**
+     * Maps the storage files, creating empty ones when they are missing.
+     */
+    static MappedTaskStore open(Path slotFile) {
+        try {
+            FileChannel slotChannel = FileChannel.open(slotFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            FileChannel heapChannel = FileChannel.open(heapPathFor(slotFile), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean created = slotChannel.size() == 0;
+            MappedTaskStore store = new MappedTaskStore(slotChannel, heapChannel);
+            if (created) {
+                store.slots.putLong(HEADER_MAGIC, MAGIC);
+                store.slots.putInt(HEADER_VERSION, VERSION);
+            } else {
+                store.readHeader();
+            }
+            return store;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Exception while mapping " + slotFile.getFileName());
+        }
+    }
+
+    /**
+     * Passes every stored task to the consumer, epics before the tasks that may refer to them.
+     */
+    void forEach(Consumer<Task> consumer) {
+        for (int slot = 0; slot < usedSlots; slot++) {
+            if (slots.get(offset(slot) + STATE) == LIVE && slots.get(offset(slot) + TYPE) == TaskType.EPIC.ordinal()) {
+                consumer.accept(read(slot));
+            }
+        }
+        for (int slot = 0; slot < usedSlots; slot++) {
+            if (slots.get(offset(slot) + STATE) == LIVE && slots.get(offset(slot) + TYPE) != TaskType.EPIC.ordinal()) {
+                consumer.accept(read(slot));
+            }
+        }
+    }
+
+    /**
+     * Writes the task into its slot, taking a free one for a task that is not stored yet.
+     */
+    void put(Task task) {
+        Integer slot = index.get(task.getId());
+        boolean added = slot == null;
+        if (added) {
+            slot = allocateSlot();
+        }
+        int offset = offset(slot);
+        putString(offset + NAME_REF, offset + NAME_LENGTH, task.getName(), added);
+        putString(offset + DESCRIPTION_REF, offset + DESCRIPTION_LENGTH, task.getDescription(), added);
+        slots.put(offset + TYPE, (byte) task.getType().ordinal());
+        slots.put(offset + STATUS, (byte) (task.getStatus() == null ? 0 : task.getStatus().ordinal() + 1));
+        slots.putInt(offset + ID, task.getId());
+        slots.putInt(offset + EPIC_ID, task instanceof Subtask subtask ? subtask.getEpicId() : 0);
+        int flags = 0;
+        if (!(task instanceof Epic)) {
+            Duration duration = task.getDuration();
+            LocalDateTime startTime = task.getStartTime();
+            if (duration != null) {
+                flags |= HAS_DURATION;
+                slots.putLong(offset + DURATION_MINUTES, duration.toMinutes());
+            }
+            if (startTime != null) {
+                flags |= HAS_START_TIME;
+                slots.putLong(offset + START_SECOND, startTime.toEpochSecond(ZoneOffset.UTC));
+                slots.putInt(offset + START_NANO, startTime.getNano());
+            }
+        }
+        slots.put(offset + FLAGS, (byte) flags);
+        // the state goes last, so a slot only becomes visible once it is filled in
+        slots.put(offset + STATE, LIVE);
+        if (added) {
+            index.put(task.getId(), slot);
+        }
+        if (task.getId() > getLastId()) {
+            slots.putInt(HEADER_LAST_ID, task.getId());
+        }
+        packHeapIfWasteful();
+    }
+
+    void remove(int id) {
+        Integer slot = index.remove(id);
+        if (slot == null) {
+            return;
+        }
+        int offset = offset(slot);
+        slots.put(offset + STATE, TOMBSTONE);
+        heapGarbage += Math.max(0, slots.getInt(offset + NAME_LENGTH))
+                + Math.max(0, slots.getInt(offset + DESCRIPTION_LENGTH));
+        freeSlots.push(slot);
+    }
+
+    int getLastId() {
+        return slots.getInt(HEADER_LAST_ID);
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    int getUsedSlots() {
+        return usedSlots;
+    }
+
+    int getHeapUsed() {
+        return heapUsed;
+    }
+
+    /**
+     * Forces the mapped pages to disk, the heap before the slots referring to it.
+     */
+    void sync() {
+        heap.force();
+        slots.force();
+    }
+
+    @Override
+    public void close() {
+        sync();
+        try {
+            slotChannel.close();
+            heapChannel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Exception while closing mapped storage");
+        }
+    }
+
+    private void readHeader() {
+        if (slots.getLong(HEADER_MAGIC) != MAGIC || slots.getInt(HEADER_VERSION) != VERSION) {
+            throw new ManagerSaveException("Unexpected mapped storage header");
+        }
+        usedSlots = slots.getInt(HEADER_SLOTS);
+        heapUsed = slots.getInt(HEADER_HEAP_USED);
+        int liveBytes = 0;
+        for (int slot = 0; slot < usedSlots; slot++) {
+            int offset = offset(slot);
+            switch (slots.get(offset + STATE)) {
+                case LIVE -> {
+                    index.put(slots.getInt(offset + ID), slot);
+                    liveBytes += Math.max(0, slots.getInt(offset + NAME_LENGTH))
+                            + Math.max(0, slots.getInt(offset + DESCRIPTION_LENGTH));
+                }
+                case TOMBSTONE, FREE -> freeSlots.push(slot);
+                default -> throw new ManagerSaveException("Corrupted slot " + slot);
+            }
+        }
+        heapGarbage = heapUsed - liveBytes;
+    }
+
+    private Task read(int slot) {
+        int offset = offset(slot);
+        TaskType type = TYPES[slots.get(offset + TYPE)];
+        int statusOrdinal = slots.get(offset + STATUS);
+        TaskStatus status = statusOrdinal == 0 ? null : STATUSES[statusOrdinal - 1];
+        int id = slots.getInt(offset + ID);
+        String name = getString(slots.getInt(offset + NAME_REF), slots.getInt(offset + NAME_LENGTH));
+        String description = getString(slots.getInt(offset + DESCRIPTION_REF),
+                slots.getInt(offset + DESCRIPTION_LENGTH));
+        int flags = slots.get(offset + FLAGS);
+        Duration duration = (flags & HAS_DURATION) != 0
+                ? Duration.ofMinutes(slots.getLong(offset + DURATION_MINUTES)) : null;
+        LocalDateTime startTime = (flags & HAS_START_TIME) != 0
+                ? LocalDateTime.ofEpochSecond(slots.getLong(offset + START_SECOND), slots.getInt(offset + START_NANO),
+                ZoneOffset.UTC) : null;
+        return switch (type) {
+            case EPIC -> new Epic(id, name, description, status);
+            case SUBTASK -> new Subtask(id, name, description, status, slots.getInt(offset + EPIC_ID), duration,
+                    startTime);
+            case TASK -> new Task(id, name, description, status, type, duration, startTime);
+        };
+    }
+
+    private int allocateSlot() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        int slot = usedSlots;
+        if (offset(slot) + SLOT_SIZE > slots.capacity()) {
+            slots = grow(slotChannel, slots, offset(slot) + SLOT_SIZE);
+        }
+        usedSlots++;
+        slots.putInt(HEADER_SLOTS, usedSlots);
+        return slot;
+    }
+
+    /**
+     * Stores the string in the heap and its reference in the slot. An unchanged string of a stored task keeps its bytes.
+     */
+    private void putString(int refOffset, int lengthOffset, String value, boolean added) {
+        byte[] bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        if (!added) {
+            int oldLength = slots.getInt(lengthOffset);
+            if (sameBytes(slots.getInt(refOffset), oldLength, bytes)) {
+                return;
+            }
+            heapGarbage += Math.max(0, oldLength);
+        }
+        if (bytes == null) {
+            slots.putInt(refOffset, 0);
+            slots.putInt(lengthOffset, -1);
+            return;
+        }
+        if (heapUsed + bytes.length > heap.capacity()) {
+            heap = grow(heapChannel, heap, (long) heapUsed + bytes.length);
+        }
+        heap.put(heapUsed, bytes);
+        slots.putInt(refOffset, heapUsed);
+        slots.putInt(lengthOffset, bytes.length);
+        heapUsed += bytes.length;
+        slots.putInt(HEADER_HEAP_USED, heapUsed);
+    }
+
+    private boolean sameBytes(int ref, int length, byte[] bytes) {
+        if (bytes == null || length < 0) {
+            return bytes == null && length < 0;
+        }
+        if (bytes.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (heap.get(ref + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String getString(int ref, int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        heap.get(ref, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Moves the strings of live slots to the start of the heap once most of the heap is garbage.
+     */
+    private void packHeapIfWasteful() {
+        if (heapGarbage < INITIAL_HEAP_SIZE || heapGarbage < heapUsed / 2) {
+            return;
+        }
+        byte[] packed = new byte[heapUsed - heapGarbage];
+        int position = 0;
+        for (int slot : index.values()) {
+            int offset = offset(slot);
+            position = pack(packed, position, offset + NAME_REF, offset + NAME_LENGTH);
+            position = pack(packed, position, offset + DESCRIPTION_REF, offset + DESCRIPTION_LENGTH);
+        }
+        heap.put(0, packed, 0, position);
+        heapUsed = position;
+        heapGarbage = 0;
+        slots.putInt(HEADER_HEAP_USED, heapUsed);
+    }
+
+    private int pack(byte[] packed, int position, int refOffset, int lengthOffset) {
+        int length = slots.getInt(lengthOffset);
+        if (length < 0) {
+            return position;
+        }
+        heap.get(slots.getInt(refOffset), packed, position, length);
+        slots.putInt(refOffset, position);
+        return position + length;
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static MappedByteBuffer grow(FileChannel channel, MappedByteBuffer buffer, long required) {
+        long size = Math.max((long) buffer.capacity() * 2, required);
+        if (size > Integer.MAX_VALUE) {
+            throw new ManagerSaveException("Mapped storage is full");
+        }
+        buffer.force();
+        try {
+            return map(channel, size);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Exception while growing mapped storage");
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+}
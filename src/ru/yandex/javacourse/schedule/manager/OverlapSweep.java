@@ -0,0 +1,83 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks a batch of tasks against a schedule with one sort of the batch and one pass over both.
+ * Tasks occupy {@code [startTime, endTime)}; a task without a duration occupies its start instant,
+ * and two tasks starting at the same time always overlap.
+ */
+final class OverlapSweep {
+    private static final Comparator<Task> BY_START = Comparator.comparing(Task::getStartTime);
+
+    private OverlapSweep() {
+    }
+
+    /**
+     * Returns the candidates that overlap with the schedule or with a candidate accepted before them.
+     * Earlier starting candidates win, the schedule has to be iterable in start time order.
+     */
+    static Set<Task> findConflicts(List<? extends Task> candidates, Iterable<? extends Task> schedule) {
+        List<Task> timed = new ArrayList<>(candidates.size());
+        for (Task candidate : candidates) {
+            if (candidate.getStartTime() != null) {
+                timed.add(candidate);
+            }
+        }
+        Set<Task> conflicts = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (timed.isEmpty()) {
+            return conflicts;
+        }
+        timed.sort(BY_START);
+        Iterator<? extends Task> scheduled = schedule.iterator();
+        Task nextScheduled = next(scheduled);
+        LocalDateTime maxEnd = null;
+        LocalDateTime lastStart = null;
+        for (Task candidate : timed) {
+            LocalDateTime start = candidate.getStartTime();
+            LocalDateTime end = endOf(candidate);
+            while (nextScheduled != null && nextScheduled.getStartTime().isBefore(start)) {
+                maxEnd = max(maxEnd, endOf(nextScheduled));
+                lastStart = nextScheduled.getStartTime();
+                nextScheduled = next(scheduled);
+            }
+            boolean overlapsEarlier = (maxEnd != null && maxEnd.isAfter(start)) || start.equals(lastStart);
+            boolean overlapsLater = nextScheduled != null
+                    && (nextScheduled.getStartTime().equals(start) || nextScheduled.getStartTime().isBefore(end));
+            if (overlapsEarlier || overlapsLater) {
+                conflicts.add(candidate);
+            } else {
+                maxEnd = max(maxEnd, end);
+                lastStart = start;
+            }
+        }
+        return conflicts;
+    }
+
+    private static Task next(Iterator<? extends Task> iterator) {
+        while (iterator.hasNext()) {
+            Task task = iterator.next();
+            if (task.getStartTime() != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private static LocalDateTime endOf(Task task) {
+        return task.getDuration() == null ? task.getStartTime() : task.getStartTime().plus(task.getDuration());
+    }
+
+    private static LocalDateTime max(LocalDateTime current, LocalDateTime candidate) {
+        return current == null || candidate.isAfter(current) ? candidate : current;
+    }
+}
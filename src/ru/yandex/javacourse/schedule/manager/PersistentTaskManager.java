@@ -0,0 +1,904 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.*;
+import ru.yandex.javacourse.schedule.util.IntObjectHashMap;
+import ru.yandex.javacourse.schedule.util.PersistentIntMap;
+import ru.yandex.javacourse.schedule.util.PersistentSortedSet;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Task manager keeping its state in immutable versions built from persistent collections: hash tries
+ * of tasks, epics and subtasks by id and a sorted set of scheduled tasks. A change builds the next version
+ * copying only the paths it touches and publishes it with one volatile write, so reads never lock and
+ * every read sees a whole version. Writers are serialized by one lock.
+ * <p>
+ * Versions share everything a change does not touch, so {@link #snapshot} costs O(1) and the versions
+ * replaced by recent changes are kept for {@link #undo} and {@link #redo} at the cost of their changed paths.
+ * An epic is never changed once published, a change publishes a copy of every epic whose subtasks it touches.
+ * <p>
+ * Stored intervals never overlap, so a task is checked against its two neighbours in start order only.
+ * Free slots are found by walking the schedule from the requested time, in O(log n + k) for k tasks passed.
+ * The text index is mutable and follows the latest searched version, catching up by the tasks changed since.
+ * Stored tasks should not be modified by callers, updates are done by passing a new instance.
+ */
+public class PersistentTaskManager implements TaskManager {
+    private static final int DEFAULT_UNDO_LIMIT = 100;
+    private static final Version EMPTY = new Version(PersistentIntMap.empty(), PersistentIntMap.empty(),
+            PersistentIntMap.empty(),
+            PersistentSortedSet.empty(Comparator.comparing(Task::getStartTime).thenComparingInt(Task::getId)));
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock textLock = new ReentrantLock();
+    private final TextIndex textIndex = new TextIndex();
+    private Version indexedVersion = EMPTY;
+    private final ConcurrentHistoryManager historyManager;
+    private final int undoLimit;
+    private final Deque<Version> undoVersions = new ArrayDeque<>();
+    private final Deque<Version> redoVersions = new ArrayDeque<>();
+    private volatile Version current = EMPTY;
+    private int generatorId;
+    private final Collection<Task> tasksView = liveValues(Version::tasks);
+    private final Collection<Subtask> subtasksView = liveValues(Version::subtasks);
+    private final Collection<Epic> epicsView = liveValues(Version::epics);
+    private final NavigableSet<Task> scheduleView = PersistentSortedSet.liveView(() -> current.schedule());
+
+    public PersistentTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public PersistentTaskManager(HistoryManager historyManager) {
+        this(historyManager, DEFAULT_UNDO_LIMIT);
+    }
+
+    /**
+     * Keeps up to {@code undoLimit} replaced versions for undo. Views are recorded through
+     * a {@link ConcurrentHistoryManager}, any other history manager is wrapped into one.
+     */
+    public PersistentTaskManager(HistoryManager historyManager, int undoLimit) {
+        if (undoLimit < 0) {
+            throw new IllegalArgumentException("Undo limit should not be negative: " + undoLimit);
+        }
+        this.historyManager = historyManager instanceof ConcurrentHistoryManager concurrent
+                ? concurrent
+                : new ConcurrentHistoryManager(historyManager);
+        this.undoLimit = undoLimit;
+    }
+
+    /**
+     * Returns a manager starting from the current version, nothing is copied. The snapshot and this manager
+     * change independently afterwards, the snapshot has an empty history and nothing to undo.
+     */
+    public PersistentTaskManager snapshot() {
+        writeLock.lock();
+        try {
+            PersistentTaskManager snapshot = new PersistentTaskManager(Managers.getDefaultHistory(), undoLimit);
+            snapshot.current = current;
+            snapshot.generatorId = generatorId;
+            return snapshot;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Goes back to the version before the last change, returns false if there is nothing to undo.
+     * Tasks the undone change added are removed from the history.
+     */
+    public boolean undo() {
+        return switchVersion(undoVersions, redoVersions);
+    }
+
+    /**
+     * Reapplies the last undone change, returns false if there is nothing to redo. Any other change
+     * discards the changes left to redo.
+     */
+    public boolean redo() {
+        return switchVersion(redoVersions, undoVersions);
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return new ArrayList<>(current.tasks().values());
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return new ArrayList<>(current.subtasks().values());
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return new ArrayList<>(current.epics().values());
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        return epicSubtasks(current, epicId);
+    }
+
+    /**
+     * Filters one version, indexes by status would have to be persistent too and copied on every change.
+     */
+    @Override
+    public List<Task> getTasks(TaskStatus status) {
+        return withStatus(current.tasks().values(), status);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(TaskStatus status) {
+        return withStatus(current.subtasks().values(), status);
+    }
+
+    @Override
+    public List<Epic> getEpics(TaskStatus status) {
+        return withStatus(current.epics().values(), status);
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId, TaskStatus status) {
+        List<Subtask> epicSubtasks = epicSubtasks(current, epicId);
+        return epicSubtasks == null ? null : withStatus(epicSubtasks, status);
+    }
+
+    @Override
+    public List<Task> findTasks(TaskType type, TaskStatus status) {
+        return switch (type) {
+            case TASK -> getTasks(status);
+            case SUBTASK -> new ArrayList<>(getSubtasks(status));
+            case EPIC -> new ArrayList<>(getEpics(status));
+        };
+    }
+
+    /**
+     * Searches the current version after indexing the tasks changed since the last search, the maps of the
+     * two versions share everything else. Searches lock each other out, other reads still do not lock.
+     */
+    @Override
+    public List<Integer> searchTasks(String query, int limit) {
+        Version version = current;
+        textLock.lock();
+        try {
+            if (indexedVersion != version) {
+                reindex(version.tasks(), indexedVersion.tasks());
+                reindex(version.epics(), indexedVersion.epics());
+                reindex(version.subtasks(), indexedVersion.subtasks());
+                indexedVersion = version;
+            }
+            return textIndex.search(query, limit);
+        } finally {
+            textLock.unlock();
+        }
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return viewed(Version::tasks, id);
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return viewed(Version::subtasks, id);
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return viewed(Version::epics, id);
+    }
+
+    @Override
+    public Integer addNewTask(Task task) {
+        return write(draft -> {
+            if (draft.overlaps(task, null)) {
+                return null;
+            }
+            task.setId(++generatorId);
+            draft.putTask(task);
+            return task.getId();
+        });
+    }
+
+    @Override
+    public Integer addNewEpic(Epic epic) {
+        return write(draft -> {
+            epic.setId(++generatorId);
+            draft.putEpic(epic);
+            return epic.getId();
+        });
+    }
+
+    @Override
+    public Integer addNewSubtask(Subtask subtask) {
+        return write(draft -> {
+            if (!draft.epics.containsKey(subtask.getEpicId()) || draft.overlaps(subtask, null)) {
+                return null;
+            }
+            subtask.setId(++generatorId);
+            draft.putSubtask(subtask);
+            return subtask.getId();
+        });
+    }
+
+    /**
+     * The whole batch is one change to undo.
+     */
+    @Override
+    public List<ImportResult> importTasks(List<? extends Task> batch) {
+        return write(draft -> draft.importTasks(batch));
+    }
+
+    /**
+     * The transaction is applied to a new version, which is simply not published when it is rejected.
+     * The whole transaction is one change to undo.
+     */
+    @Override
+    public List<Integer> commit(TaskTransaction transaction) {
+        return write(draft -> draft.commit(transaction));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        change(draft -> {
+            Task saved = draft.tasks.get(task.getId());
+            if (saved != null && !draft.overlaps(task, saved)) {
+                draft.replaceTask(saved, task);
+            }
+        });
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        change(draft -> {
+            if (draft.epics.containsKey(epic.getId())) {
+                Epic copy = draft.editable(epic.getId());
+                copy.setName(epic.getName());
+                copy.setDescription(epic.getDescription());
+            }
+        });
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        change(draft -> {
+            Subtask saved = draft.subtasks.get(subtask.getId());
+            if (saved != null && draft.epics.containsKey(subtask.getEpicId()) && !draft.overlaps(subtask, saved)) {
+                draft.replaceSubtask(saved, subtask);
+            }
+        });
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        change(draft -> draft.removeTask(id));
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        change(draft -> draft.removeEpic(id));
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        change(draft -> draft.removeSubtask(id));
+    }
+
+    @Override
+    public void deleteTasks() {
+        change(Draft::clearTasks);
+    }
+
+    @Override
+    public void deleteSubtasks() {
+        change(Draft::clearSubtasks);
+    }
+
+    @Override
+    public void deleteEpics() {
+        change(Draft::clearEpics);
+    }
+
+    /**
+     * The view reads the latest version on every call, an iterator walks the version it started on.
+     */
+    @Override
+    public Collection<Task> getTasksView() {
+        return tasksView;
+    }
+
+    @Override
+    public Collection<Subtask> getSubtasksView() {
+        return subtasksView;
+    }
+
+    @Override
+    public Collection<Epic> getEpicsView() {
+        return epicsView;
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getHistorySnapshot() {
+        return historyManager.getHistorySnapshot();
+    }
+
+    @Override
+    public List<ViewCount> getMostViewed(int k) {
+        return historyManager.getMostViewed(k);
+    }
+
+    @Override
+    public long getEstimatedViews(int id) {
+        return historyManager.getEstimatedViews(id);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return new ArrayList<>(current.schedule().view());
+    }
+
+    /**
+     * The view reads the latest version on every call, an iterator walks the version it started on.
+     */
+    @Override
+    public NavigableSet<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        return Collections.unmodifiableNavigableSet(scheduleView.subSet(probe(from), false, probe(to), false));
+    }
+
+    @Override
+    public SchedulePage getPrioritizedTasks(ScheduleCursor cursor, int limit) {
+        return SchedulePage.of(current.schedule().view(), cursor, limit);
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Duration should not be negative: " + duration);
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Slot limit should be positive: " + limit);
+        }
+        NavigableSet<Task> schedule = current.schedule().view();
+        List<TimeSlot> slots = new ArrayList<>(Math.min(limit, 256));
+        LocalDateTime next = from;
+        while (slots.size() < limit) {
+            TimeSlot gap = findFreeSlot(schedule, next, duration);
+            if (gap.start().plus(duration).isAfter(to) || !gap.start().isBefore(to)) {
+                break;
+            }
+            boolean last = gap.end() == null || !gap.end().isBefore(to);
+            slots.add(new TimeSlot(gap.start(), last ? to : gap.end()));
+            if (last) {
+                break;
+            }
+            next = gap.end();
+        }
+        return slots;
+    }
+
+    @Override
+    public Integer scheduleAtEarliest(Task task, LocalDateTime notBefore) {
+        if (task instanceof Epic) {
+            throw new IllegalArgumentException("Epic times follow its subtasks");
+        }
+        return write(draft -> {
+            if (task instanceof Subtask subtask && !draft.epics.containsKey(subtask.getEpicId())) {
+                return null;
+            }
+            TimeSlot slot = findFreeSlot(draft.schedule.view(), notBefore, InMemoryTaskManager.durationOf(task));
+            task.setStartTime(slot.start());
+            task.setId(++generatorId);
+            if (task instanceof Subtask subtask) {
+                draft.putSubtask(subtask);
+            } else {
+                draft.putTask(task);
+            }
+            return task.getId();
+        });
+    }
+
+    /**
+     * Only the task starting last before the interval can reach into it, stored intervals never overlap.
+     */
+    @Override
+    public List<Task> getOverlappingTasks(LocalDateTime start, LocalDateTime end) {
+        NavigableSet<Task> schedule = current.schedule().view();
+        List<Task> overlaps = new ArrayList<>();
+        Task before = schedule.lower(probe(start));
+        if (before != null && IntervalIndex.endOf(before).isAfter(start)) {
+            overlaps.add(before);
+        }
+        for (Task task : schedule.tailSet(probe(start), true)) {
+            if (!task.getStartTime().equals(start) && !task.getStartTime().isBefore(end)) {
+                break;
+            }
+            overlaps.add(task);
+        }
+        return overlaps;
+    }
+
+    /**
+     * Applies the change to a draft of the current version and publishes the result if anything changed.
+     */
+    private <R> R write(Function<Draft, R> change) {
+        writeLock.lock();
+        try {
+            Version before = current;
+            Draft draft = new Draft(before);
+            R result = change.apply(draft);
+            Version after = draft.toVersion();
+            if (after != null) {
+                redoVersions.clear();
+                keep(undoVersions, before);
+                publish(before, after);
+            }
+            return result;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void change(Consumer<Draft> change) {
+        write(draft -> {
+            change.accept(draft);
+            return null;
+        });
+    }
+
+    private boolean switchVersion(Deque<Version> from, Deque<Version> to) {
+        writeLock.lock();
+        try {
+            Version target = from.pollFirst();
+            if (target == null) {
+                return false;
+            }
+            Version before = current;
+            keep(to, before);
+            publish(before, target);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void keep(Deque<Version> versions, Version version) {
+        if (undoLimit == 0) {
+            return;
+        }
+        versions.push(version);
+        if (versions.size() > undoLimit) {
+            versions.removeLast();
+        }
+    }
+
+    /**
+     * Publishes the version and then forgets views of tasks it no longer has. The versions share
+     * whatever the change did not touch, so finding the removed ids costs O(changes) rather than O(size).
+     */
+    private void publish(Version before, Version after) {
+        current = after;
+        Set<Integer> removedIds = new HashSet<>();
+        before.tasks().forEachKeyNotIn(after.tasks(), removedIds::add);
+        before.epics().forEachKeyNotIn(after.epics(), removedIds::add);
+        before.subtasks().forEachKeyNotIn(after.subtasks(), removedIds::add);
+        if (!removedIds.isEmpty()) {
+            historyManager.removeAll(removedIds);
+        }
+    }
+
+    /**
+     * Records the view and takes it back if the task was removed meanwhile. Removed tasks are forgotten
+     * by the history after the version without them is published, so either that clears this view
+     * or this check sees the task gone.
+     */
+    private <T extends Task> T viewed(Function<Version, PersistentIntMap<T>> storage, int id) {
+        T task = storage.apply(current).get(id);
+        if (task == null) {
+            return null;
+        }
+        historyManager.addTask(task);
+        if (!storage.apply(current).containsKey(id)) {
+            historyManager.remove(id);
+        }
+        return task;
+    }
+
+    private <T extends Task> void reindex(PersistentIntMap<T> stored, PersistentIntMap<T> indexed) {
+        IntConsumer reindex = id -> {
+            T task = stored.get(id);
+            if (task == null) {
+                textIndex.remove(id);
+            } else {
+                textIndex.put(task);
+            }
+        };
+        stored.forEachDifference(indexed, reindex);
+    }
+
+    private <T extends Task> Collection<T> liveValues(Function<Version, PersistentIntMap<T>> storage) {
+        return Collections.unmodifiableCollection(new AbstractCollection<>() {
+            @Override
+            public Iterator<T> iterator() {
+                return storage.apply(current).values().iterator();
+            }
+
+            @Override
+            public int size() {
+                return storage.apply(current).size();
+            }
+        });
+    }
+
+    private static List<Subtask> epicSubtasks(Version version, int epicId) {
+        Epic epic = version.epics().get(epicId);
+        if (epic == null) {
+            return null;
+        }
+        List<Subtask> epicSubtasks = new ArrayList<>();
+        for (int subtaskId : epic.getSubtaskIds()) {
+            Subtask subtask = version.subtasks().get(subtaskId);
+            if (subtask != null) {
+                epicSubtasks.add(subtask);
+            }
+        }
+        return epicSubtasks;
+    }
+
+    private static <T extends Task> List<T> withStatus(Collection<T> source, TaskStatus status) {
+        List<T> matching = new ArrayList<>();
+        for (T task : source) {
+            if (task.getStatus() == status) {
+                matching.add(task);
+            }
+        }
+        return matching;
+    }
+
+    private static Task probe(LocalDateTime time) {
+        return ScheduleCursor.at(time).probe();
+    }
+
+    /**
+     * Checks the task against the last task starting before it and the first one starting with or after it.
+     * The task itself should not be in the schedule.
+     */
+    private static boolean overlapsAny(NavigableSet<Task> schedule, Task task) {
+        LocalDateTime start = task.getStartTime();
+        if (start == null) {
+            return false;
+        }
+        Task before = schedule.lower(probe(start));
+        if (before != null && busyUntil(before).isAfter(start)) {
+            return true;
+        }
+        Task after = schedule.ceiling(probe(start));
+        return after != null && after.getStartTime().isBefore(busyUntil(task));
+    }
+
+    /**
+     * Finds the earliest gap not before the given time fitting the duration, like
+     * {@link IntervalIndex#findFreeSlot} but walking the tasks instead of skipping subtrees.
+     */
+    private static TimeSlot findFreeSlot(NavigableSet<Task> schedule, LocalDateTime notBefore, Duration duration) {
+        LocalDateTime free = notBefore;
+        Task before = schedule.lower(probe(notBefore));
+        if (before != null && busyUntil(before).isAfter(free)) {
+            free = busyUntil(before);
+        }
+        for (Task task : schedule.tailSet(probe(notBefore), true)) {
+            LocalDateTime start = task.getStartTime();
+            if (free.isBefore(start) && !free.plus(duration).isAfter(start)) {
+                return new TimeSlot(free, start);
+            }
+            if (busyUntil(task).isAfter(free)) {
+                free = busyUntil(task);
+            }
+        }
+        return new TimeSlot(free, null);
+    }
+
+    /**
+     * A task occupies at least its start instant.
+     */
+    private static LocalDateTime busyUntil(Task task) {
+        LocalDateTime end = IntervalIndex.endOf(task);
+        return end.isAfter(task.getStartTime()) ? end : task.getStartTime().plusNanos(1);
+    }
+
+    private record Version(PersistentIntMap<Task> tasks, PersistentIntMap<Epic> epics,
+                           PersistentIntMap<Subtask> subtasks, PersistentSortedSet<Task> schedule) {
+    }
+
+    /**
+     * Next version under construction, only the writer holding the lock sees it. Epics it copies are
+     * its own until it is published and are changed in place meanwhile.
+     */
+    private final class Draft {
+        private final Version base;
+        private final IntObjectHashMap<Epic> ownEpics = new IntObjectHashMap<>();
+        private PersistentIntMap<Task> tasks;
+        private PersistentIntMap<Epic> epics;
+        private PersistentIntMap<Subtask> subtasks;
+        private PersistentSortedSet<Task> schedule;
+
+        private Draft(Version base) {
+            this.base = base;
+            this.tasks = base.tasks();
+            this.epics = base.epics();
+            this.subtasks = base.subtasks();
+            this.schedule = base.schedule();
+        }
+
+        /**
+         * Returns the next version, or null if nothing changed.
+         */
+        private Version toVersion() {
+            if (tasks == base.tasks() && epics == base.epics() && subtasks == base.subtasks()
+                    && schedule == base.schedule()) {
+                return null;
+            }
+            return new Version(tasks, epics, subtasks, schedule);
+        }
+
+        private boolean overlaps(Task task, Task replaced) {
+            if (task.getStartTime() == null) {
+                return false;
+            }
+            PersistentSortedSet<Task> others = replaced == null || replaced.getStartTime() == null
+                    ? schedule
+                    : schedule.without(replaced);
+            return overlapsAny(others.view(), task);
+        }
+
+        private Task find(int id) {
+            Task task = tasks.get(id);
+            if (task != null) {
+                return task;
+            }
+            Epic epic = epics.get(id);
+            return epic != null ? epic : subtasks.get(id);
+        }
+
+        private void putTask(Task task) {
+            tasks = tasks.with(task.getId(), task);
+            addToSchedule(task);
+        }
+
+        private void putEpic(Epic epic) {
+            epics = epics.with(epic.getId(), epic);
+            ownEpics.put(epic.getId(), epic);
+        }
+
+        private void putSubtask(Subtask subtask) {
+            Epic epic = editable(subtask.getEpicId());
+            subtasks = subtasks.with(subtask.getId(), subtask);
+            addToSchedule(subtask);
+            epic.addSubtask(subtask);
+        }
+
+        private void replaceTask(Task saved, Task task) {
+            removeFromSchedule(saved);
+            putTask(task);
+        }
+
+        /**
+         * A subtask staying with its epic keeps its place among the epic's subtasks.
+         */
+        private void replaceSubtask(Subtask saved, Subtask subtask) {
+            if (saved.getEpicId() != subtask.getEpicId() && epics.containsKey(saved.getEpicId())) {
+                editable(saved.getEpicId()).removeSubtask(saved.getId());
+            }
+            removeFromSchedule(saved);
+            putSubtask(subtask);
+        }
+
+        private void removeTask(int id) {
+            Task task = tasks.get(id);
+            if (task != null) {
+                tasks = tasks.without(id);
+                removeFromSchedule(task);
+            }
+        }
+
+        private void removeSubtask(int id) {
+            Subtask subtask = subtasks.get(id);
+            if (subtask == null) {
+                return;
+            }
+            Epic epic = epics.containsKey(subtask.getEpicId()) ? editable(subtask.getEpicId()) : null;
+            subtasks = subtasks.without(id);
+            removeFromSchedule(subtask);
+            if (epic != null) {
+                epic.removeSubtask(id);
+            }
+        }
+
+        private void removeEpic(int id) {
+            Epic epic = epics.get(id);
+            if (epic == null) {
+                return;
+            }
+            for (int subtaskId : epic.getSubtaskIds()) {
+                Subtask subtask = subtasks.get(subtaskId);
+                if (subtask != null) {
+                    subtasks = subtasks.without(subtaskId);
+                    removeFromSchedule(subtask);
+                }
+            }
+            epics = epics.without(id);
+            ownEpics.remove(id);
+        }
+
+        private void clearTasks() {
+            for (Task task : tasks.values()) {
+                removeFromSchedule(task);
+            }
+            tasks = PersistentIntMap.empty();
+        }
+
+        private void clearSubtasks() {
+            for (Subtask subtask : subtasks.values()) {
+                removeFromSchedule(subtask);
+            }
+            subtasks = PersistentIntMap.empty();
+            for (Epic epic : epics.values()) {
+                if (!epic.getSubtaskIds().isEmpty()) {
+                    putEpic(new Epic(epic.getId(), epic.getName(), epic.getDescription()));
+                }
+            }
+        }
+
+        private void clearEpics() {
+            for (Subtask subtask : subtasks.values()) {
+                removeFromSchedule(subtask);
+            }
+            subtasks = PersistentIntMap.empty();
+            epics = PersistentIntMap.empty();
+            ownEpics.clear();
+        }
+
+        /**
+         * Returns the epic to change in place, copying the published one the first time.
+         */
+        private Epic editable(int epicId) {
+            Epic own = ownEpics.get(epicId);
+            if (own != null) {
+                return own;
+            }
+            Epic published = epics.get(epicId);
+            Epic copy = new Epic(epicId, published.getName(), published.getDescription());
+            for (int subtaskId : published.getSubtaskIds()) {
+                Subtask subtask = subtasks.get(subtaskId);
+                if (subtask != null) {
+                    copy.addSubtask(subtask);
+                }
+            }
+            putEpic(copy);
+            return copy;
+        }
+
+        private void addToSchedule(Task task) {
+            if (task.getStartTime() != null) {
+                schedule = schedule.with(task);
+            }
+        }
+
+        private void removeFromSchedule(Task task) {
+            if (task.getStartTime() != null) {
+                schedule = schedule.without(task);
+            }
+        }
+
+        /**
+         * Arriving tasks are checked against the schedule without the leaving ones and then among
+         * themselves, before anything is changed.
+         */
+        private List<Integer> commit(TaskTransaction transaction) {
+            TaskTransaction.Changes changes = transaction.checkReferences(this::find);
+            PersistentSortedSet<Task> staying = schedule;
+            for (Task task : changes.leaving()) {
+                if (task != null && !(task instanceof Epic) && task.getStartTime() != null) {
+                    staying = staying.without(task);
+                }
+            }
+            List<Task> arriving = new ArrayList<>();
+            NavigableSet<Task> stayingView = staying.view();
+            for (Task task : changes.arriving()) {
+                if (task instanceof Epic || task.getStartTime() == null) {
+                    continue;
+                }
+                if (overlapsAny(stayingView, task)) {
+                    throw new TransactionRejectedException("Task " + task.getName() + " overlaps the schedule");
+                }
+                arriving.add(task);
+            }
+            if (!OverlapSweep.findConflicts(arriving, List.of()).isEmpty()) {
+                throw new TransactionRejectedException("Tasks of the transaction overlap each other");
+            }
+
+            List<Integer> addedIds = new ArrayList<>();
+            Map<Integer, Integer> idsByProvisional = new HashMap<>();
+            for (TaskTransaction.Operation operation : transaction.operations()) {
+                Task task = operation.task();
+                if (task instanceof Subtask subtask && subtask.getEpicId() < 0) {
+                    subtask.setEpicId(idsByProvisional.get(subtask.getEpicId()));
+                }
+                switch (operation.kind()) {
+                    case ADD -> {
+                        task.setId(++generatorId);
+                        if (task instanceof Epic epic) {
+                            putEpic(epic);
+                        } else if (task instanceof Subtask subtask) {
+                            putSubtask(subtask);
+                        } else {
+                            putTask(task);
+                        }
+                        idsByProvisional.put(operation.id(), task.getId());
+                        addedIds.add(task.getId());
+                    }
+                    case UPDATE -> {
+                        if (task instanceof Epic epic) {
+                            Epic copy = editable(epic.getId());
+                            copy.setName(epic.getName());
+                            copy.setDescription(epic.getDescription());
+                        } else if (task instanceof Subtask subtask) {
+                            replaceSubtask(subtasks.get(subtask.getId()), subtask);
+                        } else {
+                            replaceTask(tasks.get(task.getId()), task);
+                        }
+                    }
+                    case DELETE -> {
+                        switch (operation.type()) {
+                            case TASK -> removeTask(operation.id());
+                            case EPIC -> removeEpic(operation.id());
+                            case SUBTASK -> removeSubtask(operation.id());
+                        }
+                    }
+                }
+            }
+            return addedIds;
+        }
+
+        /**
+         * Imports through a private {@link InMemoryTaskManager} to reuse its validation, like the concurrent
+         * manager does. The staging manager gets copies of the epics and the schedule, accepted tasks take ids
+         * from this manager.
+         */
+        private List<ImportResult> importTasks(List<? extends Task> batch) {
+            InMemoryTaskManager staging = new InMemoryTaskManager();
+            List<Task> stored = new ArrayList<>(epics.size() + schedule.size());
+            epics.values().forEach(epic -> stored.add(new Epic(epic.getId(), epic.getName(), epic.getDescription())));
+            stored.addAll(schedule.view());
+            staging.restoreTasks(stored);
+            staging.reserveIds(generatorId);
+            List<ImportResult> results = staging.importTasks(batch, false);
+            generatorId = Math.max(generatorId, staging.getLastId());
+            for (ImportResult result : results) {
+                if (result.isAccepted() && result.task() instanceof Epic epic) {
+                    // the staged epic is already linked to its subtasks from the batch
+                    putEpic(epic);
+                }
+            }
+            for (ImportResult result : results) {
+                if (!result.isAccepted() || result.task() instanceof Epic) {
+                    continue;
+                }
+                if (result.task() instanceof Subtask subtask) {
+                    putSubtask(subtask);
+                } else {
+                    putTask(result.task());
+                }
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position in the prioritized schedule, a page continues with tasks ordered after it by start time and id.
+ */
+public record ScheduleCursor(LocalDateTime startTime, int id) {
+    public ScheduleCursor {
+        if (startTime == null) {
+            throw new IllegalArgumentException("Cursor needs a start time");
+        }
+    }
+
+    /**
+     * Positions before every task starting at the given time or later.
+     */
+    public static ScheduleCursor at(LocalDateTime time) {
+        return new ScheduleCursor(time, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Positions right after the given scheduled task.
+     */
+    public static ScheduleCursor after(Task task) {
+        return new ScheduleCursor(task.getStartTime(), task.getId());
+    }
+
+    /**
+     * Task ordered exactly at the cursor by the schedule comparator, used as a search key.
+     */
+    Task probe() {
+        return new Task(id, null, null, null, TaskType.TASK, null, startTime);
+    }
+}
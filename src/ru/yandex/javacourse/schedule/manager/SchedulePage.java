@@ -0,0 +1,34 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+
+/**
+ * Page of the prioritized schedule. The next cursor continues right after the page, it is null on the last page.
+ */
+public record SchedulePage(List<Task> tasks, ScheduleCursor next) {
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    /**
+     * Walks the schedule from the cursor, the cost depends on the page size and not on the schedule size.
+     */
+    static SchedulePage of(NavigableSet<Task> prioritized, ScheduleCursor cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit should be positive: " + limit);
+        }
+        List<Task> tasks = new ArrayList<>(Math.min(limit, 256));
+        Iterator<Task> iterator = prioritized.tailSet(cursor.probe(), false).iterator();
+        while (tasks.size() < limit && iterator.hasNext()) {
+            tasks.add(iterator.next());
+        }
+        ScheduleCursor next = iterator.hasNext() ? ScheduleCursor.after(tasks.getLast()) : null;
+        return new SchedulePage(Collections.unmodifiableList(tasks), next);
+    }
+}
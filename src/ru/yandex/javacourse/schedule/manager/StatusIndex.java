@@ -0,0 +1,58 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskStatus;
+import ru.yandex.javacourse.schedule.util.LinkedIntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tasks of one kind grouped by status, a group keeps the order its tasks entered it in.
+ * Listing a group costs time proportional to its size, adding or moving a task costs O(1).
+ * Statuses may change in place, so a task is looked up by id in every group rather than by its current status.
+ * A task without a status is in no group, as a scan comparing statuses would not find it either.
+ */
+final class StatusIndex<T extends Task> {
+    private final EnumMap<TaskStatus, LinkedIntObjectHashMap<T>> groups = new EnumMap<>(TaskStatus.class);
+
+    StatusIndex() {
+        for (TaskStatus status : TaskStatus.values()) {
+            groups.put(status, new LinkedIntObjectHashMap<>());
+        }
+    }
+
+    /**
+     * Files the task under its current status, a task already in that group keeps its position.
+     * Returns the status it was filed under before, or null if it was not indexed.
+     */
+    TaskStatus put(T task) {
+        TaskStatus status = task.getStatus();
+        TaskStatus previous = null;
+        for (Map.Entry<TaskStatus, LinkedIntObjectHashMap<T>> group : groups.entrySet()) {
+            if (group.getKey() != status && group.getValue().remove(task.getId()) != null) {
+                previous = group.getKey();
+            }
+        }
+        if (status != null && groups.get(status).put(task.getId(), task) != null) {
+            previous = status;
+        }
+        return previous;
+    }
+
+    void remove(int id) {
+        for (LinkedIntObjectHashMap<T> group : groups.values()) {
+            group.remove(id);
+        }
+    }
+
+    List<T> get(TaskStatus status) {
+        return new ArrayList<>(groups.get(status).values());
+    }
+
+    void clear() {
+        groups.values().forEach(LinkedIntObjectHashMap::clear);
+    }
+}
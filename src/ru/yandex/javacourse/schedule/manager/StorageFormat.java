@@ -0,0 +1,35 @@
+package ru.yandex.javacourse.schedule.manager;
+
+/**
+ * Record format of journaled storage. The format is written to the file header,
+ * so files are always read back with the codec they were written with.
+ */
+public enum StorageFormat {
+    /**
+     * Human-readable lines, the same columns as {@code tasks.csv}.
+     */
+    CSV(new CsvTaskRecordCodec()),
+    /**
+     * Compact length-prefixed records with varint ids and enum ordinals.
+     */
+    BINARY(new BinaryTaskRecordCodec());
+
+    private final TaskRecordCodec codec;
+
+    StorageFormat(TaskRecordCodec codec) {
+        this.codec = codec;
+    }
+
+    TaskRecordCodec codec() {
+        return codec;
+    }
+
+    static StorageFormat forCodecName(String name) {
+        for (StorageFormat format : values()) {
+            if (format.codec.name().equals(name)) {
+                return format;
+            }
+        }
+        throw new ManagerSaveException("Unknown storage format: " + name);
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Text line opening every journaled storage file: {@code #kind,codec,version[,attribute...]}.
+ * It is readable regardless of the codec used for the records after it.
+ */
+record StorageHeader(String kind, String codec, List<String> attributes) {
+    private static final String PREFIX = "#";
+    private static final String VERSION = "1";
+    private static final int MAX_LENGTH = 1024;
+
+    static StorageHeader of(String kind, StorageFormat format, Object... attributes) {
+        return new StorageHeader(kind, format.codec().name(),
+                Arrays.stream(attributes).map(String::valueOf).toList());
+    }
+
+    /**
+     * Reads the header line from the stream, leaving the stream positioned at the first record.
+     * Returns null when the stream does not start with a storage header.
+     */
+    static StorageHeader read(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int next;
+        while ((next = in.read()) != -1 && next != '\n') {
+            if (line.size() == MAX_LENGTH) {
+                return null;
+            }
+            line.write(next);
+        }
+        return parse(line.toString(StandardCharsets.UTF_8).strip());
+    }
+
+    static StorageHeader parse(String line) {
+        if (line == null || !line.startsWith(PREFIX)) {
+            return null;
+        }
+        String[] parts = line.substring(PREFIX.length()).split(",");
+        if (parts.length < 3 || !VERSION.equals(parts[2])) {
+            return null;
+        }
+        return new StorageHeader(parts[0], parts[1], List.of(parts).subList(3, parts.length));
+    }
+
+    StorageFormat format() {
+        return StorageFormat.forCodecName(codec);
+    }
+
+    String toLine() {
+        StringBuilder line = new StringBuilder(PREFIX).append(kind).append(',').append(codec).append(',').append(VERSION);
+        attributes.forEach(attribute -> line.append(',').append(attribute));
+        return line.toString();
+    }
+
+    byte[] toBytes() {
+        return (toLine() + '\n').getBytes(StandardCharsets.UTF_8);
+    }
+}
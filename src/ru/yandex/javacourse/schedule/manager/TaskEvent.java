@@ -0,0 +1,40 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Epic;
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskStatus;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
+
+/**
+ * Change of the tasks stored by a manager. The id and the task are null only for {@link Kind#CLEARED},
+ * which tells that every task of the type was deleted at once. The task is a copy taken at the change,
+ * events are delivered later on other threads while the stored task may keep changing.
+ * The previous status is set only for {@link Kind#EPIC_STATUS_CHANGED}.
+ */
+public record TaskEvent(Kind kind, TaskType taskType, Integer taskId, Task task, TaskStatus previousStatus) {
+    public enum Kind {
+        CREATED,
+        UPDATED,
+        /**
+         * The task was deleted, the event carries the removed task.
+         */
+        DELETED,
+        /**
+         * The derived status of the epic changed with its subtasks.
+         */
+        EPIC_STATUS_CHANGED,
+        CLEARED
+    }
+
+    static TaskEvent of(Kind kind, Task task) {
+        return new TaskEvent(kind, task.getType(), task.getId(), task.copy(), null);
+    }
+
+    static TaskEvent statusChanged(Epic epic, TaskStatus previousStatus) {
+        return new TaskEvent(Kind.EPIC_STATUS_CHANGED, epic.getType(), epic.getId(), epic.copy(), previousStatus);
+    }
+
+    static TaskEvent cleared(TaskType taskType) {
+        return new TaskEvent(Kind.CLEARED, taskType, null, null, null);
+    }
+}
@@ -0,0 +1,142 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publishes task events in batches. A publishing thread only appends the event to a pending batch and,
+ * if none is pending yet, schedules a flush on the executor; the flush hands everything gathered meanwhile
+ * to a {@link SubmissionPublisher} as one batch. Subscribers get batches in publishing order through
+ * {@link Flow} and request them at their own pace.
+ * <p>
+ * Buffers are bounded: a subscriber falling behind fills its buffer of batches, which stalls the flush,
+ * and once the pending batch is full too publishers wait for room. Without subscribers events are dropped.
+ */
+public class TaskEventPublisher implements Flow.Publisher<List<TaskEvent>>, AutoCloseable {
+    private static final int DEFAULT_MAX_PENDING = 4096;
+
+    private final SubmissionPublisher<List<TaskEvent>> publisher;
+    private final Executor executor;
+    private final int maxPending;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private List<TaskEvent> pending = new ArrayList<>();
+    private boolean flushScheduled;
+    private boolean closed;
+
+    public TaskEventPublisher() {
+        this(defaultExecutor(), Flow.defaultBufferSize(), DEFAULT_MAX_PENDING);
+    }
+
+    /**
+     * @param executor          runs flushes and deliveries, it should be able to run several tasks at once
+     * @param maxBufferCapacity batches buffered for each subscriber
+     * @param maxPending        events gathered before publishers have to wait for a flush
+     */
+    public TaskEventPublisher(Executor executor, int maxBufferCapacity, int maxPending) {
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("Pending limit should be positive: " + maxPending);
+        }
+        this.publisher = new SubmissionPublisher<>(executor, maxBufferCapacity);
+        this.executor = executor;
+        this.maxPending = maxPending;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<TaskEvent>> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    public boolean hasSubscribers() {
+        return publisher.hasSubscribers();
+    }
+
+    public void publish(TaskEvent event) {
+        if (!publisher.hasSubscribers()) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            while (pending.size() >= maxPending) {
+                notFull.awaitUninterruptibly();
+            }
+            pending.add(event);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                executor.execute(this::flush);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Delivers what is pending and completes subscribers once they consumed it, later events are dropped.
+     */
+    @Override
+    public void close() {
+        boolean idle;
+        lock.lock();
+        try {
+            closed = true;
+            idle = !flushScheduled;
+            flushScheduled = true;
+        } finally {
+            lock.unlock();
+        }
+        if (idle) {
+            flush();
+        }
+    }
+
+    /**
+     * Only one flush runs at a time, so batches keep their order. The last flush after closing
+     * closes the publisher.
+     */
+    private void flush() {
+        while (true) {
+            List<TaskEvent> batch = null;
+            boolean closing;
+            lock.lock();
+            try {
+                closing = closed;
+                if (pending.isEmpty()) {
+                    flushScheduled = false;
+                } else {
+                    batch = Collections.unmodifiableList(pending);
+                    pending = new ArrayList<>();
+                    notFull.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (batch == null) {
+                if (closing) {
+                    publisher.close();
+                }
+                return;
+            }
+            publisher.submit(batch);
+        }
+    }
+
+    /**
+     * Same choice as {@link SubmissionPublisher} makes: the common pool unless it cannot run tasks in parallel.
+     */
+    private static Executor defaultExecutor() {
+        if (ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return ForkJoinPool.commonPool();
+        }
+        return task -> new Thread(task).start();
+    }
+}
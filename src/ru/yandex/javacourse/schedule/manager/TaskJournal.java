@@ -0,0 +1,125 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Append-only journal of task mutations.
+ * Every mutation is one sequence-numbered record, so the cost of a write
+ * depends only on the size of the change and not on the number of stored tasks.
+ */
+class TaskJournal implements AutoCloseable {
+    static final String KIND = "journal";
+
+    private final Path path;
+    private final StorageFormat format;
+    private final GroupCommitWriter writer;
+    private long lastSequence;
+
+    private TaskJournal(Path path, StorageFormat format, long lastSequence, Durability durability) {
+        this.path = path;
+        this.format = format;
+        this.lastSequence = lastSequence;
+        this.writer = new GroupCommitWriter(path, durability);
+    }
+
+    static TaskJournal create(Path path, StorageFormat format, Durability durability) {
+        try {
+            Files.write(path, header(format));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Exception while journal creation");
+        }
+        return new TaskJournal(path, format, 0, durability);
+    }
+
+    static TaskJournal resume(Path path, StorageFormat format, long lastSequence, Durability durability) {
+        return new TaskJournal(path, format, lastSequence, durability);
+    }
+
+    static byte[] header(StorageFormat format) {
+        return StorageHeader.of(KIND, format).toBytes();
+    }
+
+    CompletableFuture<Void> append(JournalOperation operation, Task task) {
+        return append(JournalRecord.ofTask(lastSequence + 1, operation, task));
+    }
+
+    /**
+     * Appends an addition record per task and waits, if it has to, only for the last one.
+     */
+    CompletableFuture<Void> appendAdded(List<? extends Task> tasks) {
+        List<JournalRecord> records = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            records.add(JournalRecord.ofTask(0, JournalOperation.ADD, task));
+        }
+        return appendAll(records);
+    }
+
+    /**
+     * Appends the records numbering them in order, their own sequences are ignored,
+     * and waits, if it has to, only for the last one. Several records are preceded by a group start
+     * with their count, so a replay drops the group unless all of them reached the file.
+     */
+    CompletableFuture<Void> appendAll(List<JournalRecord> records) {
+        CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+        if (records.size() > 1) {
+            written = writer.append(format.codec().encode(JournalRecord.begun(++lastSequence, records.size())));
+        }
+        for (JournalRecord record : records) {
+            written = writer.append(format.codec().encode(new JournalRecord(++lastSequence, record.operation(),
+                    record.task(), record.type(), record.id())));
+        }
+        writer.await(written);
+        return written;
+    }
+
+    CompletableFuture<Void> appendDeleted(TaskType type, int id) {
+        return append(JournalRecord.deleted(lastSequence + 1, type, id));
+    }
+
+    CompletableFuture<Void> appendCleared(TaskType type) {
+        return append(JournalRecord.cleared(lastSequence + 1, type));
+    }
+
+    private CompletableFuture<Void> append(JournalRecord record) {
+        CompletableFuture<Void> written = writer.append(format.codec().encode(record));
+        lastSequence = record.sequence();
+        writer.await(written);
+        return written;
+    }
+
+    /**
+     * Moves the records written so far to the archive, the snapshot being taken covers them.
+     */
+    CompletableFuture<Void> rotate() {
+        return writer.rotate(TaskSnapshot.archiveFor(path), header(format));
+    }
+
+    CompletableFuture<Void> sync() {
+        return writer.sync();
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    StorageFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+    }
+}
@@ -1,10 +1,16 @@
 package ru.yandex.javacourse.schedule.manager;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.NavigableSet;
 
 import ru.yandex.javacourse.schedule.tasks.Epic;
 import ru.yandex.javacourse.schedule.tasks.Subtask;
 import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskStatus;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
 
 /**
  * Task manager.
@@ -20,6 +26,31 @@ public interface TaskManager {
 
 	List<Subtask> getEpicSubtasks(int epicId);
 
+	/**
+	 * Returns tasks with the given status.
+	 */
+	List<Task> getTasks(TaskStatus status);
+
+	List<Subtask> getSubtasks(TaskStatus status);
+
+	List<Epic> getEpics(TaskStatus status);
+
+	/**
+	 * Returns subtasks of the epic with the given status, or null if there is no such epic.
+	 */
+	List<Subtask> getEpicSubtasks(int epicId, TaskStatus status);
+
+	/**
+	 * Returns tasks, subtasks or epics with the given status depending on the type.
+	 */
+	List<Task> findTasks(TaskType type, TaskStatus status);
+
+	/**
+	 * Returns up to {@code limit} ids of tasks, subtasks and epics whose name or description has a word
+	 * starting with every word of the query, the best match first. Whole words and name words rank higher.
+	 */
+	List<Integer> searchTasks(String query, int limit);
+
 	Task getTask(int id);
 
 	Subtask getSubtask(int id);
@@ -32,6 +63,22 @@ public interface TaskManager {
 
 	Integer addNewSubtask(Subtask subtask);
 
+	/**
+	 * Adds a batch of tasks, epics and subtasks, validating time overlaps once for the whole batch.
+	 * Subtasks may refer to epics of the same batch by the ids those epics carry in it, so those ids
+	 * have to differ from each other and from the ids of stored epics.
+	 * Results follow the order of the batch.
+	 */
+	List<ImportResult> importTasks(List<? extends Task> batch);
+
+	/**
+	 * Applies the staged changes together: the transaction is validated once as a whole and applied
+	 * entirely or not at all. Returns the ids given to added tasks in the order they were staged.
+	 *
+	 * @throws TransactionRejectedException if a change refers to a missing task or the result would overlap
+	 */
+	List<Integer> commit(TaskTransaction transaction);
+
 	void updateTask(Task task);
 
 	void updateEpic(Epic epic);
@@ -50,7 +97,61 @@ public interface TaskManager {
 
 	void deleteEpics();
 
+	/**
+	 * Returns a read-only live view of the tasks, it is not copied and reflects later changes.
+	 */
+	Collection<Task> getTasksView();
+
+	Collection<Subtask> getSubtasksView();
+
+	Collection<Epic> getEpicsView();
+
 	List<Task> getHistory();
 
+	/**
+	 * Returns an immutable snapshot of the history shared between readers until the history changes.
+	 */
+	List<Task> getHistorySnapshot();
+
+	/**
+	 * Returns up to {@code k} most viewed tasks, subtasks and epics with their estimated views, the most viewed first.
+	 * Views are counted in constant memory, so counts are estimates and only the top few dozen ids are tracked.
+	 */
+	List<ViewCount> getMostViewed(int k);
+
+	/**
+	 * Returns the estimated number of views of the id, never less than the real one.
+	 */
+	long getEstimatedViews(int id);
+
 	List<Task> getPrioritizedTasks();
+
+	/**
+	 * Returns a read-only view of scheduled tasks and subtasks starting within {@code [from, to)}.
+	 * The view is backed by the schedule, it is not copied and reflects later changes.
+	 */
+	NavigableSet<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to);
+
+	/**
+	 * Returns up to {@code limit} scheduled tasks and subtasks ordered after the cursor.
+	 * Use {@link ScheduleCursor#at} to start from an instant and the page's next cursor to continue.
+	 */
+	SchedulePage getPrioritizedTasks(ScheduleCursor cursor, int limit);
+
+	/**
+	 * Lists up to {@code limit} free gaps within {@code [from, to)} long enough for the duration, earliest first.
+	 * A gap runs from the end of scheduled work to the next scheduled start or the end of the window.
+	 */
+	List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime from, LocalDateTime to, int limit);
+
+	/**
+	 * Starts the task or subtask at the earliest time not before {@code notBefore} where it overlaps nothing
+	 * and adds it. Returns the new id, or null if the epic of a subtask is missing, the task keeps its start then.
+	 */
+	Integer scheduleAtEarliest(Task task, LocalDateTime notBefore);
+
+	/**
+	 * Lists scheduled tasks and subtasks overlapping {@code [start, end)} in start time order.
+	 */
+	List<Task> getOverlappingTasks(LocalDateTime start, LocalDateTime end);
 }
@@ -0,0 +1,56 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Turns journal records into bytes and back. Implementations keep no state between calls and are shared.
+ */
+interface TaskRecordCodec {
+
+    /**
+     * Name written to file headers.
+     */
+    String name();
+
+    /**
+     * Encodes the record together with its framing, ready to be appended to a file.
+     */
+    byte[] encode(JournalRecord record);
+
+    /**
+     * Reads records that follow the header in the stream.
+     */
+    RecordReader reader(InputStream in);
+
+    interface RecordReader {
+        /**
+         * Returns the next record or null at the end of the stream, including a record cut short by a crash.
+         */
+        JournalRecord next() throws IOException;
+    }
+
+    /**
+     * Reads a storage file of the given kind with the codec named in its header.
+     */
+    static StorageHeader readFile(Path path, String kind, Consumer<JournalRecord> consumer) {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            StorageHeader header = StorageHeader.read(in);
+            if (header == null || !kind.equals(header.kind())) {
+                throw new ManagerSaveException("Unexpected header in " + path.getFileName());
+            }
+            RecordReader reader = header.format().codec().reader(in);
+            JournalRecord record;
+            while ((record = reader.next()) != null) {
+                consumer.accept(record);
+            }
+            return header;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Exception while reading " + path.getFileName());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Point-in-time image of a journaled store: the journal and history log sequences it includes and the last id
+ * are kept in the header, followed by an addition record per task and a view record per history entry.
+ * Only records with greater sequences have to be replayed on top of it.
+ */
+record TaskSnapshot(long journalSequence, long historySequence, int lastId) {
+    static final String KIND = "snapshot";
+
+    static Path pathFor(Path journalFile) {
+        return journalFile.resolveSibling(journalFile.getFileName() + ".snapshot");
+    }
+
+    /**
+     * File holding log records that were rotated out but are not covered by a snapshot yet.
+     */
+    static Path archiveFor(Path logFile) {
+        return logFile.resolveSibling(logFile.getFileName() + ".old");
+    }
+
+    /**
+     * Passes the snapshot records to the consumer and returns the sequences they include,
+     * or null when there is no snapshot.
+     */
+    static TaskSnapshot read(Path path, Consumer<JournalRecord> consumer) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        List<String> attributes = TaskRecordCodec.readFile(path, KIND, consumer).attributes();
+        if (attributes.size() != 3) {
+            throw new ManagerSaveException("Unexpected snapshot header: " + attributes);
+        }
+        return new TaskSnapshot(Long.parseLong(attributes.get(0)), Long.parseLong(attributes.get(1)),
+                Integer.parseInt(attributes.get(2)));
+    }
+
+    /**
+     * Writes the encoded records next to the current snapshot and atomically replaces it once the new file is on disk.
+     */
+    void write(Path path, StorageFormat format, List<byte[]> records) {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+            out.write(StorageHeader.of(KIND, format, journalSequence, historySequence, lastId).toBytes());
+            for (byte[] record : records) {
+                out.write(record);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Exception while writing snapshot");
+        }
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Exception while writing snapshot");
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Exception while writing snapshot");
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Epic;
+import ru.yandex.javacourse.schedule.tasks.Subtask;
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Changes staged to be applied together by {@link TaskManager#commit}. Nothing is checked while staging,
+ * the commit validates the whole transaction once against the state it would leave behind and then applies
+ * every change or, throwing {@link TransactionRejectedException}, none.
+ * <p>
+ * Added tasks get provisional negative ids, subtasks of the transaction may refer to its epics by them.
+ * A stored task may be updated or deleted once per transaction, a deleted epic takes its subtasks along,
+ * so they cannot be changed by the same transaction and no subtask can be added to it.
+ */
+public class TaskTransaction {
+    private final List<Operation> operations = new ArrayList<>();
+    private int addedCount;
+
+    /**
+     * Stages a task, subtask or epic to be added, returns its provisional id.
+     */
+    public int add(Task task) {
+        int provisionalId = -(++addedCount);
+        operations.add(new Operation(Operation.Kind.ADD, task, task.getType(), provisionalId));
+        return provisionalId;
+    }
+
+    /**
+     * Stages replacing the stored task, subtask or epic having the same id. Only the name and description
+     * of an epic are updated.
+     */
+    public void update(Task task) {
+        operations.add(new Operation(Operation.Kind.UPDATE, task, task.getType(), task.getId()));
+    }
+
+    public void delete(TaskType type, int id) {
+        operations.add(new Operation(Operation.Kind.DELETE, null, type, id));
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    List<Operation> operations() {
+        return operations;
+    }
+
+    /**
+     * Checks that every updated or deleted task is stored, every subtask has an epic, and that the schedule
+     * left by the transaction has no overlaps. The schedule is changed while checking and restored before
+     * returning, the stored tasks are looked up by id.
+     */
+    void validate(IntFunction<Task> stored, IntervalIndex schedule) {
+        Changes changes = checkReferences(stored);
+        checkOverlaps(changes.leaving(), changes.arriving(), schedule);
+    }
+
+    /**
+     * Checks everything but overlaps, returns the stored tasks the transaction replaces or deletes
+     * and the tasks it adds or puts in their place.
+     */
+    Changes checkReferences(IntFunction<Task> stored) {
+        Set<Integer> touched = new HashSet<>();
+        Set<Integer> deletedEpics = new HashSet<>();
+        List<Task> leaving = new ArrayList<>();
+        List<Task> arriving = new ArrayList<>();
+        for (Operation operation : operations) {
+            if (operation.kind() == Operation.Kind.ADD) {
+                arriving.add(operation.task());
+                continue;
+            }
+            Task saved = stored.apply(operation.id());
+            if (saved == null || saved.getType() != operation.type()) {
+                throw new TransactionRejectedException("No " + operation.type() + " with id " + operation.id());
+            }
+            if (!touched.add(operation.id())) {
+                throw new TransactionRejectedException("Task " + operation.id() + " is changed twice");
+            }
+            leaving.add(saved);
+            if (operation.kind() == Operation.Kind.UPDATE && operation.type() != TaskType.EPIC) {
+                arriving.add(operation.task());
+            } else if (operation.kind() == Operation.Kind.DELETE && saved instanceof Epic epic) {
+                deletedEpics.add(epic.getId());
+                for (int subtaskId : epic.getSubtaskIds()) {
+                    leaving.add(stored.apply(subtaskId));
+                }
+            }
+        }
+        Set<Integer> stagedEpics = new HashSet<>();
+        for (Operation operation : operations) {
+            if (operation.task() instanceof Subtask subtask) {
+                checkEpic(subtask, stored, stagedEpics, deletedEpics);
+            } else if (operation.kind() == Operation.Kind.ADD && operation.task() instanceof Epic) {
+                stagedEpics.add(operation.id());
+            }
+        }
+        for (int epicId : deletedEpics) {
+            for (int subtaskId : ((Epic) stored.apply(epicId)).getSubtaskIds()) {
+                if (touched.contains(subtaskId)) {
+                    throw new TransactionRejectedException("Subtask " + subtaskId + " is deleted with its epic");
+                }
+            }
+        }
+        return new Changes(leaving, arriving);
+    }
+
+    /**
+     * An epic of the transaction has to be staged before the subtasks referring to it.
+     */
+    private static void checkEpic(Subtask subtask, IntFunction<Task> stored, Set<Integer> stagedEpics,
+                                  Set<Integer> deletedEpics) {
+        int epicId = subtask.getEpicId();
+        boolean exists = epicId < 0
+                ? stagedEpics.contains(epicId)
+                : stored.apply(epicId) instanceof Epic && !deletedEpics.contains(epicId);
+        if (!exists) {
+            throw new TransactionRejectedException("No epic with id " + epicId + " for subtask " + subtask.getName());
+        }
+    }
+
+    /**
+     * Takes the leaving tasks out of the schedule and puts the arriving ones in, so the result is checked
+     * whatever the order of the changes. Leaving tasks are put back where they were indexed, a stored task
+     * changed in place keeps its old slot until the commit removes it.
+     */
+    private static void checkOverlaps(List<Task> leaving, List<Task> arriving, IntervalIndex schedule) {
+        Map<Task, IntervalIndex.Interval> removed = new IdentityHashMap<>();
+        List<Task> scheduled = new ArrayList<>();
+        try {
+            for (Task task : leaving) {
+                IntervalIndex.Interval interval = task == null ? null : schedule.remove(task);
+                if (interval != null) {
+                    removed.put(task, interval);
+                }
+            }
+            for (Task task : arriving) {
+                if (!isScheduled(task)) {
+                    continue;
+                }
+                if (schedule.overlapsAny(task)) {
+                    throw new TransactionRejectedException("Task " + task.getName() + " overlaps the schedule");
+                }
+                schedule.add(task);
+                scheduled.add(task);
+            }
+        } finally {
+            scheduled.forEach(schedule::remove);
+            removed.forEach(schedule::add);
+        }
+    }
+
+    /**
+     * Epic times are derived from subtasks, only tasks and subtasks are in the schedule.
+     */
+    private static boolean isScheduled(Task task) {
+        return task != null && !(task instanceof Epic) && task.getStartTime() != null;
+    }
+
+    record Changes(List<Task> leaving, List<Task> arriving) {
+    }
+
+    record Operation(Kind kind, Task task, TaskType type, int id) {
+        enum Kind {
+            ADD,
+            UPDATE,
+            DELETE
+        }
+    }
+}
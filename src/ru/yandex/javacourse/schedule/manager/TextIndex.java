@@ -0,0 +1,189 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.util.IntIntHashMap;
+import ru.yandex.javacourse.schedule.util.IntObjectHashMap;
+
+import java.util.*;
+
+/**
+ * Inverted index over task names and descriptions. Text is split into lower-cased words of letters and
+ * digits, every word keeps the ids of the tasks containing it with a weight, name words weigh more.
+ * Words are sorted, so the words starting with a query word are one range of the index.
+ * <p>
+ * A search only touches the postings of the query words: tasks must contain every query word or a word
+ * starting with it, and are ranked by the summed weights scaled by how rare each word is.
+ */
+final class TextIndex {
+    private static final int NAME_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double PREFIX_FACTOR = 0.5;
+
+    private final TreeMap<String, IntIntHashMap> postings = new TreeMap<>();
+    private final IntObjectHashMap<String[]> wordsById = new IntObjectHashMap<>();
+
+    /**
+     * Indexes the task replacing what was indexed for its id before.
+     */
+    void put(Task task) {
+        remove(task.getId());
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(task.getName()).forEach(word -> weights.merge(word, NAME_WEIGHT, Integer::sum));
+        tokenize(task.getDescription()).forEach(word -> weights.merge(word, DESCRIPTION_WEIGHT, Integer::sum));
+        if (weights.isEmpty()) {
+            return;
+        }
+        weights.forEach((word, weight) -> postings.computeIfAbsent(word, w -> new IntIntHashMap())
+                .put(task.getId(), weight));
+        wordsById.put(task.getId(), weights.keySet().toArray(String[]::new));
+    }
+
+    void remove(int id) {
+        String[] words = wordsById.remove(id);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            IntIntHashMap posting = postings.get(word);
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                postings.remove(word);
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+        wordsById.clear();
+    }
+
+    /**
+     * Returns up to {@code limit} ids of tasks matching every word of the query, the best match first.
+     */
+    List<Integer> search(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Result limit should be positive: " + limit);
+        }
+        List<String> queryWords = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryWords.isEmpty() || queryWords.stream().anyMatch(word -> startingWith(word).isEmpty())) {
+            return List.of();
+        }
+        // the rarest query word decides the candidates, the other words only narrow them down
+        queryWords.sort(Comparator.comparingLong(word -> postingCount(startingWith(word))));
+        Scores scores = score(queryWords.getFirst(), null);
+        for (int i = 1; i < queryWords.size() && scores.size() > 0; i++) {
+            scores = scores.plus(score(queryWords.get(i), scores));
+        }
+        return scores.top(limit);
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private SortedMap<String, IntIntHashMap> startingWith(String prefix) {
+        return postings.subMap(prefix, prefix + Character.MAX_VALUE);
+    }
+
+    private static long postingCount(SortedMap<String, IntIntHashMap> words) {
+        long count = 0;
+        for (IntIntHashMap posting : words.values()) {
+            count += posting.size();
+        }
+        return count;
+    }
+
+    /**
+     * Scores tasks for one query word as their best scoring matching word, optionally only the candidates.
+     */
+    private Scores score(String queryWord, Scores candidates) {
+        Scores scores = new Scores();
+        startingWith(queryWord).forEach((word, posting) -> {
+            double rarity = Math.log(1 + (double) wordsById.size() / posting.size());
+            double factor = word.equals(queryWord) ? rarity : rarity * PREFIX_FACTOR;
+            posting.forEach((id, weight) -> {
+                if (candidates == null || candidates.contains(id)) {
+                    scores.offer(id, weight * factor);
+                }
+            });
+        });
+        return scores;
+    }
+
+    /**
+     * Scores by id kept in parallel arrays, an id keeps its best offered score.
+     */
+    private static final class Scores {
+        private final IntIntHashMap slotById = new IntIntHashMap();
+        private int[] ids = new int[16];
+        private double[] values = new double[16];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        boolean contains(int id) {
+            return slotById.containsKey(id);
+        }
+
+        void offer(int id, double score) {
+            int slot = slotById.get(id);
+            if (slot == IntIntHashMap.NO_VALUE) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                slotById.put(id, size);
+                ids[size] = id;
+                values[size++] = score;
+            } else if (score > values[slot]) {
+                values[slot] = score;
+            }
+        }
+
+        /**
+         * Keeps the ids scored by both, summing their scores.
+         */
+        Scores plus(Scores other) {
+            Scores sum = new Scores();
+            for (int slot = 0; slot < other.size; slot++) {
+                int id = other.ids[slot];
+                sum.offer(id, values[slotById.get(id)] + other.values[slot]);
+            }
+            return sum;
+        }
+
+        List<Integer> top(int limit) {
+            Comparator<Integer> worstFirst = Comparator.<Integer>comparingDouble(slot -> values[slot])
+                    .thenComparing(slot -> ids[slot], Comparator.reverseOrder());
+            PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(limit, size) + 1, worstFirst);
+            for (int slot = 0; slot < size; slot++) {
+                best.add(slot);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            Integer[] ranked = new Integer[best.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = ids[best.poll()];
+            }
+            return List.of(ranked);
+        }
+    }
+}
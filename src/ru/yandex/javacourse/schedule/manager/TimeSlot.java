@@ -0,0 +1,9 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import java.time.LocalDateTime;
+
+/**
+ * Free time {@code [start, end)} in the schedule, a null end means nothing is scheduled after the start.
+ */
+public record TimeSlot(LocalDateTime start, LocalDateTime end) {
+}
@@ -0,0 +1,10 @@
+package ru.yandex.javacourse.schedule.manager;
+
+/**
+ * Thrown when a transaction would break the manager's rules, none of its changes is applied then.
+ */
+public class TransactionRejectedException extends RuntimeException {
+    public TransactionRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yandex.javacourse.schedule.manager;
+
+/**
+ * Estimated number of views of a task, see {@link AccessStatistics}.
+ */
+public record ViewCount(int taskId, long views) {
+}
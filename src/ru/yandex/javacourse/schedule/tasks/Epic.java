@@ -1,13 +1,28 @@
 package ru.yandex.javacourse.schedule.tasks;
 
+import ru.yandex.javacourse.schedule.util.IntObjectHashMap;
+import ru.yandex.javacourse.schedule.util.LinkedIntObjectHashMap;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 
 import static ru.yandex.javacourse.schedule.tasks.TaskStatus.*;
 
+/**
+ * Epic grouping subtasks. The status and times are derived from subtasks through aggregates updated
+ * whenever a subtask is linked, relinked or unlinked, so reading them does not walk the subtasks:
+ * per-status counters, a running duration sum and ordered multisets of subtask starts and ends.
+ */
 public class Epic extends Task {
-	protected Map<Integer, Task> subtaskIdToSubtask = new LinkedHashMap<>();
+	protected LinkedIntObjectHashMap<Task> subtaskIdToSubtask = new LinkedIntObjectHashMap<>();
+	// what each subtask was counted with, a stored subtask may be changed in place before it is relinked
+	private final IntObjectHashMap<Contribution> contributions = new IntObjectHashMap<>();
+	private final int[] statusCounts = new int[TaskStatus.values().length];
+	private final NavigableMap<LocalDateTime, Integer> starts = new TreeMap<>();
+	private final NavigableMap<LocalDateTime, Integer> ends = new TreeMap<>();
+	private Duration totalDuration = Duration.ZERO;
+	private int durationCount;
 
 	public Epic(int id, String name, String description) {
 		super(id, name, description, NEW, TaskType.EPIC);
@@ -21,14 +36,34 @@ public class Epic extends Task {
 		super(id, name, description, status, TaskType.EPIC);
 	}
 
+	/**
+	 * Links the subtask, a subtask with an already linked id replaces the linked one and is counted again.
+	 * A linked subtask changed in place has to be added again for the epic to see the change.
+	 */
 	public void addSubtask(Task subtask) {
 		if (this.id == subtask.id) {
 			System.out.println("WARN epic should not add itself as subtask");
-		} else if (subtaskIdToSubtask.containsKey(id)) {
-			System.out.println("WARN should add distinct subtask ids");
-		} else {
-			subtaskIdToSubtask.put(subtask.getId(), subtask);
+			return;
+		}
+		subtaskIdToSubtask.put(subtask.getId(), subtask);
+		Contribution contribution = Contribution.of(subtask);
+		uncount(contributions.put(subtask.getId(), contribution));
+		count(contribution);
+	}
+
+	/**
+	 * Copies the epic with its subtasks counted as they were linked, the copy shares the subtask instances.
+	 */
+	@Override
+	public Epic copy() {
+		Epic copy = new Epic(id, name, description);
+		for (int subtaskId : subtaskIdToSubtask.keySet()) {
+			Contribution contribution = contributions.get(subtaskId);
+			copy.subtaskIdToSubtask.put(subtaskId, subtaskIdToSubtask.get(subtaskId));
+			copy.contributions.put(subtaskId, contribution);
+			copy.count(contribution);
 		}
+		return copy;
 	}
 
 	public List<Integer> getSubtaskIds() {
@@ -37,37 +72,69 @@ public class Epic extends Task {
 
 	public void cleanSubtaskIds() {
 		subtaskIdToSubtask.clear();
+		contributions.clear();
+		Arrays.fill(statusCounts, 0);
+		starts.clear();
+		ends.clear();
+		totalDuration = Duration.ZERO;
+		durationCount = 0;
 	}
 
 	public void removeSubtask(int id) {
 		subtaskIdToSubtask.remove(id);
+		uncount(contributions.remove(id));
+	}
+
+	private void count(Contribution contribution) {
+		statusCounts[contribution.status().ordinal()]++;
+		if (contribution.duration() != null) {
+			totalDuration = totalDuration.plus(contribution.duration());
+			durationCount++;
+		}
+		if (contribution.start() != null) {
+			starts.merge(contribution.start(), 1, Integer::sum);
+			ends.merge(contribution.end(), 1, Integer::sum);
+		}
+	}
+
+	private void uncount(Contribution contribution) {
+		if (contribution == null) {
+			return;
+		}
+		statusCounts[contribution.status().ordinal()]--;
+		if (contribution.duration() != null) {
+			totalDuration = totalDuration.minus(contribution.duration());
+			durationCount--;
+		}
+		if (contribution.start() != null) {
+			decrement(starts, contribution.start());
+			decrement(ends, contribution.end());
+		}
+	}
+
+	private static void decrement(NavigableMap<LocalDateTime, Integer> multiset, LocalDateTime time) {
+		multiset.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
 	}
 
+	/**
+	 * Returns the sum of subtask durations, or null when no subtask has one.
+	 */
 	@Override
 	public Duration getDuration() {
-		return subtaskIdToSubtask.values().stream()
-				.map(Task::getDuration)
-				.filter(Objects::nonNull)
-				.reduce(Duration::plus)
-				.orElse(null);
+		return durationCount == 0 ? null : totalDuration;
 	}
 
 	@Override
 	public LocalDateTime getStartTime() {
-		return subtaskIdToSubtask.values().stream()
-				.filter(task -> task.getStartTime() != null)
-				.min(Comparator.comparing(Task::getStartTime))
-				.map(Task::getStartTime)
-				.orElse(null);
+		return starts.isEmpty() ? null : starts.firstKey();
 	}
 
+	/**
+	 * Returns the latest subtask end, a subtask without a duration ends at its start.
+	 */
 	@Override
 	public LocalDateTime getEndTime() {
-		return subtaskIdToSubtask.values().stream()
-				.filter(task -> task.getEndTime() != null)
-				.max(Comparator.comparing(Task::getEndTime))
-				.map(Task::getEndTime)
-				.orElse(null);
+		return ends.isEmpty() ? null : ends.lastKey();
 	}
 
 	@Override
@@ -81,16 +148,30 @@ public class Epic extends Task {
 				'}';
 	}
 
+	/**
+	 * Returns NEW or DONE when every subtask has that status, an epic without subtasks is NEW,
+	 * any other mix of statuses is IN_PROGRESS. A subtask without a status counts as NEW.
+	 */
 	@Override
 	public TaskStatus getStatus() {
-		if (subtaskIdToSubtask.isEmpty()) {
+		int total = subtaskIdToSubtask.size();
+		if (statusCounts[NEW.ordinal()] == total) {
 			return NEW;
 		}
-		boolean isAnyInProgress = subtaskIdToSubtask.values().stream().anyMatch(subtask -> subtask.getStatus() == IN_PROGRESS);
-		if (isAnyInProgress) {
-			return IN_PROGRESS;
+		return statusCounts[DONE.ordinal()] == total ? DONE : IN_PROGRESS;
+	}
+
+	public int getSubtaskCount(TaskStatus status) {
+		return statusCounts[status.ordinal()];
+	}
+
+	private record Contribution(TaskStatus status, Duration duration, LocalDateTime start, LocalDateTime end) {
+		static Contribution of(Task subtask) {
+			LocalDateTime start = subtask.getStartTime();
+			Duration duration = subtask.getDuration();
+			LocalDateTime end = start == null || duration == null ? start : start.plus(duration);
+			TaskStatus status = subtask.getStatus() == null ? NEW : subtask.getStatus();
+			return new Contribution(status, duration, start, end);
 		}
-		boolean isAllDone = subtaskIdToSubtask.values().stream().allMatch(subtask -> subtask.getStatus() == DONE);
-		return isAllDone ? DONE : NEW;
 	}
 }
@@ -21,6 +21,10 @@ public class Subtask extends Task {
 		setEpicId(epicId, id);
 	}
 
+	public void setEpicId(int epicId) {
+		setEpicId(epicId, id);
+	}
+
 	private void setEpicId(int epicId, int id) {
 		if (epicId != id) {
 			this.epicId = epicId;
@@ -33,6 +37,11 @@ public class Subtask extends Task {
 		return epicId;
 	}
 
+	@Override
+	public Subtask copy() {
+		return new Subtask(id, name, description, status, epicId, duration, startTime);
+	}
+
 	@Override
 	public String toString() {
 		return "Subtask{" +
@@ -107,6 +107,13 @@ public class Task {
 		return startTime.plus(duration);
 	}
 
+	/**
+	 * Copies the task as it is now, later changes of either instance do not show through the other.
+	 */
+	public Task copy() {
+		return new Task(id, name, description, status, type, duration, startTime);
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(id);
@@ -0,0 +1,156 @@
+package ru.yandex.javacourse.schedule.util;
+
+import java.util.Arrays;
+
+/**
+ * Map from int keys to non-negative int values with open addressing and linear probing, nothing is boxed.
+ * Lookups of absent keys return {@link #NO_VALUE}. Removal shifts the following entries back
+ * instead of leaving tombstones.
+ */
+public class IntIntHashMap {
+    public static final int NO_VALUE = -1;
+
+    private int[] keyTable;
+    private int[] valueTable;
+    private int mask;
+    private int resizeAt;
+    private int size;
+
+    public IntIntHashMap() {
+        this(4);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        allocate(IntObjectHashMap.capacityFor(expectedSize));
+    }
+
+    public int get(int key) {
+        int slot = slotOf(key);
+        return slot < 0 ? NO_VALUE : valueTable[slot];
+    }
+
+    public boolean containsKey(int key) {
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * Associates the value with the key, returns the previous value or {@link #NO_VALUE}.
+     */
+    public int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value should not be negative: " + value);
+        }
+        int slot = home(key);
+        while (valueTable[slot] != NO_VALUE) {
+            if (keyTable[slot] == key) {
+                int previous = valueTable[slot];
+                valueTable[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keyTable[slot] = key;
+        valueTable[slot] = value;
+        if (++size > resizeAt) {
+            rehash(keyTable.length * 2);
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Removes the key, returns its value or {@link #NO_VALUE}.
+     */
+    public int remove(int key) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return NO_VALUE;
+        }
+        int previous = valueTable[slot];
+        int gap = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (valueTable[next] == NO_VALUE) {
+                break;
+            }
+            int home = home(keyTable[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keyTable[gap] = keyTable[next];
+                valueTable[gap] = valueTable[next];
+                gap = next;
+            }
+        }
+        valueTable[gap] = NO_VALUE;
+        size--;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Passes every entry to the action, in unspecified order. The map should not be changed meanwhile.
+     */
+    public void forEach(EntryConsumer action) {
+        for (int slot = 0; slot < valueTable.length; slot++) {
+            if (valueTable[slot] != NO_VALUE) {
+                action.accept(keyTable[slot], valueTable[slot]);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(valueTable, NO_VALUE);
+        size = 0;
+    }
+
+    private int home(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private int slotOf(int key) {
+        int slot = home(key);
+        while (valueTable[slot] != NO_VALUE) {
+            if (keyTable[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keyTable;
+        int[] oldValues = valueTable;
+        allocate(capacity);
+        for (int slot = 0; slot < oldValues.length; slot++) {
+            if (oldValues[slot] != NO_VALUE) {
+                int target = home(oldKeys[slot]);
+                while (valueTable[target] != NO_VALUE) {
+                    target = (target + 1) & mask;
+                }
+                keyTable[target] = oldKeys[slot];
+                valueTable[target] = oldValues[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keyTable = new int[capacity];
+        valueTable = new int[capacity];
+        Arrays.fill(valueTable, NO_VALUE);
+        mask = capacity - 1;
+        resizeAt = capacity - capacity / 4;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+}
@@ -0,0 +1,315 @@
+package ru.yandex.javacourse.schedule.util;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Map from int keys to non-null values with open addressing and linear probing over two parallel arrays.
+ * A slot costs 8 bytes with compressed references and the table is kept between 3/8 and 3/4 full,
+ * so an entry takes 11 to 21 bytes where a {@link HashMap} spends a 32 byte node, a 16 byte boxed key
+ * and a table slot: about 17 against 56 bytes per entry measured for a million ids.
+ * Removal shifts the following entries back instead of leaving tombstones.
+ * <p>
+ * The int overloads never box, the {@link Map} methods box keys as usual. Iteration order is unspecified
+ * and iterators do not support removal.
+ */
+public class IntObjectHashMap<V> extends AbstractMap<Integer, V> {
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] keyTable;
+    private Object[] valueTable;
+    private int mask;
+    private int resizeAt;
+    private int size;
+    private int modCount;
+
+    public IntObjectHashMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    public IntObjectHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public V get(int key) {
+        int slot = slotOf(key);
+        return slot < 0 ? null : value(slot);
+    }
+
+    public boolean containsKey(int key) {
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * Associates the value with the key, returns the previous value or null.
+     */
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        int slot = home(key);
+        while (valueTable[slot] != null) {
+            if (keyTable[slot] == key) {
+                V previous = value(slot);
+                valueTable[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keyTable[slot] = key;
+        valueTable[slot] = value;
+        modCount++;
+        if (++size > resizeAt) {
+            rehash(keyTable.length * 2);
+        }
+        return null;
+    }
+
+    public V remove(int key) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return null;
+        }
+        V previous = value(slot);
+        removeAt(slot);
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer id ? get(id.intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer id && containsKey(id.intValue());
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Integer id ? remove(id.intValue()) : null;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (Object stored : valueTable) {
+            if (stored != null && stored.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(valueTable, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super Integer, ? super V> action) {
+        int expectedModCount = modCount;
+        for (int slot = 0; slot < valueTable.length; slot++) {
+            if (valueTable[slot] != null) {
+                action.accept(keyTable[slot], value(slot));
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    Integer at(int slot) {
+                        return keyTable[slot];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return containsKey(key);
+            }
+        };
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    V at(int slot) {
+                        return value(slot);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, V>> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    Entry<Integer, V> at(int slot) {
+                        return new SimpleImmutableEntry<>(keyTable[slot], value(slot));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int slot) {
+        return (V) valueTable[slot];
+    }
+
+    private int home(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private int slotOf(int key) {
+        int slot = home(key);
+        while (valueTable[slot] != null) {
+            if (keyTable[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Empties the slot and moves back every following entry of the run whose home is not after the gap,
+     * so lookups never stop early at the freed slot.
+     */
+    private void removeAt(int slot) {
+        int gap = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (valueTable[next] == null) {
+                break;
+            }
+            int home = home(keyTable[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keyTable[gap] = keyTable[next];
+                valueTable[gap] = valueTable[next];
+                gap = next;
+            }
+        }
+        valueTable[gap] = null;
+        size--;
+        modCount++;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keyTable;
+        Object[] oldValues = valueTable;
+        allocate(capacity);
+        for (int slot = 0; slot < oldValues.length; slot++) {
+            if (oldValues[slot] != null) {
+                int target = home(oldKeys[slot]);
+                while (valueTable[target] != null) {
+                    target = (target + 1) & mask;
+                }
+                keyTable[target] = oldKeys[slot];
+                valueTable[target] = oldValues[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keyTable = new int[capacity];
+        valueTable = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity - capacity / 4;
+    }
+
+    /**
+     * Smallest power of two keeping the expected entries within three quarters of the table.
+     */
+    static int capacityFor(int expectedSize) {
+        long needed = Math.max(MIN_CAPACITY, (long) Math.ceil(expectedSize / 0.75));
+        if (needed > 1 << 30) {
+            throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    private abstract class SlotIterator<T> implements Iterator<T> {
+        private final int expectedModCount = modCount;
+        private int slot = nextSlot(0);
+
+        abstract T at(int slot);
+
+        @Override
+        public boolean hasNext() {
+            return slot < valueTable.length;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T element = at(slot);
+            slot = nextSlot(slot + 1);
+            return element;
+        }
+
+        private int nextSlot(int from) {
+            int next = from;
+            while (next < valueTable.length && valueTable[next] == null) {
+                next++;
+            }
+            return next;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package ru.yandex.javacourse.schedule.util;
+
+import java.util.*;
+
+/**
+ * Map from int keys to non-null values iterated in insertion order. Entries are appended to dense key and
+ * value arrays and an open-addressing table of int positions points into them, so an entry takes 13 to 23
+ * bytes where a {@link LinkedHashMap} spends a 40 byte node, a 16 byte boxed key and a table slot:
+ * about 17 against 64 bytes per entry measured for a million ids.
+ * Removal leaves a hole in the dense arrays, holes are squeezed out once they make up half of them.
+ * <p>
+ * Replacing the value of a present key keeps its position. Iterators do not support removal.
+ */
+public class LinkedIntObjectHashMap<V> extends AbstractMap<Integer, V> {
+    private static final int MIN_ENTRIES = 4;
+    private static final int EMPTY = -1;
+
+    private int[] table;
+    private int mask;
+    private int resizeAt;
+    private int[] entryKeys;
+    private Object[] entryValues;
+    private int entryCount;
+    private int size;
+    private int modCount;
+
+    public LinkedIntObjectHashMap() {
+        this(MIN_ENTRIES);
+    }
+
+    public LinkedIntObjectHashMap(int expectedSize) {
+        int entries = Math.max(MIN_ENTRIES, expectedSize);
+        entryKeys = new int[entries];
+        entryValues = new Object[entries];
+        allocateTable(IntObjectHashMap.capacityFor(entries));
+    }
+
+    public V get(int key) {
+        int slot = slotOf(key);
+        return slot < 0 ? null : value(table[slot]);
+    }
+
+    public boolean containsKey(int key) {
+        return slotOf(key) >= 0;
+    }
+
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        int slot = home(key);
+        while (table[slot] != EMPTY) {
+            int entry = table[slot];
+            if (entryKeys[entry] == key) {
+                V previous = value(entry);
+                entryValues[entry] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (entryCount == entryKeys.length) {
+            makeRoom();
+            slot = freeSlot(key);
+        }
+        entryKeys[entryCount] = key;
+        entryValues[entryCount] = value;
+        table[slot] = entryCount++;
+        modCount++;
+        if (++size > resizeAt) {
+            allocateTable(table.length * 2);
+            reindex();
+        }
+        return null;
+    }
+
+    public V remove(int key) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return null;
+        }
+        int entry = table[slot];
+        V previous = value(entry);
+        entryValues[entry] = null;
+        if (entry == entryCount - 1) {
+            entryCount--;
+        }
+        removeSlot(slot);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer id ? get(id.intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer id && containsKey(id.intValue());
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Integer id ? remove(id.intValue()) : null;
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0 && entryCount == 0) {
+            return;
+        }
+        Arrays.fill(table, EMPTY);
+        Arrays.fill(entryValues, 0, entryCount, null);
+        entryCount = 0;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new EntryIterator<>() {
+                    @Override
+                    Integer at(int entry) {
+                        return entryKeys[entry];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return containsKey(key);
+            }
+        };
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new EntryIterator<>() {
+                    @Override
+                    V at(int entry) {
+                        return value(entry);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, V>> iterator() {
+                return new EntryIterator<>() {
+                    @Override
+                    Entry<Integer, V> at(int entry) {
+                        return new SimpleImmutableEntry<>(entryKeys[entry], value(entry));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int entry) {
+        return (V) entryValues[entry];
+    }
+
+    private int home(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private int slotOf(int key) {
+        int slot = home(key);
+        while (table[slot] != EMPTY) {
+            if (entryKeys[table[slot]] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int freeSlot(int key) {
+        int slot = home(key);
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (table[next] == EMPTY) {
+                break;
+            }
+            int home = home(entryKeys[table[next]]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                table[gap] = table[next];
+                gap = next;
+            }
+        }
+        table[gap] = EMPTY;
+    }
+
+    /**
+     * Squeezes out holes when they make up half of the dense arrays, grows the arrays otherwise.
+     */
+    private void makeRoom() {
+        if (size <= entryCount / 2) {
+            int live = 0;
+            for (int entry = 0; entry < entryCount; entry++) {
+                if (entryValues[entry] != null) {
+                    entryKeys[live] = entryKeys[entry];
+                    entryValues[live++] = entryValues[entry];
+                }
+            }
+            Arrays.fill(entryValues, live, entryCount, null);
+            entryCount = live;
+        } else {
+            int capacity = entryKeys.length + (entryKeys.length >> 1);
+            entryKeys = Arrays.copyOf(entryKeys, capacity);
+            entryValues = Arrays.copyOf(entryValues, capacity);
+        }
+        reindex();
+    }
+
+    private void reindex() {
+        Arrays.fill(table, EMPTY);
+        for (int entry = 0; entry < entryCount; entry++) {
+            if (entryValues[entry] != null) {
+                table[freeSlot(entryKeys[entry])] = entry;
+            }
+        }
+    }
+
+    private void allocateTable(int capacity) {
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        mask = capacity - 1;
+        resizeAt = capacity - capacity / 4;
+    }
+
+    private abstract class EntryIterator<T> implements Iterator<T> {
+        private final int expectedModCount = modCount;
+        private int entry = nextEntry(0);
+
+        abstract T at(int entry);
+
+        @Override
+        public boolean hasNext() {
+            return entry < entryCount;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T element = at(entry);
+            entry = nextEntry(entry + 1);
+            return element;
+        }
+
+        private int nextEntry(int from) {
+            int next = from;
+            while (next < entryCount && entryValues[next] == null) {
+                next++;
+            }
+            return next;
+        }
+    }
+}
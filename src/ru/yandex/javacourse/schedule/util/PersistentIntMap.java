@@ -0,0 +1,356 @@
+package ru.yandex.javacourse.schedule.util;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable map from int keys to non-null values as a hash array mapped trie. Each node takes five bits
+ * of the key, starting from the lowest ones, and keeps only its present children in an array indexed
+ * through a 32 bit bitmap, so sequential ids fill nodes densely and a million of them are four levels deep.
+ * Keys are used as their own hashes and never collide.
+ * <p>
+ * {@link #with} and {@link #without} copy only the path to the changed entry and share the rest with
+ * this map, so every version stays valid and readers of an old one are never affected by later changes.
+ * Iteration order is unspecified.
+ */
+public final class PersistentIntMap<V> {
+    private static final int BITS = 5;
+    private static final int MAX_DEPTH = (Integer.SIZE + BITS - 1) / BITS;
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentIntMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    public V get(int key) {
+        Node node = root;
+        int shift = 0;
+        while (node != null) {
+            int bit = bit(key, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[node.index(bit)];
+            if (slot instanceof Leaf leaf) {
+                return leaf.key == key ? value(leaf) : null;
+            }
+            node = (Node) slot;
+            shift += BITS;
+        }
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a map with the value associated with the key, or this map if it already holds that very value.
+     */
+    public PersistentIntMap<V> with(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        if (root == null) {
+            return new PersistentIntMap<>(new Node(bit(key, 0), new Object[]{new Leaf(key, value)}), 1);
+        }
+        Node changed = root.with(0, new Leaf(key, value));
+        if (changed == root) {
+            return this;
+        }
+        return new PersistentIntMap<>(changed, containsKey(key) ? size : size + 1);
+    }
+
+    /**
+     * Returns a map without the key, or this map if the key is absent.
+     */
+    public PersistentIntMap<V> without(int key) {
+        if (!containsKey(key)) {
+            return this;
+        }
+        Object changed = root.without(0, key);
+        if (changed == null) {
+            return empty();
+        }
+        Node node = changed instanceof Leaf leaf ? new Node(bit(leaf.key, 0), new Object[]{leaf}) : (Node) changed;
+        return new PersistentIntMap<>(node, size - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(EntryConsumer<? super V> action) {
+        if (root != null) {
+            root.forEach(action);
+        }
+    }
+
+    /**
+     * Passes the keys of this map missing from the other one to the action. Subtrees the two maps share
+     * are skipped as a whole, so comparing a version with the one it was derived from costs
+     * O(changes * depth) rather than O(size).
+     */
+    public void forEachKeyNotIn(PersistentIntMap<?> other, IntConsumer action) {
+        differing(root, other.root, 0, false, action);
+    }
+
+    /**
+     * Passes the keys present in only one of the maps or mapped to different value instances, skipping
+     * shared subtrees like {@link #forEachKeyNotIn}.
+     */
+    public void forEachDifference(PersistentIntMap<?> other, IntConsumer action) {
+        differing(root, other.root, 0, true, action);
+        differing(other.root, root, 0, false, action);
+    }
+
+    /**
+     * Returns a read-only collection of the values of this version, it never changes.
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        forEach((key, value) -> joiner.add(key + "=" + value));
+        return joiner.toString();
+    }
+
+    private static int bit(int key, int shift) {
+        return 1 << ((key >>> shift) & 31);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V value(Leaf leaf) {
+        return (V) leaf.value;
+    }
+
+    /**
+     * Passes the keys of the slot missing from the other one, and those mapped to other values if asked to.
+     */
+    private static void differing(Object slot, Object other, int shift, boolean compareValues, IntConsumer action) {
+        if (slot == other || slot == null) {
+            return;
+        }
+        if (slot instanceof Leaf leaf) {
+            Leaf found = find(other, leaf.key, shift);
+            if (found == null || (compareValues && found.value != leaf.value)) {
+                action.accept(leaf.key);
+            }
+            return;
+        }
+        Node node = (Node) slot;
+        for (int bits = node.bitmap; bits != 0; bits &= bits - 1) {
+            int bit = Integer.lowestOneBit(bits);
+            Object child = node.slots[node.index(bit)];
+            Object otherChild = null;
+            if (other instanceof Node otherNode) {
+                otherChild = (otherNode.bitmap & bit) == 0 ? null : otherNode.slots[otherNode.index(bit)];
+            } else if (other instanceof Leaf otherLeaf && bit(otherLeaf.key, shift) == bit) {
+                otherChild = otherLeaf;
+            }
+            differing(child, otherChild, shift + BITS, compareValues, action);
+        }
+    }
+
+    private static Leaf find(Object slot, int key, int shift) {
+        while (slot instanceof Node node) {
+            int bit = bit(key, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            slot = node.slots[node.index(bit)];
+            shift += BITS;
+        }
+        return slot instanceof Leaf leaf && leaf.key == key ? leaf : null;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    private record Leaf(int key, Object value) {
+    }
+
+    /**
+     * Inner node, a slot holds either a leaf or a child node. Nodes are never changed once built.
+     */
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] slots;
+
+        private Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private Node with(int shift, Leaf added) {
+            int bit = bit(added.key, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, copy, 0, index);
+                copy[index] = added;
+                System.arraycopy(slots, index, copy, index + 1, slots.length - index);
+                return new Node(bitmap | bit, copy);
+            }
+            Object slot = slots[index];
+            Object replacement;
+            if (slot instanceof Node child) {
+                replacement = child.with(shift + BITS, added);
+            } else {
+                Leaf leaf = (Leaf) slot;
+                if (leaf.key != added.key) {
+                    replacement = pair(shift + BITS, leaf, added);
+                } else {
+                    replacement = leaf.value == added.value ? leaf : added;
+                }
+            }
+            return replacement == slot ? this : replaced(index, replacement);
+        }
+
+        /**
+         * Returns this node if the key is absent, null if nothing is left, or a single remaining leaf,
+         * which the parent inlines so no node ever holds just one leaf below the root.
+         */
+        private Object without(int shift, int key) {
+            int bit = bit(key, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Object slot = slots[index];
+            Object replacement;
+            if (slot instanceof Node child) {
+                replacement = child.without(shift + BITS, key);
+                if (replacement == child) {
+                    return this;
+                }
+            } else {
+                if (((Leaf) slot).key != key) {
+                    return this;
+                }
+                replacement = null;
+            }
+            if (replacement != null) {
+                return slots.length == 1 && replacement instanceof Leaf ? replacement : replaced(index, replacement);
+            }
+            if (slots.length == 1) {
+                return null;
+            }
+            if (slots.length == 2 && slots[1 - index] instanceof Leaf remaining) {
+                return remaining;
+            }
+            Object[] copy = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, copy, 0, index);
+            System.arraycopy(slots, index + 1, copy, index, slots.length - index - 1);
+            return new Node(bitmap & ~bit, copy);
+        }
+
+        private Node replaced(int index, Object slot) {
+            Object[] copy = slots.clone();
+            copy[index] = slot;
+            return new Node(bitmap, copy);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <V> void forEach(EntryConsumer<? super V> action) {
+            for (Object slot : slots) {
+                if (slot instanceof Leaf leaf) {
+                    action.accept(leaf.key, (V) leaf.value);
+                } else {
+                    ((Node) slot).forEach(action);
+                }
+            }
+        }
+
+        private static Node pair(int shift, Leaf first, Leaf second) {
+            int firstBit = bit(first.key, shift);
+            int secondBit = bit(second.key, shift);
+            if (firstBit == secondBit) {
+                return new Node(firstBit, new Object[]{pair(shift + BITS, first, second)});
+            }
+            Object[] slots = Integer.compareUnsigned(firstBit, secondBit) < 0
+                    ? new Object[]{first, second}
+                    : new Object[]{second, first};
+            return new Node(firstBit | secondBit, slots);
+        }
+    }
+
+    /**
+     * Depth-first walk keeping the path in fixed arrays, the trie is never deeper than {@link #MAX_DEPTH}.
+     */
+    private static final class ValueIterator<V> implements Iterator<V> {
+        private final Node[] nodes = new Node[MAX_DEPTH];
+        private final int[] positions = new int[MAX_DEPTH];
+        private int depth = -1;
+        private Leaf next;
+
+        private ValueIterator(Node root) {
+            if (root != null) {
+                nodes[++depth] = root;
+                advance();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            V value = value(next);
+            advance();
+            return value;
+        }
+
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                if (positions[depth] == node.slots.length) {
+                    positions[depth--] = 0;
+                    continue;
+                }
+                Object slot = node.slots[positions[depth]++];
+                if (slot instanceof Leaf leaf) {
+                    next = leaf;
+                    return;
+                }
+                nodes[++depth] = (Node) slot;
+            }
+        }
+    }
+}
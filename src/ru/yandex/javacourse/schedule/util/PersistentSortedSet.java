@@ -0,0 +1,522 @@
+package ru.yandex.javacourse.schedule.util;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Immutable sorted set as an AVL tree. {@link #with} and {@link #without} copy the O(log n) nodes on the
+ * path to the change and share every other node with this set, so every version stays valid and readers
+ * of an old one are never affected by later changes. Nodes also count their subtree, so range sizes
+ * cost O(log n).
+ * <p>
+ * The set is read through {@link NavigableSet} views, which reject changes. A view of one version never
+ * changes, a {@link #liveView live view} reads the latest version of a changing source on every call.
+ */
+public final class PersistentSortedSet<E> {
+    private final Comparator<? super E> comparator;
+    private final Node<E> root;
+
+    private PersistentSortedSet(Comparator<? super E> comparator, Node<E> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    public static <E> PersistentSortedSet<E> empty(Comparator<? super E> comparator) {
+        return new PersistentSortedSet<>(comparator, null);
+    }
+
+    /**
+     * Returns a set with the element, or this set if it already holds an equal one.
+     */
+    public PersistentSortedSet<E> with(E element) {
+        Objects.requireNonNull(element, "element");
+        Node<E> changed = insert(root, element);
+        return changed == root ? this : new PersistentSortedSet<>(comparator, changed);
+    }
+
+    /**
+     * Returns a set without the element, or this set if it holds no equal one.
+     */
+    public PersistentSortedSet<E> without(E element) {
+        Node<E> changed = delete(root, element);
+        return changed == root ? this : new PersistentSortedSet<>(comparator, changed);
+    }
+
+    public boolean contains(E element) {
+        Node<E> node = root;
+        while (node != null) {
+            int comparison = comparator.compare(element, node.element);
+            if (comparison == 0) {
+                return true;
+            }
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    public int size() {
+        return Node.size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Returns a read-only view of this version.
+     */
+    public NavigableSet<E> view() {
+        return new View<>(() -> this, comparator, null, false, false, null, false, false, false);
+    }
+
+    /**
+     * Returns a read-only view reading the latest set of the source on every call, an iterator keeps
+     * walking the version it started on.
+     */
+    public static <E> NavigableSet<E> liveView(Supplier<PersistentSortedSet<E>> source) {
+        return new View<>(source, source.get().comparator, null, false, false, null, false, false, false);
+    }
+
+    private Node<E> insert(Node<E> node, E element) {
+        if (node == null) {
+            return new Node<>(element, null, null);
+        }
+        int comparison = comparator.compare(element, node.element);
+        if (comparison == 0) {
+            return node;
+        }
+        if (comparison < 0) {
+            Node<E> left = insert(node.left, element);
+            return left == node.left ? node : Node.balance(node.element, left, node.right);
+        }
+        Node<E> right = insert(node.right, element);
+        return right == node.right ? node : Node.balance(node.element, node.left, right);
+    }
+
+    private Node<E> delete(Node<E> node, E element) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = comparator.compare(element, node.element);
+        if (comparison < 0) {
+            Node<E> left = delete(node.left, element);
+            return left == node.left ? node : Node.balance(node.element, left, node.right);
+        }
+        if (comparison > 0) {
+            Node<E> right = delete(node.right, element);
+            return right == node.right ? node : Node.balance(node.element, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<E> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return Node.balance(successor.element, node.left, delete(node.right, successor.element));
+    }
+
+    private static final class Node<E> {
+        private final E element;
+        private final Node<E> left;
+        private final Node<E> right;
+        private final int height;
+        private final int size;
+
+        private Node(E element, Node<E> left, Node<E> right) {
+            this.element = element;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+
+        private static int height(Node<?> node) {
+            return node == null ? 0 : node.height;
+        }
+
+        private static int size(Node<?> node) {
+            return node == null ? 0 : node.size;
+        }
+
+        /**
+         * Builds a node from subtrees whose heights differ by at most two, rotating once or twice
+         * to bring the difference back to one.
+         */
+        private static <E> Node<E> balance(E element, Node<E> left, Node<E> right) {
+            int difference = height(left) - height(right);
+            if (difference > 1) {
+                if (height(left.left) >= height(left.right)) {
+                    return new Node<>(left.element, left.left, new Node<>(element, left.right, right));
+                }
+                Node<E> middle = left.right;
+                return new Node<>(middle.element, new Node<>(left.element, left.left, middle.left),
+                        new Node<>(element, middle.right, right));
+            }
+            if (difference < -1) {
+                if (height(right.right) >= height(right.left)) {
+                    return new Node<>(right.element, new Node<>(element, left, right.left), right.right);
+                }
+                Node<E> middle = right.left;
+                return new Node<>(middle.element, new Node<>(element, left, middle.left),
+                        new Node<>(right.element, middle.right, right.right));
+            }
+            return new Node<>(element, left, right);
+        }
+    }
+
+    /**
+     * Range of a set between optional bounds, read in ascending or descending order. Bounds are kept in
+     * ascending terms and navigation of a descending view swaps its directions.
+     */
+    private static final class View<E> extends AbstractSet<E> implements NavigableSet<E> {
+        private final Supplier<PersistentSortedSet<E>> source;
+        private final Comparator<? super E> comparator;
+        private final E low;
+        private final boolean hasLow;
+        private final boolean lowInclusive;
+        private final E high;
+        private final boolean hasHigh;
+        private final boolean highInclusive;
+        private final boolean descending;
+
+        private View(Supplier<PersistentSortedSet<E>> source, Comparator<? super E> comparator,
+                     E low, boolean hasLow, boolean lowInclusive, E high, boolean hasHigh, boolean highInclusive,
+                     boolean descending) {
+            this.source = source;
+            this.comparator = comparator;
+            this.low = low;
+            this.hasLow = hasLow;
+            this.lowInclusive = lowInclusive;
+            this.high = high;
+            this.hasHigh = hasHigh;
+            this.highInclusive = highInclusive;
+            this.descending = descending;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new RangeIterator(source.get().root, descending);
+        }
+
+        @Override
+        public Iterator<E> descendingIterator() {
+            return new RangeIterator(source.get().root, !descending);
+        }
+
+        @Override
+        public int size() {
+            Node<E> root = source.get().root;
+            int above = hasHigh ? Node.size(root) - countBelow(root, high, highInclusive) : 0;
+            int below = hasLow ? countBelow(root, low, !lowInclusive) : 0;
+            return Math.max(0, Node.size(root) - above - below);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return lowest(source.get().root) == null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            E element = (E) o;
+            return inRange(element) && source.get().contains(element);
+        }
+
+        @Override
+        public Comparator<? super E> comparator() {
+            return descending ? Collections.reverseOrder(comparator) : comparator;
+        }
+
+        @Override
+        public E first() {
+            return orThrow(descending ? highest(source.get().root) : lowest(source.get().root));
+        }
+
+        @Override
+        public E last() {
+            return orThrow(descending ? lowest(source.get().root) : highest(source.get().root));
+        }
+
+        @Override
+        public E lower(E e) {
+            return descending ? above(source.get().root, e, false) : below(source.get().root, e, false);
+        }
+
+        @Override
+        public E floor(E e) {
+            return descending ? above(source.get().root, e, true) : below(source.get().root, e, true);
+        }
+
+        @Override
+        public E ceiling(E e) {
+            return descending ? below(source.get().root, e, true) : above(source.get().root, e, true);
+        }
+
+        @Override
+        public E higher(E e) {
+            return descending ? below(source.get().root, e, false) : above(source.get().root, e, false);
+        }
+
+        @Override
+        public E pollFirst() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public E pollLast() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public NavigableSet<E> descendingSet() {
+            return new View<>(source, comparator, low, hasLow, lowInclusive, high, hasHigh, highInclusive,
+                    !descending);
+        }
+
+        @Override
+        public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+            if (comparator().compare(fromElement, toElement) > 0) {
+                throw new IllegalArgumentException("fromElement > toElement");
+            }
+            return descending
+                    ? restrict(toElement, toInclusive, true, fromElement, fromInclusive, true)
+                    : restrict(fromElement, fromInclusive, true, toElement, toInclusive, true);
+        }
+
+        @Override
+        public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+            return descending
+                    ? restrict(toElement, inclusive, true, null, false, false)
+                    : restrict(null, false, false, toElement, inclusive, true);
+        }
+
+        @Override
+        public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+            return descending
+                    ? restrict(null, false, false, fromElement, inclusive, true)
+                    : restrict(fromElement, inclusive, true, null, false, false);
+        }
+
+        @Override
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<E> headSet(E toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<E> tailSet(E fromElement) {
+            return tailSet(fromElement, true);
+        }
+
+        /**
+         * Narrows the range to the given ascending bounds, a bound looser than the current one is ignored.
+         */
+        private View<E> restrict(E newLow, boolean newLowInclusive, boolean hasNewLow,
+                                 E newHigh, boolean newHighInclusive, boolean hasNewHigh) {
+            E nextLow = low;
+            boolean nextLowInclusive = lowInclusive;
+            if (hasNewLow && (!hasLow || tighter(comparator.compare(newLow, low), newLowInclusive))) {
+                nextLow = newLow;
+                nextLowInclusive = newLowInclusive;
+            }
+            E nextHigh = high;
+            boolean nextHighInclusive = highInclusive;
+            if (hasNewHigh && (!hasHigh || tighter(comparator.compare(high, newHigh), newHighInclusive))) {
+                nextHigh = newHigh;
+                nextHighInclusive = newHighInclusive;
+            }
+            return new View<>(source, comparator, nextLow, hasLow || hasNewLow, nextLowInclusive,
+                    nextHigh, hasHigh || hasNewHigh, nextHighInclusive, descending);
+        }
+
+        private static boolean tighter(int comparison, boolean inclusive) {
+            return comparison > 0 || (comparison == 0 && !inclusive);
+        }
+
+        private boolean tooLow(E element) {
+            if (!hasLow) {
+                return false;
+            }
+            int comparison = comparator.compare(element, low);
+            return comparison < 0 || (comparison == 0 && !lowInclusive);
+        }
+
+        private boolean tooHigh(E element) {
+            if (!hasHigh) {
+                return false;
+            }
+            int comparison = comparator.compare(element, high);
+            return comparison > 0 || (comparison == 0 && !highInclusive);
+        }
+
+        private boolean inRange(E element) {
+            return !tooLow(element) && !tooHigh(element);
+        }
+
+        private E lowest(Node<E> root) {
+            E found = hasLow ? ceilingOf(root, low, lowInclusive) : firstOf(root);
+            return found == null || tooHigh(found) ? null : found;
+        }
+
+        private E highest(Node<E> root) {
+            E found = hasHigh ? floorOf(root, high, highInclusive) : lastOf(root);
+            return found == null || tooLow(found) ? null : found;
+        }
+
+        /**
+         * Least element of the range above the given one, or equal to it when inclusive.
+         */
+        private E above(Node<E> root, E element, boolean inclusive) {
+            if (tooLow(element)) {
+                return lowest(root);
+            }
+            E found = ceilingOf(root, element, inclusive);
+            return found == null || tooHigh(found) ? null : found;
+        }
+
+        /**
+         * Greatest element of the range below the given one, or equal to it when inclusive.
+         */
+        private E below(Node<E> root, E element, boolean inclusive) {
+            if (tooHigh(element)) {
+                return highest(root);
+            }
+            E found = floorOf(root, element, inclusive);
+            return found == null || tooLow(found) ? null : found;
+        }
+
+        private E ceilingOf(Node<E> node, E element, boolean inclusive) {
+            E found = null;
+            while (node != null) {
+                int comparison = comparator.compare(element, node.element);
+                if (comparison < 0 || (comparison == 0 && inclusive)) {
+                    found = node.element;
+                    if (comparison == 0) {
+                        return found;
+                    }
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+            return found;
+        }
+
+        private E floorOf(Node<E> node, E element, boolean inclusive) {
+            E found = null;
+            while (node != null) {
+                int comparison = comparator.compare(element, node.element);
+                if (comparison > 0 || (comparison == 0 && inclusive)) {
+                    found = node.element;
+                    if (comparison == 0) {
+                        return found;
+                    }
+                    node = node.right;
+                } else {
+                    node = node.left;
+                }
+            }
+            return found;
+        }
+
+        private static <E> E firstOf(Node<E> node) {
+            if (node == null) {
+                return null;
+            }
+            while (node.left != null) {
+                node = node.left;
+            }
+            return node.element;
+        }
+
+        private static <E> E lastOf(Node<E> node) {
+            if (node == null) {
+                return null;
+            }
+            while (node.right != null) {
+                node = node.right;
+            }
+            return node.element;
+        }
+
+        /**
+         * Counts elements below the given one, or not above it when inclusive.
+         */
+        private int countBelow(Node<E> node, E element, boolean inclusive) {
+            int count = 0;
+            while (node != null) {
+                int comparison = comparator.compare(element, node.element);
+                if (comparison > 0 || (comparison == 0 && inclusive)) {
+                    count += Node.size(node.left) + 1;
+                    node = node.right;
+                } else {
+                    node = node.left;
+                }
+            }
+            return count;
+        }
+
+        private static <E> E orThrow(E element) {
+            if (element == null) {
+                throw new NoSuchElementException();
+            }
+            return element;
+        }
+
+        /**
+         * In-order walk of one version keeping the path to the next element on a stack, it starts at
+         * the range bound in O(log n) and then costs O(1) per element on average.
+         */
+        private final class RangeIterator implements Iterator<E> {
+            private final Deque<Node<E>> path = new ArrayDeque<>();
+            private final boolean reversed;
+
+            private RangeIterator(Node<E> root, boolean reversed) {
+                this.reversed = reversed;
+                Node<E> node = root;
+                while (node != null) {
+                    if (reversed ? tooHigh(node.element) : tooLow(node.element)) {
+                        node = reversed ? node.left : node.right;
+                    } else {
+                        path.push(node);
+                        node = reversed ? node.right : node.left;
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                Node<E> next = path.peek();
+                return next != null && (reversed ? !tooLow(next.element) : !tooHigh(next.element));
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Node<E> node = path.pop();
+                Node<E> child = reversed ? node.left : node.right;
+                while (child != null) {
+                    path.push(child);
+                    child = reversed ? child.right : child.left;
+                }
+                return node.element;
+            }
+        }
+    }
+}
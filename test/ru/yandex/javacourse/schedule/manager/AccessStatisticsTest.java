@@ -0,0 +1,52 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccessStatisticsTest {
+
+    @Test
+    public void testFindsHotIdsAmongManyCold() {
+        AccessStatistics statistics = new AccessStatistics(256, 4, 16);
+        int[] views = new int[100_000];
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            // every tenth view goes to one of five hot ids, the rest spread over the others
+            int id = i % 10 == 0 ? random.nextInt(5) : 5 + random.nextInt(views.length - 5);
+            views[id]++;
+            statistics.recordView(id);
+        }
+
+        List<Integer> top = statistics.getMostViewed(5).stream().map(ViewCount::taskId).sorted().toList();
+        assertEquals(List.of(0, 1, 2, 3, 4), top, "hot ids should make the top");
+        for (int id = 0; id < views.length; id += 97) {
+            assertTrue(statistics.getEstimatedViews(id) >= views[id], "estimate should not be below the real count");
+        }
+    }
+
+    @Test
+    public void testCountsExactlyWithoutCollisions() {
+        AccessStatistics statistics = new AccessStatistics();
+        for (int id = 1; id <= 3; id++) {
+            for (int view = 0; view < id * 10; view++) {
+                statistics.recordView(id);
+            }
+        }
+        assertEquals(List.of(new ViewCount(3, 30), new ViewCount(2, 20)), statistics.getMostViewed(2));
+        assertEquals(10, statistics.getEstimatedViews(1));
+        assertEquals(0, statistics.getEstimatedViews(4));
+        assertTrue(statistics.getMostViewed(0).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> statistics.getMostViewed(-1));
+    }
+
+    @Test
+    public void testRejectsBadSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new AccessStatistics(0, 4, 16));
+        assertThrows(IllegalArgumentException.class, () -> new AccessStatistics(256, 0, 16));
+        assertThrows(IllegalArgumentException.class, () -> new AccessStatistics(256, 4, 0));
+    }
+}
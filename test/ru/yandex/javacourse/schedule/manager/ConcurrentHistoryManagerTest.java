@@ -0,0 +1,94 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskStatus;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentHistoryManagerTest {
+    private static final int THREADS = 8;
+
+    @Test
+    public void testMatchesOrderedHistoryForOneThread() {
+        HistoryManager concurrent = Managers.getConcurrentHistory();
+        HistoryManager expected = Managers.getDefaultHistory();
+        List<Task> tasks = tasks(0, 50);
+        Random random = new Random(3);
+        for (int i = 0; i < 10_000; i++) {
+            Task task = tasks.get(random.nextInt(tasks.size()));
+            concurrent.addTask(task);
+            expected.addTask(task);
+            if (i % 1_000 == 999) {
+                concurrent.remove(task.getId());
+                expected.remove(task.getId());
+            }
+        }
+        assertEquals(expected.getHistory(), concurrent.getHistory(), "views of one thread should keep their order");
+    }
+
+    @Test
+    public void testConcurrentViewsAreAllRecorded() throws Exception {
+        HistoryManager history = Managers.getConcurrentHistory();
+        int perThread = 40;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                List<Task> own = tasks(i * perThread, perThread);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    Random random = new Random();
+                    for (int view = 0; view < 20_000; view++) {
+                        history.addTask(own.get(random.nextInt(perThread)));
+                    }
+                    // the last round fixes the order of this thread's tasks
+                    own.forEach(history::addTask);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Integer> ids = history.getHistory().stream().map(Task::getId).toList();
+        assertEquals(THREADS * perThread, ids.size(), "every viewed task should be in history once");
+        assertEquals(THREADS * perThread, new HashSet<>(ids).size());
+        for (int thread = 0; thread < THREADS; thread++) {
+            int first = thread * perThread;
+            List<Integer> own = ids.stream().filter(id -> id >= first && id < first + perThread).toList();
+            for (int i = 1; i < own.size(); i++) {
+                assertTrue(own.get(i - 1) < own.get(i), "views of one thread should keep their order");
+            }
+        }
+    }
+
+    @Test
+    public void testRemoveSeesBufferedViews() {
+        HistoryManager history = Managers.getConcurrentHistory();
+        List<Task> tasks = tasks(0, 3);
+        tasks.forEach(history::addTask);
+        history.remove(1);
+        assertEquals(List.of(0, 2), history.getHistory().stream().map(Task::getId).toList());
+        history.addTask(tasks.get(1));
+        history.removeAll();
+        assertTrue(history.getHistorySnapshot().isEmpty(), "removeAll should drop buffered views too");
+    }
+
+    private static List<Task> tasks(int firstId, int count) {
+        List<Task> tasks = new ArrayList<>();
+        for (int id = firstId; id < firstId + count; id++) {
+            tasks.add(new Task(id, "Task " + id, "Viewed", TaskStatus.NEW, TaskType.TASK));
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,234 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.schedule.tasks.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentTaskManagerTest extends TaskManagersTest<ConcurrentTaskManager> {
+    private static final LocalDateTime START_TIME = LocalDateTime.parse("2025-09-10T10:00");
+    private static final int THREADS = 8;
+
+    @BeforeEach
+    public void init() {
+        manager = Managers.getConcurrentTaskManager();
+    }
+
+    @Override
+    protected boolean allowsChangesInPlace() {
+        return false;
+    }
+
+    @Test
+    public void testOneTaskWinsEverySlot() throws Exception {
+        int slots = 200;
+        AtomicInteger added = new AtomicInteger();
+        runConcurrently(thread -> {
+            for (int slot = 0; slot < slots; slot++) {
+                // every thread shifts its task a bit, tasks of the same slot still overlap
+                Task task = new Task("Slot " + slot, "Thread " + thread, TaskStatus.NEW, TaskType.TASK,
+                        Duration.ofMinutes(50), START_TIME.plusHours(slot).plusMinutes(thread));
+                if (manager.addNewTask(task) != null) {
+                    added.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(slots, added.get(), "exactly one task should win every slot");
+        assertEquals(slots, manager.getTasks().size(), "only winners should be stored");
+        assertNoOverlaps(manager.getPrioritizedTasks());
+    }
+
+    @Test
+    public void testConcurrentSubtasksKeepEpicsConsistent() throws Exception {
+        int epicCount = 4;
+        List<Integer> epicIds = new ArrayList<>();
+        for (int i = 0; i < epicCount; i++) {
+            epicIds.add(manager.addNewEpic(new Epic("Epic " + i, "Shared epic")));
+        }
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        runConcurrently(thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 500; i++) {
+                int epicId = epicIds.get(random.nextInt(epicCount));
+                Integer id = manager.addNewSubtask(new Subtask("Subtask", "Thread " + thread,
+                        TaskStatus.NEW, epicId));
+                assertNotNull(id, "subtask without time should be added");
+                assertTrue(ids.add(id), "ids should be unique");
+                if (i % 3 == 0) {
+                    manager.deleteSubtask(id);
+                } else if (i % 3 == 1) {
+                    Subtask moved = new Subtask(id, "Moved", "Thread " + thread, TaskStatus.DONE,
+                            epicIds.get(random.nextInt(epicCount)), null, null);
+                    manager.updateSubtask(moved);
+                }
+            }
+        });
+
+        Set<Integer> linked = new HashSet<>();
+        for (Epic epic : manager.getEpics()) {
+            for (int subtaskId : epic.getSubtaskIds()) {
+                Subtask subtask = manager.getSubtasks().stream()
+                        .filter(stored -> stored.getId() == subtaskId)
+                        .findFirst()
+                        .orElse(null);
+                assertNotNull(subtask, "epic should link only stored subtasks");
+                assertEquals(epic.getId(), subtask.getEpicId(), "subtask should point to its epic");
+                assertTrue(linked.add(subtaskId), "subtask should be linked once");
+            }
+        }
+        assertEquals(manager.getSubtasks().size(), linked.size(), "every subtask should be linked");
+    }
+
+    @Test
+    public void testConcurrentUpdatesKeepSchedule() throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            ids.add(manager.addNewTask(new Task("Task " + i, "Moving task", TaskStatus.NEW, TaskType.TASK,
+                    Duration.ofMinutes(30), START_TIME.plusHours(i))));
+        }
+        runConcurrently(thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 1000; i++) {
+                int id = ids.get(random.nextInt(ids.size()));
+                manager.updateTask(new Task(id, "Moved", "Moving task", TaskStatus.IN_PROGRESS, TaskType.TASK,
+                        Duration.ofMinutes(30), START_TIME.plusMinutes(15L * random.nextInt(64))));
+                manager.getTask(id);
+            }
+        });
+
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        assertEquals(ids.size(), prioritized.size(), "every task should stay scheduled once");
+        assertNoOverlaps(prioritized);
+        for (Task task : prioritized) {
+            assertEquals(task, manager.getTask(task.getId()), "schedule should hold the stored instance");
+        }
+        assertEquals(1, manager.getOverlappingTasks(prioritized.getFirst().getStartTime(),
+                prioritized.getFirst().getEndTime()).size(), "index should follow the updates");
+    }
+
+    @Test
+    public void testDeletedTaskDoesNotReturnToHistory() throws Exception {
+        int id = manager.addNewTask(new Task("Task", "Viewed and deleted", TaskStatus.NEW, TaskType.TASK));
+        CountDownLatch viewing = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> views = executor.submit(() -> {
+                viewing.countDown();
+                for (int i = 0; i < 10_000; i++) {
+                    manager.getTask(id);
+                }
+            });
+            viewing.await();
+            manager.deleteTask(id);
+            views.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertNull(manager.getTask(id), "task should be deleted");
+        assertFalse(manager.getHistory().stream().anyMatch(task -> task.getId() == id),
+                "deleted task should not be in history");
+    }
+
+    @Test
+    public void testImportDoesNotReuseIdsOfConcurrentAdds() throws Exception {
+        int count = 2000;
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(new Task("Imported " + i, "Batch", TaskStatus.NEW, TaskType.TASK));
+        }
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        runConcurrently(thread -> {
+            if (thread == 0) {
+                for (ImportResult result : manager.importTasks(batch)) {
+                    assertTrue(ids.add(result.id()), "imported ids should be unique");
+                }
+            } else if (thread == 1) {
+                for (int i = 0; i < count; i++) {
+                    assertTrue(ids.add(manager.addNewTask(new Task("Added " + i, "Single", TaskStatus.NEW,
+                            TaskType.TASK))), "added ids should be unique");
+                }
+            }
+        });
+
+        assertEquals(2 * count, manager.getTasks().size(), "no task should overwrite another");
+    }
+
+    @Test
+    public void testCommitPublishesEachEpicOnce() throws Exception {
+        int epicId = manager.addNewEpic(new Epic("Epic", "Changed as a whole"));
+        List<Integer> subtaskIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            subtaskIds.add(manager.addNewSubtask(new Subtask("Subtask " + i, "Committed", TaskStatus.NEW, epicId)));
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        runConcurrently(thread -> {
+            if (thread == 0) {
+                for (int round = 0; round < 200; round++) {
+                    TaskStatus status = round % 2 == 0 ? TaskStatus.DONE : TaskStatus.NEW;
+                    TaskTransaction transaction = new TaskTransaction();
+                    for (int i = 0; i < subtaskIds.size(); i++) {
+                        transaction.update(new Subtask(subtaskIds.get(i), "Subtask " + i, "Committed", status,
+                                epicId, null, null));
+                    }
+                    manager.commit(transaction);
+                }
+                done.set(true);
+            } else {
+                while (!done.get()) {
+                    Epic epic = manager.getEpics().getFirst();
+                    assertNotEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "epic should never be half changed");
+                    assertEquals(subtaskIds.size(), epic.getSubtaskIds().size());
+                }
+            }
+        });
+    }
+
+    private static void assertNoOverlaps(List<Task> prioritized) {
+        for (int i = 1; i < prioritized.size(); i++) {
+            assertFalse(prioritized.get(i - 1).getEndTime().isAfter(prioritized.get(i).getStartTime()),
+                    "prioritized tasks should not overlap");
+        }
+    }
+
+    private static void runConcurrently(ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    body.run(thread);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int thread);
+    }
+}
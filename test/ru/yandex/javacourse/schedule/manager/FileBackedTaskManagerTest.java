@@ -13,10 +13,13 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class FileBackedTaskManagerTest extends TaskManagersTest<FileBackedTaskManager> {
     private static final LocalDateTime SUBTASK_START_TIME = LocalDateTime.parse("2025-09-10T21:42:27");
@@ -71,6 +74,99 @@ public class FileBackedTaskManagerTest extends TaskManagersTest<FileBackedTaskMa
         assertEquals(SUBTASK_DURATION_MINUTES, subtask.getDuration().toMinutes());
     }
 
+    @Test
+    public void testLoadLargeFileInChunks() throws IOException {
+        Path path = tempDir.resolve("large.csv");
+        List<String> lines = new ArrayList<>();
+        lines.add("id,type,name,status,description,epic,duration,startTime");
+        int epics = 1000;
+        int subtasksPerEpic = 30;
+        for (int epic = 0; epic < epics; epic++) {
+            int epicId = 10 + epic * (subtasksPerEpic + 1);
+            for (int subtask = 1; subtask <= subtasksPerEpic; subtask++) {
+                lines.add((epicId + subtask) + ",SUBTASK,Subtask,DONE,Description of a subtask in a large file,"
+                        + epicId + ",15," + SUBTASK_START_TIME.plusMinutes(15L * (epicId + subtask)));
+            }
+            // epics follow their subtasks, the way save() writes them
+            lines.add(epicId + ",EPIC,Epic,NEW,Description epic,,,");
+        }
+        Files.write(path, lines);
+        List<Long> progress = new ArrayList<>();
+        LoadReport[] report = new LoadReport[1];
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(path.toFile(), new LoadListener() {
+            @Override
+            public synchronized void onProgress(long loadedBytes, long totalBytes) {
+                progress.add(loadedBytes);
+            }
+
+            @Override
+            public void onLoaded(LoadReport loadReport) {
+                report[0] = loadReport;
+            }
+        });
+
+        assertEquals(epics, loaded.getEpics().size());
+        assertEquals(epics * subtasksPerEpic, loaded.getSubtasks().size());
+        assertEquals(List.of(11, 12), loaded.getEpicSubtasks(10).stream().limit(2).map(Task::getId).toList(),
+                "ids from the file should be kept");
+        assertEquals(TaskStatus.DONE, loaded.getEpic(10).getStatus());
+        assertTrue(progress.size() > 1, "large files should be parsed in several chunks");
+        assertEquals(Files.size(path) - lines.getFirst().length() - 1, progress.stream().mapToLong(Long::longValue)
+                .max().orElseThrow());
+        assertEquals(epics * (subtasksPerEpic + 1), report[0].tasks());
+        assertTrue(report[0].peakHeapBytes() > 0);
+        int nextId = loaded.addNewTask(new Task("Task1", "Description task1", TaskStatus.NEW, TaskType.TASK));
+        assertEquals(10 + epics * (subtasksPerEpic + 1), nextId);
+    }
+
+    @Test
+    public void testLoadSkipsOverlappingTasks() throws IOException {
+        Path path = tempDir.resolve("overlapping.csv");
+        Files.write(path, List.of(
+                "id,type,name,status,description,epic,duration,startTime",
+                "1,TASK,Task1,NEW,Description task1,,60,2025-11-10T10:00",
+                "2,TASK,Task2,NEW,Overlaps task1,,60,2025-11-10T10:30",
+                "3,TASK,Task3,NEW,Right after task1,,60,2025-11-10T11:00"));
+        LoadReport[] report = new LoadReport[1];
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(path.toFile(), new LoadListener() {
+            @Override
+            public void onProgress(long loadedBytes, long totalBytes) {
+            }
+
+            @Override
+            public void onLoaded(LoadReport loadReport) {
+                report[0] = loadReport;
+            }
+        });
+
+        assertEquals(List.of(1, 3), loaded.getPrioritizedTasks().stream().map(Task::getId).toList());
+        assertEquals(1, report[0].rejected());
+    }
+
+    @Test
+    public void testImportIsJournaled() {
+        Path journalFile = tempDir.resolve("tasks.journal");
+        FileBackedTaskManager journaled = Managers.getJournaledTaskManager(journalFile);
+        List<Task> batch = new ArrayList<>();
+        batch.add(new Subtask("Subtask1", "Description subtask1", TaskStatus.DONE, 7));
+        batch.add(new Epic(7, "Epic1", "Description epic1"));
+        for (int i = 0; i < 10; i++) {
+            batch.add(new Task("Task" + i, "Description", TaskStatus.NEW, TaskType.TASK, Duration.ofMinutes(30),
+                    SUBTASK_START_TIME.plusHours(i)));
+        }
+        journaled.importTasks(batch);
+        journaled.close();
+
+        FileBackedTaskManager restored = FileBackedTaskManager.loadFromFile(journalFile.toFile());
+
+        assertEquals(10, restored.getTasks().size());
+        assertEquals(TaskStatus.DONE, restored.getEpics().getFirst().getStatus(),
+                "subtask listed before its epic should be restored");
+        restored.close();
+    }
+
     @Test
     public void testLoadFromEmptyFile() throws IOException {
         Path testCsv = Files.createTempFile("testCsv", ".csv");
@@ -104,6 +200,292 @@ public class FileBackedTaskManagerTest extends TaskManagersTest<FileBackedTaskMa
                         TaskType.TASK, Duration.ofDays(3), LocalDateTime.now().plusDays(10))));
     }
 
+    @Test
+    public void testJournalReplay() {
+        Path journalFile = tempDir.resolve("tasks.journal");
+        FileBackedTaskManager journaled = Managers.getJournaledTaskManager(journalFile);
+        int taskId = journaled.addNewTask(new Task("Task1", "Description task1", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofMinutes(30), LocalDateTime.parse("2025-11-10T21:42:27")));
+        int removedTaskId = journaled.addNewTask(new Task("Task2", "Description task2", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofMinutes(30), LocalDateTime.parse("2025-12-10T21:42:27")));
+        int epicId = journaled.addNewEpic(new Epic("Epic1", "Description epic1"));
+        int subtaskId = journaled.addNewSubtask(new Subtask("Subtask1", "Description subtask1", TaskStatus.NEW, epicId,
+                Duration.ofMinutes(SUBTASK_DURATION_MINUTES), SUBTASK_START_TIME));
+        Subtask updatedSubtask = new Subtask(subtaskId, "Subtask1", "Description subtask1", TaskStatus.DONE, epicId,
+                Duration.ofMinutes(SUBTASK_DURATION_MINUTES), SUBTASK_START_TIME);
+        journaled.updateSubtask(updatedSubtask);
+        journaled.deleteTask(removedTaskId);
+
+        FileBackedTaskManager restored = FileBackedTaskManager.loadFromFile(journalFile.toFile());
+
+        assertEquals(List.of(taskId), restored.getTasks().stream().map(Task::getId).toList());
+        assertEquals(TaskStatus.DONE, restored.getEpic(epicId).getStatus(), "epic status should be rebuilt from journal");
+        assertEquals(SUBTASK_START_TIME, restored.getSubtask(subtaskId).getStartTime());
+        assertEquals(2, restored.getPrioritizedTasks().size());
+        int nextId = restored.addNewTask(new Task("Task3", "Description task3", TaskStatus.NEW, TaskType.TASK));
+        assertEquals(subtaskId + 1, nextId, "ids should continue after replayed ones");
+    }
+
+    @Test
+    public void testJournalReplaysTransaction() {
+        Path journalFile = tempDir.resolve("tasks.journal");
+        FileBackedTaskManager journaled = Managers.getJournaledTaskManager(journalFile);
+        int removedId = journaled.addNewTask(new Task("Removed", "Stored", TaskStatus.NEW, TaskType.TASK));
+        TaskTransaction transaction = new TaskTransaction();
+        int epicId = transaction.add(new Epic("Epic", "Transaction"));
+        for (int i = 0; i < 5; i++) {
+            transaction.add(new Subtask("Subtask" + i, "Transaction", TaskStatus.DONE, epicId,
+                    Duration.ofMinutes(30), SUBTASK_START_TIME.plusHours(i)));
+        }
+        transaction.delete(TaskType.TASK, removedId);
+        List<Integer> ids = journaled.commit(transaction);
+        journaled.close();
+
+        FileBackedTaskManager restored = FileBackedTaskManager.loadFromFile(journalFile.toFile());
+        assertTrue(restored.getTasks().isEmpty());
+        assertEquals(TaskStatus.DONE, restored.getEpic(ids.getFirst()).getStatus());
+        assertEquals(ids.subList(1, 6), restored.getSubtasks().stream().map(Task::getId).sorted().toList());
+    }
+
+    @Test
+    public void testJournalDropsTransactionCutShort() throws IOException {
+        Path journalFile = tempDir.resolve("tasks.journal");
+        FileBackedTaskManager journaled = Managers.getJournaledTaskManager(journalFile);
+        int keptId = journaled.addNewTask(new Task("Kept", "Stored", TaskStatus.NEW, TaskType.TASK));
+        TaskTransaction transaction = new TaskTransaction();
+        int epicId = transaction.add(new Epic("Epic", "Half written"));
+        for (int i = 0; i < 5; i++) {
+            transaction.add(new Subtask("Subtask" + i, "Half written", TaskStatus.DONE, epicId));
+        }
+        transaction.delete(TaskType.TASK, keptId);
+        journaled.commit(transaction);
+        journaled.close();
+        List<String> lines = Files.readAllLines(journalFile);
+        // a crash after the group start, the epic and two of its subtasks reached the file
+        Files.write(journalFile, lines.subList(0, lines.size() - 4));
+
+        FileBackedTaskManager restored = FileBackedTaskManager.loadFromFile(journalFile.toFile());
+        assertEquals(List.of(keptId), restored.getTasks().stream().map(Task::getId).toList());
+        assertTrue(restored.getEpics().isEmpty(), "no part of the transaction should be replayed");
+        assertTrue(restored.getSubtasks().isEmpty());
+        int addedId = restored.addNewTask(new Task("Added", "After restart", TaskStatus.NEW, TaskType.TASK));
+        restored.close();
+
+        FileBackedTaskManager reopened = FileBackedTaskManager.loadFromFile(journalFile.toFile());
+        assertEquals(List.of(keptId, addedId), reopened.getTasks().stream().map(Task::getId).sorted().toList(),
+                "records written after the dropped group should replay");
+        assertTrue(reopened.getEpics().isEmpty());
+        reopened.close();
+    }
+
+    @Test
+    public void testJournalAppendsOneRecordPerMutation() throws IOException {
+        Path journalFile = tempDir.resolve("tasks.journal");
+        FileBackedTaskManager journaled = Managers.getJournaledTaskManager(journalFile);
+        int epicId = journaled.addNewEpic(new Epic("Epic1", "Description epic1"));
+        journaled.addNewSubtask(new Subtask("Subtask1", "Description subtask1", TaskStatus.NEW, epicId));
+        journaled.addNewSubtask(new Subtask("Subtask2", "Description subtask2", TaskStatus.NEW, epicId));
+        long linesBefore = Files.readAllLines(journalFile).size();
+
+        journaled.deleteSubtasks();
+
+        List<String> lines = Files.readAllLines(journalFile);
+        assertEquals(linesBefore + 1, lines.size(), "bulk delete should be journaled as a single record");
+        assertEquals("4,CLEAR,SUBTASK", lines.getLast());
+        assertTrue(FileBackedTaskManager.loadFromFile(journalFile.toFile()).getSubtasks().isEmpty());
+    }
+
+    @Test
+    public void testHistorySurvivesRestart() {
+        Path journalFile = tempDir.resolve("tasks.journal");
+        FileBackedTaskManager journaled = Managers.getJournaledTaskManager(journalFile);
+        int taskId = journaled.addNewTask(new Task("Task1", "Description task1", TaskStatus.NEW, TaskType.TASK));
+        int epicId = journaled.addNewEpic(new Epic("Epic1", "Description epic1"));
+        int subtaskId = journaled.addNewSubtask(new Subtask("Subtask1", "Description subtask1", TaskStatus.NEW, epicId));
+        journaled.getEpic(epicId);
+        journaled.getTask(taskId);
+        journaled.getSubtask(subtaskId);
+        journaled.getEpic(epicId);
+        journaled.close();
+
+        FileBackedTaskManager restored = FileBackedTaskManager.loadFromFile(journalFile.toFile());
+
+        assertEquals(List.of(taskId, subtaskId, epicId), restored.getHistory().stream().map(Task::getId).toList());
+        restored.close();
+    }
+
+    @Test
+    public void testViewsDoNotRewriteStorage() throws IOException {
+        Path journalFile = tempDir.resolve("tasks.journal");
+        FileBackedTaskManager journaled = Managers.getJournaledTaskManager(journalFile);
+        int taskId = journaled.addNewTask(new Task("Task1", "Description task1", TaskStatus.NEW, TaskType.TASK));
+        List<String> journalBefore = Files.readAllLines(journalFile);
+
+        for (int i = 0; i < 5000; i++) {
+            journaled.getTask(taskId);
+        }
+        journaled.close();
+
+        assertEquals(journalBefore, Files.readAllLines(journalFile), "views should not touch the task journal");
+        assertTrue(Files.readAllLines(HistoryLog.pathFor(journalFile)).size() < 5000, "history log should be compacted");
+        assertEquals(List.of(taskId), FileBackedTaskManager.loadFromFile(journalFile.toFile()).getHistory().stream()
+                .map(Task::getId).toList());
+    }
+
+    @Test
+    public void testGroupCommitSyncBarrier() {
+        Path journalFile = tempDir.resolve("tasks.journal");
+        FileBackedTaskManager journaled = Managers.getJournaledTaskManager(journalFile,
+                Durability.group(Duration.ofMillis(50), 100));
+        for (int i = 0; i < 1000; i++) {
+            journaled.addNewTask(new Task("Task" + i, "Description", TaskStatus.NEW, TaskType.TASK));
+        }
+
+        journaled.sync().join();
+
+        assertEquals(1000, FileBackedTaskManager.loadFromFile(journalFile.toFile()).getTasks().size(),
+                "all records before the barrier should be on disk");
+        journaled.close();
+    }
+
+    @Test
+    public void testBufferedWritesFlushedOnClose() {
+        Path journalFile = tempDir.resolve("tasks.journal");
+        FileBackedTaskManager journaled = Managers.getJournaledTaskManager(journalFile, Durability.osBuffered());
+        int epicId = journaled.addNewEpic(new Epic("Epic1", "Description epic1"));
+        journaled.addNewSubtask(new Subtask("Subtask1", "Description subtask1", TaskStatus.DONE, epicId));
+
+        journaled.close();
+
+        FileBackedTaskManager restored = FileBackedTaskManager.loadFromFile(journalFile.toFile());
+        assertEquals(TaskStatus.DONE, restored.getEpic(epicId).getStatus());
+        assertTrue(journaled.sync().isCompletedExceptionally(), "closed journal should reject new writes");
+    }
+
+    @Test
+    public void testSnapshotReplaysOnlyTail() throws IOException {
+        Path journalFile = tempDir.resolve("tasks.journal");
+        FileBackedTaskManager journaled = Managers.getJournaledTaskManager(journalFile);
+        int epicId = journaled.addNewEpic(new Epic("Epic1", "Description epic1"));
+        int subtaskId = journaled.addNewSubtask(new Subtask("Subtask1", "Description subtask1", TaskStatus.NEW, epicId,
+                Duration.ofMinutes(SUBTASK_DURATION_MINUTES), SUBTASK_START_TIME));
+        int removedTaskId = journaled.addNewTask(new Task("Task1", "Description task1", TaskStatus.NEW, TaskType.TASK));
+        journaled.getSubtask(subtaskId);
+        journaled.getEpic(epicId);
+        journaled.compact().join();
+        journaled.deleteTask(removedTaskId);
+        journaled.getSubtask(subtaskId);
+        journaled.close();
+
+        List<String> journalLines = Files.readAllLines(journalFile);
+        assertEquals(2, journalLines.size(), "journal should only keep records after the snapshot");
+        assertTrue(Files.exists(TaskSnapshot.pathFor(journalFile)));
+        assertFalse(Files.exists(TaskSnapshot.archiveFor(journalFile)), "compacted records should be dropped");
+
+        FileBackedTaskManager restored = FileBackedTaskManager.loadFromFile(journalFile.toFile());
+        assertEquals(List.of(epicId, subtaskId), restored.getHistory().stream().map(Task::getId).toList());
+        assertTrue(restored.getTasks().isEmpty());
+        assertEquals(SUBTASK_START_TIME, restored.getEpic(epicId).getStartTime());
+        int nextId = restored.addNewTask(new Task("Task2", "Description task2", TaskStatus.NEW, TaskType.TASK));
+        assertEquals(removedTaskId + 1, nextId, "ids of deleted tasks should not be reused");
+        restored.close();
+    }
+
+    @Test
+    public void testCompactionTriggeredByThreshold() throws IOException {
+        Path journalFile = tempDir.resolve("tasks.journal");
+        FileBackedTaskManager journaled = Managers.getJournaledTaskManager(journalFile, Durability.osBuffered());
+        journaled.setCompactionThreshold(100);
+        for (int i = 0; i < 250; i++) {
+            journaled.addNewTask(new Task("Task" + i, "Description", TaskStatus.NEW, TaskType.TASK));
+        }
+        journaled.compact().join();
+        journaled.close();
+
+        assertTrue(Files.readAllLines(journalFile).size() < 100, "journal should stay bounded");
+        assertEquals(250, FileBackedTaskManager.loadFromFile(journalFile.toFile()).getTasks().size());
+    }
+
+    @Test
+    public void testRecoveryFromUnfinishedCompaction() throws IOException {
+        Path journalFile = tempDir.resolve("tasks.journal");
+        FileBackedTaskManager journaled = Managers.getJournaledTaskManager(journalFile);
+        int taskId = journaled.addNewTask(new Task("Task1", "Description task1", TaskStatus.NEW, TaskType.TASK));
+        journaled.close();
+        Files.move(journalFile, TaskSnapshot.archiveFor(journalFile));
+        Files.write(journalFile, TaskJournal.header(StorageFormat.CSV));
+
+        FileBackedTaskManager restored = FileBackedTaskManager.loadFromFile(journalFile.toFile());
+        restored.close();
+
+        assertEquals(List.of(taskId), restored.getTasks().stream().map(Task::getId).toList());
+        assertFalse(Files.exists(TaskSnapshot.archiveFor(journalFile)), "recovered records should be compacted");
+        assertEquals(1, FileBackedTaskManager.loadFromFile(journalFile.toFile()).getTasks().size());
+    }
+
+    @Test
+    public void testBinaryJournalRoundTrip() throws IOException {
+        Path journalFile = tempDir.resolve("tasks.journal");
+        FileBackedTaskManager journaled = Managers.getJournaledTaskManager(journalFile, Durability.perOperation(),
+                StorageFormat.BINARY);
+        int epicId = journaled.addNewEpic(new Epic("Epic, first", "Multi\nline"));
+        int subtaskId = journaled.addNewSubtask(new Subtask("Subtask1", null, TaskStatus.IN_PROGRESS, epicId,
+                Duration.ofMinutes(SUBTASK_DURATION_MINUTES), SUBTASK_START_TIME.withNano(123_000_000)));
+        int taskId = journaled.addNewTask(new Task("Задача", "Description task1", TaskStatus.NEW, TaskType.TASK));
+        journaled.getSubtask(subtaskId);
+        journaled.compact().join();
+        journaled.deleteTask(taskId);
+        journaled.getEpic(epicId);
+        journaled.close();
+
+        assertTrue(Files.readAllBytes(journalFile)[0] == '#', "binary files should keep the text header");
+        FileBackedTaskManager restored = FileBackedTaskManager.loadFromFile(journalFile.toFile());
+        assertEquals("Epic, first", restored.getEpic(epicId).getName());
+        assertEquals("Multi\nline", restored.getEpic(epicId).getDescription());
+        Subtask subtask = restored.getSubtask(subtaskId);
+        assertEquals(null, subtask.getDescription());
+        assertEquals(SUBTASK_START_TIME.withNano(123_000_000), subtask.getStartTime());
+        assertEquals(Duration.ofMinutes(SUBTASK_DURATION_MINUTES), subtask.getDuration());
+        assertEquals(TaskStatus.IN_PROGRESS, restored.getEpic(epicId).getStatus());
+        assertTrue(restored.getTasks().isEmpty());
+        restored.close();
+    }
+
+    @Test
+    public void testBinaryJournalIsSmallerThanCsv() throws IOException {
+        Path csvFile = tempDir.resolve("csv.journal");
+        Path binaryFile = tempDir.resolve("binary.journal");
+        try (FileBackedTaskManager csv = Managers.getJournaledTaskManager(csvFile, Durability.osBuffered());
+             FileBackedTaskManager binary = Managers.getJournaledTaskManager(binaryFile, Durability.osBuffered(),
+                     StorageFormat.BINARY)) {
+            for (int i = 0; i < 100; i++) {
+                Task task = new Task("Task" + i, "Description", TaskStatus.NEW, TaskType.TASK,
+                        Duration.ofMinutes(15), SUBTASK_START_TIME.plusHours(i));
+                csv.addNewTask(task);
+                binary.addNewTask(new Task(task.getName(), task.getDescription(), task.getStatus(), TaskType.TASK,
+                        task.getDuration(), task.getStartTime()));
+            }
+        }
+
+        assertTrue(Files.size(binaryFile) < Files.size(csvFile) * 2 / 3, "binary records should be compact");
+    }
+
+    @Test
+    public void testSeparatorsInNamesSurviveCsv() {
+        Path journalFile = tempDir.resolve("tasks.journal");
+        FileBackedTaskManager journaled = Managers.getJournaledTaskManager(journalFile);
+        int taskId = journaled.addNewTask(new Task("Buy milk, bread", "a\\b,\nc", TaskStatus.NEW, TaskType.TASK));
+        journaled.close();
+        manager.addNewTask(new Task("Buy milk, bread", "a\\b,\nc", TaskStatus.NEW, TaskType.TASK));
+
+        for (FileBackedTaskManager restored : List.of(FileBackedTaskManager.loadFromFile(journalFile.toFile()),
+                FileBackedTaskManager.loadFromFile(new File("tasks.csv")))) {
+            Task task = restored.getTask(taskId);
+            assertEquals("Buy milk, bread", task.getName());
+            assertEquals("a\\b,\nc", task.getDescription());
+        }
+    }
+
     @Test
     public void testReadingFromFileException() {
         assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(tempDir.toFile()));
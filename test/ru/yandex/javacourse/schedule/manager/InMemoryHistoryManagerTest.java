@@ -8,11 +8,22 @@ import ru.yandex.javacourse.schedule.tasks.Task;
 import ru.yandex.javacourse.schedule.tasks.TaskStatus;
 import ru.yandex.javacourse.schedule.tasks.TaskType;
 
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class InMemoryHistoryManagerTest extends TaskManagersTest<InMemoryTaskManager> {
@@ -25,6 +36,27 @@ public class InMemoryHistoryManagerTest extends TaskManagersTest<InMemoryTaskMan
         historyManager = Managers.getDefaultHistory();
     }
 
+    @Test
+    public void testTaskChangedInPlaceLeavesItsOldSlot() {
+        LocalDateTime start = LocalDateTime.of(2025, 10, 6, 9, 0);
+        int id = manager.addNewTask(new Task("Moved", "Changed in place", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start));
+        Task stored = manager.getTask(id);
+        stored.setStartTime(start.plusHours(3));
+        manager.updateTask(stored);
+
+        assertEquals(List.of(stored), manager.getPrioritizedTasks(), "task should be scheduled once");
+        assertEquals(List.of(stored), manager.getOverlappingTasks(start.plusHours(3), start.plusHours(4)));
+        assertTrue(manager.getOverlappingTasks(start, start.plusHours(1)).isEmpty(), "old slot should be free");
+        Task next = new Task("Next", "Takes the old slot", TaskStatus.NEW, TaskType.TASK, Duration.ofHours(1), start);
+        assertNotNull(manager.addNewTask(next), "old slot should be free");
+
+        manager.deleteTask(id);
+        manager.deleteTask(next.getId());
+        assertEquals(List.of(new TimeSlot(start, start.plusHours(6))),
+                manager.findFreeSlots(Duration.ofHours(1), start, start.plusHours(6), 5), "schedule should be empty");
+    }
+
     @Test
     public void testHistoricVersionsByPointer() {
         Task task = new Task(1, "Test 1", "Testing task 1", TaskStatus.NEW, TaskType.TASK, Duration.ofMinutes(20), LocalDateTime.now());
@@ -47,6 +79,24 @@ public class InMemoryHistoryManagerTest extends TaskManagersTest<InMemoryTaskMan
         assertEquals(1, historyManager.getHistory().size(), "historic task should be replaced with last one");
     }
 
+    @Test
+    public void testHistorySnapshotSharedUntilChange() {
+        List<Task> tasks = prepareTasks();
+        tasks.forEach(task -> historyManager.addTask(task));
+
+        List<Task> snapshot = historyManager.getHistorySnapshot();
+        assertSame(snapshot, historyManager.getHistorySnapshot(), "snapshot should be shared between reads");
+        historyManager.addTask(tasks.getLast());
+        assertSame(snapshot, historyManager.getHistorySnapshot(), "viewing the latest task should keep the snapshot");
+
+        historyManager.addTask(tasks.getFirst());
+        List<Task> changed = historyManager.getHistorySnapshot();
+        assertNotSame(snapshot, changed, "snapshot should be rebuilt after a change");
+        assertEquals(List.of(2, 1, 3), snapshot.stream().map(Task::getId).toList(), "old snapshot should not change");
+        assertEquals(historyManager.getHistory(), changed);
+        assertThrows(UnsupportedOperationException.class, () -> changed.add(tasks.getFirst()));
+    }
+
     @Test
     public void testHistoricOrder() {
         List<Task> tasks = prepareTasks();
@@ -81,6 +131,78 @@ public class InMemoryHistoryManagerTest extends TaskManagersTest<InMemoryTaskMan
         assertEquals(0, historyManager.getHistory().size());
     }
 
+    @Test
+    public void testBoundedHistoryEvictsLeastRecentlyViewed() {
+        HistoryManager bounded = Managers.getDefaultHistory(2);
+        List<Task> tasks = prepareTasks();
+        bounded.addTask(tasks.get(0));
+        bounded.addTask(tasks.get(1));
+        bounded.addTask(tasks.get(2));
+        bounded.addTask(tasks.get(3));
+        assertEquals(List.of(1, 3), bounded.getHistory().stream().map(Task::getId).toList(),
+                "least recently viewed task should be evicted");
+
+        TaskManager manager = Managers.getDefault(Managers.getDefaultHistory(1));
+        int first = manager.addNewTask(new Task("T1", "D1", TaskStatus.NEW, TaskType.TASK));
+        int second = manager.addNewTask(new Task("T2", "D2", TaskStatus.NEW, TaskType.TASK));
+        manager.getTask(first);
+        manager.getTask(second);
+        assertEquals(List.of(second), manager.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    public void testBoundedHistoryMatchesAccessOrder() {
+        int capacity = 64;
+        HistoryManager bounded = Managers.getDefaultHistory(capacity);
+        Map<Integer, Task> expected = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Task> eldest) {
+                return size() > capacity;
+            }
+        };
+        Random random = new Random(5);
+        for (int i = 0; i < 50_000; i++) {
+            int id = random.nextInt(200);
+            if (random.nextInt(10) == 0) {
+                bounded.remove(id);
+                expected.remove(id);
+            } else {
+                Task task = new Task(id, "T" + id, "D", TaskStatus.NEW, TaskType.TASK);
+                bounded.addTask(task);
+                expected.put(id, task);
+            }
+        }
+        assertEquals(List.copyOf(expected.keySet()), bounded.getHistory().stream().map(Task::getId).toList(),
+                "reused slots should keep the access order");
+        bounded.removeAll();
+        assertTrue(bounded.getHistory().isEmpty());
+        bounded.addTask(prepareTasks().getFirst());
+        assertEquals(1, bounded.getHistory().size(), "history should work after being cleared");
+    }
+
+    @Test
+    public void testHistoryExpiresOldViews() {
+        MutableClock clock = new MutableClock();
+        HistoryManager expiring = InMemoryHistoryManager.builder()
+                .expireAfterView(Duration.ofMinutes(10))
+                .clock(clock)
+                .build();
+        List<Task> tasks = prepareTasks();
+        expiring.addTask(tasks.get(0));
+        clock.advance(Duration.ofMinutes(6));
+        expiring.addTask(tasks.get(1));
+        List<Task> snapshot = expiring.getHistorySnapshot();
+        clock.advance(Duration.ofMinutes(5));
+        assertEquals(List.of(2), expiring.getHistory().stream().map(Task::getId).toList(), "old view should expire");
+        assertNotSame(snapshot, expiring.getHistorySnapshot(), "expiry should rebuild the snapshot");
+
+        expiring.addTask(tasks.get(1));
+        clock.advance(Duration.ofMinutes(9));
+        assertEquals(1, expiring.getHistory().size(), "viewing again should renew the view");
+        clock.advance(Duration.ofMinutes(1));
+        assertTrue(expiring.getHistory().isEmpty());
+    }
+
     private List<Task> prepareTasks() {
         return List.of(
                 new Task(1, "T1", "D1", TaskStatus.NEW, TaskType.TASK, Duration.ofMinutes(20), LocalDateTime.now().minusDays(1)),
@@ -89,4 +211,27 @@ public class InMemoryHistoryManagerTest extends TaskManagersTest<InMemoryTaskMan
                 new Task(3, "T3", "D3", TaskStatus.NEW, TaskType.TASK, Duration.ofMinutes(20), LocalDateTime.now().minusDays(4))
         );
     }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-09-10T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
 }
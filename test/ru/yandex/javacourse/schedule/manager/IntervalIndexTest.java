@@ -0,0 +1,124 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskStatus;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntervalIndexTest {
+    private static final LocalDateTime START = LocalDateTime.parse("2025-01-01T00:00:00");
+
+    @Test
+    public void testMatchesLinearScan() {
+        Random random = new Random(42);
+        IntervalIndex index = new IntervalIndex();
+        List<Task> indexed = new ArrayList<>();
+        for (int id = 1; id <= 2000; id++) {
+            Task task = task(id, random.nextInt(10_000), random.nextInt(5) == 0 ? -1 : random.nextInt(120));
+            index.add(task);
+            indexed.add(task);
+            if (random.nextInt(4) == 0) {
+                Task removed = indexed.remove(random.nextInt(indexed.size()));
+                index.remove(removed);
+            }
+        }
+
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime start = START.plusMinutes(random.nextInt(10_000));
+            LocalDateTime end = start.plusMinutes(random.nextInt(60));
+            List<Task> expected = indexed.stream()
+                    .filter(task -> task.getStartTime().equals(start)
+                            || (task.getStartTime().isBefore(end) && IntervalIndex.endOf(task).isAfter(start)))
+                    .sorted(Comparator.comparing(Task::getStartTime).thenComparingInt(Task::getId))
+                    .toList();
+            assertEquals(expected, index.findOverlaps(start, end));
+        }
+        assertEquals(indexed.size(), index.size());
+    }
+
+    @Test
+    public void testHundredThousandInserts() {
+        IntervalIndex index = new IntervalIndex();
+        for (int id = 1; id <= 100_000; id++) {
+            Task task = task(id, id * 10L, 10);
+            assertFalse(index.overlapsAny(task));
+            index.add(task);
+        }
+
+        assertTrue(index.overlapsAny(task(0, 500_005, 1)));
+        assertFalse(index.overlapsOthers(task(50_000, 500_000, 10)), "a task should not overlap itself");
+    }
+
+    @Test
+    public void testFreeSlotMatchesLinearScan() {
+        Random random = new Random(11);
+        IntervalIndex index = new IntervalIndex();
+        List<Task> indexed = new ArrayList<>();
+        for (int id = 1; id <= 1000; id++) {
+            Task task = task(id, random.nextInt(20_000), random.nextInt(5) == 0 ? -1 : random.nextInt(60));
+            if (!index.overlapsAny(task)) {
+                index.add(task);
+                indexed.add(task);
+            }
+            if (random.nextInt(5) == 0) {
+                index.remove(indexed.remove(random.nextInt(indexed.size())));
+            }
+        }
+
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime notBefore = START.plusMinutes(random.nextInt(21_000));
+            Duration duration = Duration.ofMinutes(random.nextInt(40));
+            // the earliest free start is either the lower bound or the end of some task
+            LocalDateTime expected = indexed.stream()
+                    .map(task -> IntervalIndex.endOf(task).equals(task.getStartTime())
+                            ? task.getStartTime().plusNanos(1) : IntervalIndex.endOf(task))
+                    .filter(time -> !time.isBefore(notBefore))
+                    .filter(time -> !index.overlapsAny(new Task(0, "Probe", "", TaskStatus.NEW, TaskType.TASK,
+                            duration, time)))
+                    .min(Comparator.naturalOrder())
+                    .orElse(notBefore);
+            if (!index.overlapsAny(new Task(0, "Probe", "", TaskStatus.NEW, TaskType.TASK, duration, notBefore))) {
+                expected = notBefore;
+            }
+            TimeSlot slot = index.findFreeSlot(notBefore, duration);
+            assertEquals(expected, slot.start());
+            if (slot.end() != null) {
+                assertFalse(slot.start().plus(duration).isAfter(slot.end()), "the duration should fit the gap");
+            }
+        }
+    }
+
+    @Test
+    public void testFreeSlotsWithinWindow() {
+        IntervalIndex index = new IntervalIndex();
+        index.add(task(1, 60, 30));
+        index.add(task(2, 100, 20));
+        index.add(task(3, 120, -1));
+        List<TimeSlot> slots = index.findFreeSlots(Duration.ofMinutes(10), START, START.plusMinutes(180), 10);
+        assertEquals(List.of(
+                new TimeSlot(START, START.plusMinutes(60)),
+                new TimeSlot(START.plusMinutes(90), START.plusMinutes(100)),
+                new TimeSlot(START.plusMinutes(120).plusNanos(1), START.plusMinutes(180))), slots);
+        assertEquals(slots.subList(0, 1), index.findFreeSlots(Duration.ofMinutes(10), START,
+                START.plusMinutes(180), 1));
+        assertEquals(List.of(new TimeSlot(START, START.plusMinutes(60))),
+                index.findFreeSlots(Duration.ofMinutes(45), START, START.plusMinutes(160), 10),
+                "short gaps and a tail shorter than the duration should be skipped");
+    }
+
+    private static Task task(int id, long startMinute, int durationMinutes) {
+        return new Task(id, "Task" + id, "Description", TaskStatus.NEW, TaskType.TASK,
+                durationMinutes < 0 ? null : Duration.ofMinutes(durationMinutes), START.plusMinutes(startMinute));
+    }
+}
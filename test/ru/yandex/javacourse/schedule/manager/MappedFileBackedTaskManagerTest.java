@@ -0,0 +1,125 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.javacourse.schedule.tasks.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedFileBackedTaskManagerTest extends TaskManagersTest<MappedFileBackedTaskManager> {
+    private static final LocalDateTime START_TIME = LocalDateTime.parse("2025-09-10T21:42:27.5");
+
+    @TempDir
+    Path tempDir;
+
+    private Path storageFile;
+
+    @BeforeEach
+    public void init() {
+        storageFile = tempDir.resolve("tasks.mapped");
+        manager = Managers.getMappedTaskManager(storageFile);
+    }
+
+    @AfterEach
+    public void closeManager() {
+        manager.close();
+    }
+
+    @Test
+    public void testReopenRestoresTasks() {
+        int taskId = manager.addNewTask(new Task("Task1", null, TaskStatus.NEW, TaskType.TASK,
+                Duration.ofMinutes(30), START_TIME));
+        int epicId = manager.addNewEpic(new Epic("Epic, first", "Описание"));
+        int subtaskId = manager.addNewSubtask(new Subtask("Subtask1", "Description subtask1", TaskStatus.DONE, epicId,
+                Duration.ofMinutes(15), START_TIME.plusHours(1)));
+        manager.close();
+
+        manager = MappedFileBackedTaskManager.open(storageFile);
+
+        Task task = manager.getTask(taskId);
+        assertNull(task.getDescription());
+        assertEquals(START_TIME, task.getStartTime());
+        assertEquals(Duration.ofMinutes(30), task.getDuration());
+        assertEquals("Описание", manager.getEpic(epicId).getDescription());
+        assertEquals(TaskStatus.DONE, manager.getEpic(epicId).getStatus(), "epic status should be rebuilt");
+        assertEquals(List.of(subtaskId), manager.getEpic(epicId).getSubtaskIds());
+        assertEquals(2, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    public void testUpdateOverwritesSlotInPlace() throws IOException {
+        int taskId = manager.addNewTask(new Task("Task1", "Description task1", TaskStatus.NEW, TaskType.TASK));
+        manager.sync();
+        long slotFileSize = Files.size(storageFile);
+        long heapFileSize = Files.size(MappedTaskStore.heapPathFor(storageFile));
+
+        for (int i = 0; i < 100; i++) {
+            manager.updateTask(new Task(taskId, "Task1", "Description task1",
+                    i % 2 == 0 ? TaskStatus.DONE : TaskStatus.IN_PROGRESS, TaskType.TASK));
+        }
+        manager.close();
+
+        assertEquals(slotFileSize, Files.size(storageFile));
+        assertEquals(heapFileSize, Files.size(MappedTaskStore.heapPathFor(storageFile)));
+        manager = MappedFileBackedTaskManager.open(storageFile);
+        assertEquals(TaskStatus.IN_PROGRESS, manager.getTask(taskId).getStatus());
+    }
+
+    @Test
+    public void testDeletedSlotsAreReused() {
+        MappedTaskStore store = MappedTaskStore.open(tempDir.resolve("store.mapped"));
+        for (int id = 1; id <= 3; id++) {
+            store.put(new Task(id, "Task" + id, "Description", TaskStatus.NEW, TaskType.TASK));
+        }
+        store.remove(2);
+        store.put(new Task(4, "Task4", "Description", TaskStatus.NEW, TaskType.TASK));
+
+        assertEquals(3, store.getUsedSlots(), "tombstoned slot should be taken by the next task");
+        assertEquals(3, store.size());
+        assertEquals(4, store.getLastId());
+        store.close();
+    }
+
+    @Test
+    public void testDeletedIdsAreNotReusedAfterReopen() {
+        int epicId = manager.addNewEpic(new Epic("Epic1", "Description epic1"));
+        int subtaskId = manager.addNewSubtask(new Subtask("Subtask1", "Description subtask1", TaskStatus.NEW, epicId));
+        manager.deleteEpic(epicId);
+        manager.close();
+
+        manager = MappedFileBackedTaskManager.open(storageFile);
+
+        assertTrue(manager.getEpics().isEmpty());
+        assertTrue(manager.getSubtasks().isEmpty(), "subtasks of a deleted epic should be tombstoned too");
+        int nextId = manager.addNewTask(new Task("Task1", "Description task1", TaskStatus.NEW, TaskType.TASK));
+        assertEquals(subtaskId + 1, nextId);
+    }
+
+    @Test
+    public void testHeapIsPackedWhenMostlyGarbage() {
+        Path file = tempDir.resolve("store.mapped");
+        MappedTaskStore store = MappedTaskStore.open(file);
+        String longDescription = "x".repeat(1000);
+        for (int i = 0; i < 500; i++) {
+            store.put(new Task(1, "Task1", longDescription + i, TaskStatus.NEW, TaskType.TASK));
+        }
+
+        assertTrue(store.getHeapUsed() < 100 * 1024, "replaced strings should be dropped from the heap");
+        store.close();
+        MappedTaskStore reopened = MappedTaskStore.open(file);
+        reopened.forEach(task -> assertEquals(longDescription + 499, task.getDescription()));
+        assertEquals(1, reopened.size());
+        reopened.close();
+    }
+}
@@ -0,0 +1,174 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.schedule.tasks.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentTaskManagerTest extends TaskManagersTest<PersistentTaskManager> {
+    private static final LocalDateTime START_TIME = LocalDateTime.parse("2025-10-06T09:00");
+
+    @BeforeEach
+    public void init() {
+        manager = Managers.getPersistentTaskManager();
+    }
+
+    @Override
+    protected boolean allowsChangesInPlace() {
+        return false;
+    }
+
+    @Test
+    public void testSnapshotIsIndependent() {
+        int taskId = manager.addNewTask(new Task("Task", "Before", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), START_TIME));
+        int epicId = manager.addNewEpic(new Epic("Epic", "Before"));
+        manager.addNewSubtask(new Subtask("Subtask", "Before", TaskStatus.NEW, epicId));
+
+        PersistentTaskManager snapshot = manager.snapshot();
+        manager.deleteTask(taskId);
+        manager.addNewSubtask(new Subtask("Done", "After", TaskStatus.DONE, epicId));
+        snapshot.addNewTask(new Task("Only in snapshot", "After", TaskStatus.NEW, TaskType.TASK));
+
+        assertEquals(List.of(taskId), snapshot.getPrioritizedTasks().stream().map(Task::getId).toList());
+        assertEquals(TaskStatus.NEW, snapshot.getEpic(epicId).getStatus(), "published epics should not change");
+        assertEquals(1, snapshot.getEpicSubtasks(epicId).size());
+        assertEquals(2, snapshot.getTasks().size());
+        assertEquals(TaskStatus.IN_PROGRESS, manager.getEpic(epicId).getStatus());
+        assertTrue(manager.getTasks().isEmpty(), "changes of the snapshot should not leak back");
+        assertEquals(List.of(epicId), snapshot.getHistory().stream().map(Task::getId).toList(),
+                "the snapshot should have a history of its own");
+    }
+
+    @Test
+    public void testUndoRedo() {
+        int epicId = manager.addNewEpic(new Epic("Epic", "Undone"));
+        TaskTransaction transaction = new TaskTransaction();
+        for (int i = 0; i < 3; i++) {
+            transaction.add(new Subtask("Subtask " + i, "Committed", TaskStatus.DONE, epicId, Duration.ofMinutes(30),
+                    START_TIME.plusHours(i)));
+        }
+        List<Integer> subtaskIds = manager.commit(transaction);
+        manager.getSubtask(subtaskIds.getFirst());
+        assertEquals(TaskStatus.DONE, manager.getEpic(epicId).getStatus());
+
+        assertTrue(manager.undo(), "the whole transaction should be undone at once");
+        assertTrue(manager.getSubtasks().isEmpty());
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+        assertEquals(TaskStatus.NEW, manager.getEpic(epicId).getStatus());
+        assertEquals(List.of(epicId), manager.getHistory().stream().map(Task::getId).toList(),
+                "undone tasks should leave the history");
+
+        assertTrue(manager.redo());
+        assertEquals(subtaskIds, manager.getEpicSubtasks(epicId).stream().map(Task::getId).toList());
+        assertEquals(3, manager.getPrioritizedTasks().size());
+        assertFalse(manager.redo(), "nothing should be left to redo");
+
+        manager.undo();
+        manager.addNewTask(new Task("Task", "New change", TaskStatus.NEW, TaskType.TASK));
+        assertFalse(manager.redo(), "a new change should discard the redo");
+        assertNotNull(manager.addNewTask(new Task("Scheduled", "Takes the slot", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), START_TIME)));
+        assertNull(manager.addNewTask(new Task("Overlap", "Rejected", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), START_TIME)));
+        assertTrue(manager.undo());
+        assertTrue(manager.undo(), "rejected changes should not be undo steps");
+        assertTrue(manager.undo());
+        assertTrue(manager.getEpics().isEmpty());
+        assertFalse(manager.undo());
+    }
+
+    @Test
+    public void testSearchFollowsVersions() {
+        int taskId = manager.addNewTask(new Task("Pay invoice", "Before Friday", TaskStatus.NEW, TaskType.TASK));
+        assertEquals(List.of(taskId), manager.searchTasks("invoice", 10));
+
+        PersistentTaskManager snapshot = manager.snapshot();
+        manager.updateTask(new Task(taskId, "Pay rent", "Before Friday", TaskStatus.NEW, TaskType.TASK));
+        assertTrue(manager.searchTasks("invoice", 10).isEmpty(), "renamed task should be reindexed");
+        assertEquals(List.of(taskId), manager.searchTasks("rent", 10));
+        assertEquals(List.of(taskId), snapshot.searchTasks("invoice", 10), "snapshot should search its version");
+
+        manager.undo();
+        assertEquals(List.of(taskId), manager.searchTasks("invoice", 10), "undo should be searchable");
+        manager.deleteTask(taskId);
+        assertTrue(manager.searchTasks("friday", 10).isEmpty());
+    }
+
+    @Test
+    public void testUndoLimit() {
+        PersistentTaskManager limited = new PersistentTaskManager(Managers.getDefaultHistory(), 2);
+        for (int i = 0; i < 5; i++) {
+            limited.addNewTask(new Task("Task " + i, "Limited", TaskStatus.NEW, TaskType.TASK));
+        }
+        assertTrue(limited.undo());
+        assertTrue(limited.undo());
+        assertFalse(limited.undo(), "only the last two changes should be kept");
+        assertEquals(3, limited.getTasks().size());
+        assertThrows(IllegalArgumentException.class, () -> new PersistentTaskManager(Managers.getDefaultHistory(), -1));
+    }
+
+    @Test
+    public void testReadersSeeWholeVersions() throws Exception {
+        int first = manager.addNewEpic(new Epic("First", "Moved from"));
+        int second = manager.addNewEpic(new Epic("Second", "Moved to"));
+        List<Integer> subtaskIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            subtaskIds.add(manager.addNewSubtask(new Subtask("Subtask " + i, "Moved", TaskStatus.NEW, first,
+                    Duration.ofMinutes(30), START_TIME.plusHours(i))));
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                try {
+                    for (int round = 0; round < 200; round++) {
+                        int to = round % 2 == 0 ? second : first;
+                        TaskStatus status = round % 2 == 0 ? TaskStatus.DONE : TaskStatus.NEW;
+                        TaskTransaction move = new TaskTransaction();
+                        for (int i = 0; i < subtaskIds.size(); i++) {
+                            move.update(new Subtask(subtaskIds.get(i), "Subtask " + i, "Moved", status, to,
+                                    Duration.ofMinutes(30), START_TIME.plusHours(i)));
+                        }
+                        manager.commit(move);
+                    }
+                } finally {
+                    done.set(true);
+                }
+                return null;
+            });
+            List<Future<?>> readers = new ArrayList<>();
+            for (int thread = 0; thread < 2; thread++) {
+                readers.add(executor.submit(() -> {
+                    while (!done.get()) {
+                        PersistentTaskManager snapshot = manager.snapshot();
+                        int linked = 0;
+                        for (Epic epic : snapshot.getEpics()) {
+                            linked += epic.getSubtaskIds().size();
+                            TaskStatus expected = epic.getSubtaskIds().isEmpty() ? TaskStatus.NEW
+                                    : snapshot.getEpicSubtasks(epic.getId()).getFirst().getStatus();
+                            assertEquals(expected, epic.getStatus(), "an epic should match its subtasks");
+                        }
+                        assertEquals(subtaskIds.size(), linked, "every subtask should be linked once");
+                        assertEquals(subtaskIds.size(), snapshot.getPrioritizedTasks().size());
+                    }
+                    return null;
+                }));
+            }
+            writer.get(30, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.schedule.tasks.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskEventPublisherTest {
+
+    @Test
+    public void testManagerPublishesChanges() throws Exception {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Collector collector = new Collector(Long.MAX_VALUE);
+        manager.subscribe(collector);
+        collector.subscribed.await(5, TimeUnit.SECONDS);
+
+        int taskId = manager.addNewTask(new Task("Task", "Watched", TaskStatus.NEW, TaskType.TASK));
+        int epicId = manager.addNewEpic(new Epic("Epic", "Watched"));
+        int subtaskId = manager.addNewSubtask(new Subtask("Subtask", "Watched", TaskStatus.DONE, epicId));
+        manager.updateTask(new Task(taskId, "Task", "Changed", TaskStatus.IN_PROGRESS, TaskType.TASK));
+        manager.deleteSubtask(subtaskId);
+        manager.deleteTasks();
+
+        List<TaskEvent> events = collector.await(8);
+        assertEquals(List.of(TaskEvent.Kind.CREATED, TaskEvent.Kind.CREATED, TaskEvent.Kind.CREATED,
+                TaskEvent.Kind.EPIC_STATUS_CHANGED, TaskEvent.Kind.UPDATED, TaskEvent.Kind.DELETED,
+                TaskEvent.Kind.EPIC_STATUS_CHANGED, TaskEvent.Kind.CLEARED),
+                events.stream().map(TaskEvent::kind).toList());
+        assertEquals(List.of(taskId, epicId, subtaskId, epicId, taskId, subtaskId, epicId),
+                events.subList(0, 7).stream().map(TaskEvent::taskId).toList());
+        assertEquals(TaskStatus.DONE, events.get(3).task().getStatus(), "the event should keep the status it reports");
+        assertEquals(TaskStatus.NEW, events.get(3).previousStatus());
+        assertEquals(TaskStatus.NEW, events.get(6).task().getStatus(), "the epic should be NEW again");
+        assertEquals(TaskStatus.DONE, events.get(6).previousStatus());
+        assertEquals("Changed", events.get(4).task().getDescription());
+        assertEquals("Watched", events.get(0).task().getDescription(), "the event should keep the task it reports");
+        assertEquals(TaskEvent.cleared(TaskType.TASK), events.get(7));
+    }
+
+    @Test
+    public void testSlowSubscriberGetsEverythingInOrder() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            TaskEventPublisher publisher = new TaskEventPublisher(executor, 2, 16);
+            Collector collector = new Collector(1);
+            publisher.subscribe(collector);
+            collector.subscribed.await(5, TimeUnit.SECONDS);
+            int count = 2_000;
+            for (int id = 1; id <= count; id++) {
+                publisher.publish(TaskEvent.of(TaskEvent.Kind.CREATED,
+                        new Task(id, "Task", "", TaskStatus.NEW, TaskType.TASK)));
+            }
+            publisher.close();
+            assertTrue(collector.completed.await(30, TimeUnit.SECONDS), "closing should complete subscribers");
+
+            List<Integer> ids = collector.events.stream().map(TaskEvent::taskId).toList();
+            assertEquals(count, ids.size(), "backpressure should not drop events");
+            for (int i = 0; i < count; i++) {
+                assertEquals(Integer.valueOf(i + 1), ids.get(i));
+            }
+            assertTrue(collector.batches.get() < count, "events should be delivered in batches");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDropsEventsWithoutSubscribers() {
+        TaskEventPublisher publisher = new TaskEventPublisher();
+        publisher.publish(TaskEvent.cleared(TaskType.TASK));
+        assertFalse(publisher.hasSubscribers());
+        publisher.close();
+    }
+
+    /**
+     * Requests {@code demand} batches at a time.
+     */
+    private static final class Collector implements Flow.Subscriber<List<TaskEvent>> {
+        private final long demand;
+        private final List<TaskEvent> events = new CopyOnWriteArrayList<>();
+        private final AtomicInteger batches = new AtomicInteger();
+        private final CountDownLatch subscribed = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+        private long received;
+
+        private Collector(long demand) {
+            this.demand = demand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(demand);
+            subscribed.countDown();
+        }
+
+        @Override
+        public void onNext(List<TaskEvent> batch) {
+            events.addAll(batch);
+            batches.incrementAndGet();
+            if (demand != Long.MAX_VALUE && ++received % demand == 0) {
+                subscription.request(demand);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        List<TaskEvent> await(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            return new ArrayList<>(events);
+        }
+    }
+}
@@ -11,8 +11,10 @@ import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.NavigableSet;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,6 +28,13 @@ public abstract class TaskManagersTest<T extends TaskManager> {
         Files.deleteIfExists(TASKS_FILE);
     }
 
+    /**
+     * Managers whose stored tasks should not be modified by callers skip the cases changing them in place.
+     */
+    protected boolean allowsChangesInPlace() {
+        return true;
+    }
+
     @Test
     public void testAddTask() {
         Task task = new Task("Test 1", "Testing task 1", TaskStatus.NEW, TaskType.TASK);
@@ -179,6 +188,384 @@ public abstract class TaskManagersTest<T extends TaskManager> {
         assertTrue(prioritizedTasks.isEmpty());
     }
 
+    @Test
+    public void testEpicStatusFollowsSubtasks() {
+        int epicId = manager.addNewEpic(new Epic("Epic 1", "Status source"));
+        int otherEpicId = manager.addNewEpic(new Epic("Epic 2", "Move target"));
+        Subtask first = new Subtask("Sub1", "First", TaskStatus.NEW, epicId);
+        manager.addNewSubtask(first);
+        int secondId = manager.addNewSubtask(new Subtask("Sub2", "Second", TaskStatus.DONE, epicId));
+        assertEquals(TaskStatus.IN_PROGRESS, manager.getEpic(epicId).getStatus(), "mixed statuses are in progress");
+
+        first.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(first);
+        assertEquals(TaskStatus.DONE, manager.getEpic(epicId).getStatus(), "status changed in place should count");
+
+        manager.updateSubtask(new Subtask(secondId, "Sub2", "Moved", TaskStatus.IN_PROGRESS, otherEpicId, null, null));
+        assertEquals(List.of(first.getId()), manager.getEpic(epicId).getSubtaskIds());
+        assertEquals(TaskStatus.DONE, manager.getEpic(epicId).getStatus(), "moved subtask should be uncounted");
+        assertEquals(TaskStatus.IN_PROGRESS, manager.getEpic(otherEpicId).getStatus());
+
+        manager.deleteSubtask(secondId);
+        assertEquals(TaskStatus.NEW, manager.getEpic(otherEpicId).getStatus(), "epic without subtasks should be new");
+    }
+
+    @Test
+    public void testSubtaskWithoutStatusCountsAsNew() {
+        int epicId = manager.addNewEpic(new Epic("Epic", "Status source"));
+        Integer subtaskId = manager.addNewSubtask(new Subtask("Sub", "No status", null, epicId));
+        assertNotNull(subtaskId, "subtask without a status should be added");
+        assertEquals(TaskStatus.NEW, manager.getEpic(epicId).getStatus());
+        assertEquals(List.of(subtaskId), manager.getEpic(epicId).getSubtaskIds());
+
+        manager.addNewSubtask(new Subtask("Done", "Status", TaskStatus.DONE, epicId));
+        assertEquals(TaskStatus.IN_PROGRESS, manager.getEpic(epicId).getStatus());
+        manager.deleteSubtask(subtaskId);
+        assertEquals(TaskStatus.DONE, manager.getEpic(epicId).getStatus(), "removed subtask should be uncounted");
+        assertTrue(manager.getSubtasks(TaskStatus.NEW).isEmpty());
+    }
+
+    @Test
+    public void testPrioritizedWindowAndPages() {
+        LocalDateTime start = LocalDateTime.parse("2025-09-10T10:00:00");
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(manager.addNewTask(new Task("Task " + i, "Hourly", TaskStatus.NEW, TaskType.TASK,
+                    Duration.ofMinutes(30), start.plusHours(i))));
+        }
+        manager.addNewTask(new Task("Unscheduled", "No time", TaskStatus.NEW, TaskType.TASK));
+
+        NavigableSet<Task> window = manager.getPrioritizedTasks(start.plusHours(2), start.plusHours(5));
+        assertEquals(ids.subList(2, 5), window.stream().map(Task::getId).toList(), "window should be [from, to)");
+        assertThrows(UnsupportedOperationException.class, () -> window.pollFirst(), "window should be read-only");
+        manager.deleteTask(ids.get(3));
+        assertEquals(2, window.size(), "window should reflect later changes");
+
+        List<Integer> paged = new ArrayList<>();
+        SchedulePage page = manager.getPrioritizedTasks(ScheduleCursor.at(start.plusMinutes(30)), 2);
+        paged.addAll(page.tasks().stream().map(Task::getId).toList());
+        while (page.hasNext()) {
+            page = manager.getPrioritizedTasks(page.next(), 2);
+            paged.addAll(page.tasks().stream().map(Task::getId).toList());
+        }
+        assertEquals(List.of(ids.get(1), ids.get(2), ids.get(4), ids.get(5), ids.get(6)), paged,
+                "pages should continue after the cursor");
+        assertTrue(manager.getPrioritizedTasks(ScheduleCursor.at(start.plusDays(1)), 10).tasks().isEmpty());
+    }
+
+    @Test
+    public void testReadOnlyViews() {
+        Collection<Task> tasksView = manager.getTasksView();
+        assertSame(tasksView, manager.getTasksView(), "view should not be allocated per call");
+        int taskId = manager.addNewTask(new Task("Task", "Listed", TaskStatus.NEW, TaskType.TASK));
+        int epicId = manager.addNewEpic(new Epic("Epic", "Listed"));
+        manager.addNewSubtask(new Subtask("Subtask", "Listed", TaskStatus.NEW, epicId));
+        assertEquals(1, tasksView.size(), "view should reflect later changes");
+        assertEquals(1, manager.getEpicsView().size());
+        assertEquals(1, manager.getSubtasksView().size());
+        assertThrows(UnsupportedOperationException.class, () -> tasksView.clear(), "view should be read-only");
+
+        manager.getTask(taskId);
+        List<Task> history = manager.getHistorySnapshot();
+        assertSame(history, manager.getHistorySnapshot(), "history snapshot should be shared");
+        manager.getEpic(epicId);
+        assertEquals(List.of(taskId, epicId), manager.getHistorySnapshot().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    public void testQueriesByStatus() {
+        int newTaskId = manager.addNewTask(new Task("New", "Indexed", TaskStatus.NEW, TaskType.TASK));
+        int doneTaskId = manager.addNewTask(new Task("Done", "Indexed", TaskStatus.DONE, TaskType.TASK));
+        int firstEpicId = manager.addNewEpic(new Epic("First", "Indexed"));
+        int secondEpicId = manager.addNewEpic(new Epic("Second", "Indexed"));
+        int doneSubtaskId = manager.addNewSubtask(new Subtask("Done", "Indexed", TaskStatus.DONE, firstEpicId));
+        int newSubtaskId = manager.addNewSubtask(new Subtask("New", "Indexed", TaskStatus.NEW, firstEpicId));
+
+        assertEquals(List.of(doneTaskId), ids(manager.getTasks(TaskStatus.DONE)));
+        assertEquals(List.of(firstEpicId), ids(manager.getEpics(TaskStatus.IN_PROGRESS)));
+        assertEquals(List.of(secondEpicId), ids(manager.findTasks(TaskType.EPIC, TaskStatus.NEW)));
+        assertEquals(List.of(newSubtaskId), ids(manager.getEpicSubtasks(firstEpicId, TaskStatus.NEW)));
+        assertTrue(manager.getEpicSubtasks(secondEpicId, TaskStatus.NEW).isEmpty());
+        assertNull(manager.getEpicSubtasks(-1, TaskStatus.NEW), "missing epic should give null");
+
+        manager.updateTask(new Task(newTaskId, "New", "Started", TaskStatus.IN_PROGRESS, TaskType.TASK));
+        assertEquals(List.of(newTaskId), ids(manager.findTasks(TaskType.TASK, TaskStatus.IN_PROGRESS)));
+        assertTrue(manager.getTasks(TaskStatus.NEW).isEmpty(), "updated task should leave its old status");
+
+        manager.updateSubtask(new Subtask(newSubtaskId, "New", "Moved", TaskStatus.NEW, secondEpicId, null, null));
+        assertEquals(List.of(firstEpicId), ids(manager.getEpics(TaskStatus.DONE)), "epics should follow subtasks");
+        assertEquals(List.of(newSubtaskId), ids(manager.getEpicSubtasks(secondEpicId, TaskStatus.NEW)));
+        assertTrue(manager.getEpicSubtasks(firstEpicId, TaskStatus.NEW).isEmpty());
+
+        manager.deleteSubtask(doneSubtaskId);
+        assertEquals(List.of(firstEpicId, secondEpicId), ids(manager.getEpics(TaskStatus.NEW)));
+        assertTrue(manager.getSubtasks(TaskStatus.DONE).isEmpty());
+        manager.deleteEpic(secondEpicId);
+        assertTrue(manager.findTasks(TaskType.SUBTASK, TaskStatus.NEW).isEmpty(), "epic subtasks should be unindexed");
+        manager.deleteTasks();
+        assertTrue(manager.getTasks(TaskStatus.IN_PROGRESS).isEmpty());
+    }
+
+    private static List<Integer> ids(List<? extends Task> tasks) {
+        return tasks.stream().map(Task::getId).sorted().toList();
+    }
+
+    @Test
+    public void testScheduleAtEarliest() {
+        LocalDateTime start = LocalDateTime.parse("2025-09-01T09:00:00");
+        manager.addNewTask(new Task("Morning", "Busy", TaskStatus.NEW, TaskType.TASK, Duration.ofHours(1), start));
+        manager.addNewTask(new Task("Noon", "Busy", TaskStatus.NEW, TaskType.TASK, Duration.ofHours(1),
+                start.plusHours(2)));
+
+        List<TimeSlot> slots = manager.findFreeSlots(Duration.ofMinutes(90), start, start.plusHours(6), 5);
+        assertEquals(List.of(new TimeSlot(start.plusHours(3), start.plusHours(6))), slots,
+                "the hour between the tasks is too short");
+
+        Task placed = new Task("Long", "Placed", TaskStatus.NEW, TaskType.TASK, Duration.ofMinutes(90), null);
+        Integer id = manager.scheduleAtEarliest(placed, start);
+        assertNotNull(id);
+        assertEquals(start.plusHours(3), manager.getTask(id).getStartTime());
+        Task shortTask = new Task("Short", "Placed", TaskStatus.NEW, TaskType.TASK, Duration.ofMinutes(30), null);
+        manager.scheduleAtEarliest(shortTask, start);
+        assertEquals(start.plusHours(1), shortTask.getStartTime(), "a short task should fill the first gap");
+
+        int epicId = manager.addNewEpic(new Epic("Epic", "Placed"));
+        Subtask subtask = new Subtask("Subtask", "Placed", TaskStatus.NEW, epicId, Duration.ofMinutes(30), null);
+        assertNotNull(manager.scheduleAtEarliest(subtask, start));
+        assertEquals(start.plusMinutes(90), subtask.getStartTime());
+        assertThrows(IllegalArgumentException.class, () -> manager.scheduleAtEarliest(new Epic("Epic", ""), start));
+    }
+
+    @Test
+    public void testScheduleAtEarliestWithoutEpic() {
+        LocalDateTime start = LocalDateTime.parse("2025-09-01T09:00:00");
+        LocalDateTime requested = start.plusDays(1);
+        Subtask orphan = new Subtask("Orphan", "No epic", TaskStatus.NEW, 404, Duration.ofMinutes(30), requested);
+
+        assertNull(manager.scheduleAtEarliest(orphan, start));
+        assertEquals(requested, orphan.getStartTime(), "a rejected subtask should keep its start");
+        assertTrue(manager.getSubtasks().isEmpty());
+    }
+
+    @Test
+    public void testSearchTasks() {
+        int taskId = manager.addNewTask(new Task("Pay invoice", "Before Friday", TaskStatus.NEW, TaskType.TASK));
+        int epicId = manager.addNewEpic(new Epic("Release", "Invoices module"));
+        int subtaskId = manager.addNewSubtask(new Subtask("Invoice export", "CSV", TaskStatus.NEW, epicId));
+
+        assertEquals(List.of(taskId, subtaskId, epicId), manager.searchTasks("invoice", 10));
+        assertEquals(List.of(subtaskId), manager.searchTasks("inv csv", 10));
+
+        manager.updateTask(new Task(taskId, "Pay rent", "Before Friday", TaskStatus.NEW, TaskType.TASK));
+        manager.updateEpic(new Epic(epicId, "Release", "Export module"));
+        assertEquals(List.of(subtaskId), manager.searchTasks("invoice", 10), "updates should reindex");
+        manager.deleteSubtask(subtaskId);
+        assertTrue(manager.searchTasks("invoice", 10).isEmpty());
+        manager.deleteEpics();
+        assertTrue(manager.searchTasks("release", 10).isEmpty());
+        assertEquals(List.of(taskId), manager.searchTasks("friday", 10));
+    }
+
+    @Test
+    public void testCommitTransaction() {
+        LocalDateTime start = LocalDateTime.parse("2025-10-01T09:00:00");
+        int keptId = manager.addNewTask(new Task("Kept", "Stored", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start));
+        int movedId = manager.addNewTask(new Task("Moved", "Stored", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start.plusHours(1)));
+
+        TaskTransaction transaction = new TaskTransaction();
+        int epicId = transaction.add(new Epic("Release", "Built at once"));
+        for (int i = 0; i < 50; i++) {
+            transaction.add(new Subtask("Step " + i, "Staged", TaskStatus.DONE, epicId, Duration.ofMinutes(10),
+                    start.plusDays(1).plusMinutes(10L * i)));
+        }
+        // swapping the two slots only works when the final schedule is checked as a whole
+        transaction.update(new Task(keptId, "Kept", "Moved later", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start.plusHours(1)));
+        transaction.update(new Task(movedId, "Moved", "Moved earlier", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start));
+        List<Integer> ids = manager.commit(transaction);
+
+        assertEquals(51, ids.size());
+        Epic epic = manager.getEpic(ids.getFirst());
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertEquals(ids.subList(1, 51), manager.getEpicSubtasks(epic.getId()).stream().map(Task::getId).toList());
+        assertEquals(List.of(movedId, keptId), manager.getPrioritizedTasks().stream().limit(2).map(Task::getId).toList());
+    }
+
+    @Test
+    public void testCommitTransactionOfTasksChangedInPlace() {
+        if (!allowsChangesInPlace()) {
+            return;
+        }
+        LocalDateTime start = LocalDateTime.parse("2025-10-01T09:00:00");
+        int updatedId = manager.addNewTask(new Task("Updated", "Stored", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start));
+        int keptId = manager.addNewTask(new Task("Kept", "Stored", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start.plusHours(1)));
+        int deletedId = manager.addNewTask(new Task("Deleted", "Stored", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start.plusHours(2)));
+
+        Task updated = manager.getTask(updatedId);
+        updated.setStartTime(start.plusHours(10));
+        TaskTransaction update = new TaskTransaction();
+        update.update(updated);
+        manager.commit(update);
+        assertEquals(List.of(keptId, deletedId, updatedId),
+                manager.getPrioritizedTasks().stream().map(Task::getId).toList());
+
+        manager.getTask(deletedId).setStartTime(start.plusHours(20));
+        TaskTransaction delete = new TaskTransaction();
+        delete.delete(TaskType.TASK, deletedId);
+        manager.commit(delete);
+        assertEquals(List.of(keptId, updatedId), manager.getPrioritizedTasks().stream().map(Task::getId).toList(),
+                "a task deleted after its start was changed in place should leave the schedule");
+        assertNotNull(manager.addNewTask(new Task("Reuses", "Freed slot", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start)));
+    }
+
+    @Test
+    public void testRejectedTransactionChangesNothing() {
+        LocalDateTime start = LocalDateTime.parse("2025-10-01T09:00:00");
+        int taskId = manager.addNewTask(new Task("Busy", "Stored", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start));
+        int storedEpicId = manager.addNewEpic(new Epic("Stored", "Epic"));
+        int subtaskId = manager.addNewSubtask(new Subtask("Stored", "Subtask", TaskStatus.NEW, storedEpicId));
+
+        TaskTransaction overlapping = new TaskTransaction();
+        int epicId = overlapping.add(new Epic("Half built", "Rejected"));
+        overlapping.add(new Subtask("Fits", "Rejected", TaskStatus.NEW, epicId, Duration.ofHours(1),
+                start.plusHours(2)));
+        overlapping.add(new Subtask("Overlaps", "Rejected", TaskStatus.NEW, epicId, Duration.ofHours(1),
+                start.plusMinutes(30)));
+        overlapping.delete(TaskType.TASK, taskId);
+        overlapping.add(new Task("Takes the slot", "Rejected", TaskStatus.NEW, TaskType.TASK, Duration.ofHours(1),
+                start.plusMinutes(30)));
+        assertThrows(TransactionRejectedException.class, () -> manager.commit(overlapping));
+
+        TaskTransaction missing = new TaskTransaction();
+        missing.add(new Task("Fine", "Rejected", TaskStatus.NEW, TaskType.TASK));
+        missing.update(new Task(-5, "Missing", "Rejected", TaskStatus.NEW, TaskType.TASK));
+        assertThrows(TransactionRejectedException.class, () -> manager.commit(missing));
+
+        TaskTransaction cascading = new TaskTransaction();
+        cascading.delete(TaskType.EPIC, storedEpicId);
+        cascading.update(new Subtask(subtaskId, "Stored", "Changed", TaskStatus.DONE, storedEpicId, null, null));
+        assertThrows(TransactionRejectedException.class, () -> manager.commit(cascading));
+
+        assertEquals(List.of(taskId), manager.getTasks().stream().map(Task::getId).toList());
+        assertEquals(List.of(storedEpicId), manager.getEpics().stream().map(Task::getId).toList());
+        assertEquals(TaskStatus.NEW, manager.getSubtask(subtaskId).getStatus());
+        assertEquals(1, manager.getPrioritizedTasks().size(), "the schedule should be restored after validation");
+    }
+
+    @Test
+    public void testMostViewed() {
+        int taskId = manager.addNewTask(new Task("Task", "Viewed", TaskStatus.NEW, TaskType.TASK));
+        int epicId = manager.addNewEpic(new Epic("Epic", "Viewed"));
+        for (int i = 0; i < 3; i++) {
+            manager.getEpic(epicId);
+        }
+        manager.getTask(taskId);
+        manager.getTask(-1);
+        assertEquals(List.of(new ViewCount(epicId, 3), new ViewCount(taskId, 1)), manager.getMostViewed(5));
+        assertEquals(List.of(new ViewCount(epicId, 3)), manager.getMostViewed(1));
+        assertEquals(3, manager.getEstimatedViews(epicId));
+        assertEquals(0, manager.getEstimatedViews(-1), "missing tasks should not be counted");
+    }
+
+    @Test
+    public void testImportTasks() {
+        LocalDateTime start = LocalDateTime.parse("2025-09-10T10:00:00");
+        manager.addNewTask(new Task("Existing", "Scheduled", TaskStatus.NEW, TaskType.TASK, Duration.ofHours(1), start));
+        Epic epic = new Epic(100, "Epic", "Batch epic");
+        List<Task> batch = List.of(
+                new Subtask("Sub1", "Refers to the batch epic", TaskStatus.DONE, 100, Duration.ofHours(1),
+                        start.plusHours(1)),
+                epic,
+                new Task("Inside", "Overlaps existing", TaskStatus.NEW, TaskType.TASK, Duration.ofMinutes(10),
+                        start.plusMinutes(30)),
+                new Task("Same start", "Overlaps Sub1", TaskStatus.NEW, TaskType.TASK, Duration.ofMinutes(10),
+                        start.plusHours(1)),
+                new Subtask("Orphan", "No such epic", TaskStatus.NEW, 999),
+                new Task("Free", "No time", TaskStatus.NEW, TaskType.TASK));
+
+        List<ImportResult> results = manager.importTasks(batch);
+
+        assertEquals(List.of(ImportResult.Outcome.ACCEPTED, ImportResult.Outcome.ACCEPTED,
+                        ImportResult.Outcome.OVERLAP, ImportResult.Outcome.OVERLAP, ImportResult.Outcome.MISSING_EPIC,
+                        ImportResult.Outcome.ACCEPTED),
+                results.stream().map(ImportResult::outcome).toList());
+        int epicId = results.get(1).id();
+        assertEquals(epicId, epic.getId(), "batch epic should get a fresh id");
+        assertEquals(List.of(results.getFirst().id()), manager.getEpic(epicId).getSubtaskIds());
+        assertEquals(TaskStatus.DONE, manager.getEpic(epicId).getStatus());
+        assertEquals(2, manager.getPrioritizedTasks().size());
+        assertEquals(3, manager.getTasks().size() + manager.getSubtasks().size());
+    }
+
+    @Test
+    public void testImportRejectsEpicIdsSubtasksCannotTellApart() {
+        int storedEpicId = manager.addNewEpic(new Epic("Stored", "Epic"));
+        List<Task> batch = List.of(
+                new Epic("First", "Carries the default id"),
+                new Epic("Second", "Carries the same id"),
+                new Epic(storedEpicId, "Third", "Carries the stored id"),
+                new Subtask("Batch", "Refers to the first epic", TaskStatus.DONE, 0),
+                new Subtask("Stored", "Refers to the stored epic", TaskStatus.DONE, storedEpicId));
+
+        List<ImportResult> results = manager.importTasks(batch);
+
+        assertEquals(List.of(ImportResult.Outcome.ACCEPTED, ImportResult.Outcome.DUPLICATE_ID,
+                        ImportResult.Outcome.DUPLICATE_ID, ImportResult.Outcome.ACCEPTED, ImportResult.Outcome.ACCEPTED),
+                results.stream().map(ImportResult::outcome).toList());
+        assertEquals(List.of(results.get(3).id()), manager.getEpic(results.getFirst().id()).getSubtaskIds());
+        assertEquals(List.of(results.get(4).id()), manager.getEpic(storedEpicId).getSubtaskIds(),
+                "the stored epic should keep the subtasks meant for it");
+        assertEquals(2, manager.getEpics().size());
+    }
+
+    @Test
+    public void testOverlapBoundaries() {
+        LocalDateTime start = LocalDateTime.parse("2025-09-10T10:00:00");
+        int firstId = manager.addNewTask(new Task("First", "10:00-11:00", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start));
+
+        assertNull(manager.addNewTask(new Task("Identical", "10:00-11:00", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start)), "identical interval should overlap");
+        assertNull(manager.addNewTask(new Task("Same start", "10:00-10:30", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofMinutes(30), start)), "same start should overlap");
+        assertNull(manager.addNewTask(new Task("Instant", "10:30", TaskStatus.NEW, TaskType.TASK,
+                null, start.plusMinutes(30))), "instant inside an interval should overlap");
+        assertNotNull(manager.addNewTask(new Task("Adjacent", "11:00-12:00", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start.plusHours(1))), "intervals are half-open");
+        assertEquals(List.of(firstId), manager.getOverlappingTasks(start.plusMinutes(59), start.plusHours(1))
+                .stream().map(Task::getId).toList());
+    }
+
+    @Test
+    public void testScheduleFollowsUpdatesAndDeletes() {
+        LocalDateTime start = LocalDateTime.parse("2025-09-10T10:00:00");
+        int taskId = manager.addNewTask(new Task("Task", "10:00-11:00", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start));
+        int otherId = manager.addNewTask(new Task("Other", "12:00-13:00", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start.plusHours(2)));
+
+        manager.updateTask(new Task(taskId, "Task", "14:00-15:00", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start.plusHours(4)));
+        assertNotNull(manager.addNewTask(new Task("Reuses old slot", "10:00-11:00", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start)), "updated task should release its old interval");
+        manager.updateTask(new Task(taskId, "Task", "12:30-13:30", TaskStatus.NEW, TaskType.TASK,
+                Duration.ofHours(1), start.plusMinutes(150)));
+        assertEquals(start.plusHours(4), manager.getTask(taskId).getStartTime(),
+                "update overlapping another task should be ignored");
+
+        manager.deleteTask(otherId);
+        assertTrue(manager.getOverlappingTasks(start.plusHours(2), start.plusHours(3)).isEmpty());
+        assertEquals(2, manager.getPrioritizedTasks().size());
+    }
+
     private List<Subtask> getEpicSubtasks(int epicId) {
         return List.of(
                 new Subtask("SubT1", "Desc1", TaskStatus.NEW, epicId, Duration.ofMinutes(30), LocalDateTime.now().minusDays(1)),
@@ -0,0 +1,60 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskStatus;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextIndexTest {
+
+    @Test
+    public void testTokenize() {
+        assertEquals(List.of("fix", "bug", "42", "в", "отчёте"), TextIndex.tokenize("Fix bug #42: в ОТЧЁТЕ!"));
+        assertTrue(TextIndex.tokenize(null).isEmpty());
+    }
+
+    @Test
+    public void testRanksWholeAndNameWordsFirst() {
+        TextIndex index = new TextIndex();
+        index.put(task(1, "Write report", "Quarterly numbers"));
+        index.put(task(2, "Review", "Report for the board"));
+        index.put(task(3, "Tool", "Reporting setup"));
+        index.put(task(4, "Lunch", "Nothing to see"));
+
+        assertEquals(List.of(1, 2, 3), index.search("report", 10), "name, then description, then prefix matches");
+        assertEquals(List.of(1), index.search("REPORT quart", 10), "every query word should match");
+        assertEquals(List.of(1, 2), index.search("report", 2));
+        assertTrue(index.search("missing", 10).isEmpty());
+        assertTrue(index.search(" ,. ", 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> index.search("report", 0));
+    }
+
+    @Test
+    public void testReindexAndRemove() {
+        TextIndex index = new TextIndex();
+        index.put(task(1, "Old name", ""));
+        index.put(task(1, "New name", ""));
+        assertTrue(index.search("old", 10).isEmpty(), "replaced words should be dropped");
+        assertEquals(List.of(1), index.search("new", 10));
+        index.remove(1);
+        assertTrue(index.search("name", 10).isEmpty());
+    }
+
+    @Test
+    public void testSearchesManyTasks() {
+        TextIndex index = new TextIndex();
+        for (int id = 1; id <= 200_000; id++) {
+            index.put(task(id, "Task " + id, id % 50_000 == 0 ? "urgent invoice" : "routine work"));
+        }
+        assertEquals(List.of(50_000, 100_000, 150_000, 200_000), index.search("urg invoice", 10));
+        assertEquals(10, index.search("routine", 10).size());
+    }
+
+    private static Task task(int id, String name, String description) {
+        return new Task(id, name, description, TaskStatus.NEW, TaskType.TASK);
+    }
+}
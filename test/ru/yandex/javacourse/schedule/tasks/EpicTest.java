@@ -7,9 +7,11 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static ru.yandex.javacourse.schedule.tasks.TaskStatus.*;
 
 public class EpicTest {
@@ -40,6 +42,24 @@ public class EpicTest {
         assertEquals(0, epic.subtaskIdToSubtask.size(), "epic should not add itself as subtask");
     }
 
+    @Test
+    public void testCopyKeepsWhatWasCounted() {
+        Epic epic = new Epic(0, "Epic 1", "Testing epic 1");
+        Subtask first = new Subtask(1, "name1", "desc1", DONE, 0, Duration.ofMinutes(20), DEFAULT_DATE_TIME);
+        epic.addSubtask(first);
+        epic.addSubtask(new Subtask(2, "name2", "desc2", DONE, 0, Duration.ofMinutes(40), DEFAULT_DATE_TIME.plusHours(1)));
+        Epic copy = epic.copy();
+
+        first.setStatus(NEW);
+        epic.addSubtask(first);
+        epic.removeSubtask(2);
+        assertEquals(DONE, copy.getStatus(), "copy should not follow the epic");
+        assertEquals(List.of(1, 2), copy.getSubtaskIds());
+        assertEquals(Duration.ofHours(1), copy.getDuration());
+        assertEquals(DEFAULT_DATE_TIME, copy.getStartTime());
+        assertEquals(DEFAULT_DATE_TIME.plusMinutes(100), copy.getEndTime());
+    }
+
     @ParameterizedTest
     @MethodSource("subtaskStatuses")
     public void testEpicStatusCalculation(TaskStatus firstSubtaskStatus, TaskStatus secondSubtaskStatus, TaskStatus expectedEpicStatus) {
@@ -50,6 +70,33 @@ public class EpicTest {
         assertEquals(expectedEpicStatus, epic.getStatus(), "epic status calculated incorrectly");
     }
 
+    @Test
+    public void testStatusCountersFollowSubtaskChanges() {
+        Epic epic = new Epic(0, "Epic 1", "Testing epic 1");
+        Subtask first = new Subtask(1, "name1", "desc1", NEW, 0, null, null);
+        epic.addSubtask(first);
+        epic.addSubtask(new Subtask(2, "name2", "desc2", DONE, 0, null, null));
+        assertEquals(1, epic.getSubtaskCount(NEW));
+        assertEquals(1, epic.getSubtaskCount(DONE));
+
+        first.setStatus(DONE);
+        epic.addSubtask(first);
+        assertEquals(0, epic.getSubtaskCount(NEW), "relinked subtask should be counted once");
+        assertEquals(2, epic.getSubtaskCount(DONE));
+        assertEquals(DONE, epic.getStatus());
+
+        epic.addSubtask(new Subtask(3, "name3", "desc3", IN_PROGRESS, 0, null, null));
+        assertEquals(IN_PROGRESS, epic.getStatus());
+        epic.removeSubtask(3);
+        epic.removeSubtask(3);
+        assertEquals(0, epic.getSubtaskCount(IN_PROGRESS), "removing twice should not uncount twice");
+        assertEquals(DONE, epic.getStatus());
+
+        epic.cleanSubtaskIds();
+        assertEquals(0, epic.getSubtaskCount(DONE));
+        assertEquals(NEW, epic.getStatus(), "epic without subtasks should be new");
+    }
+
     @Test
     public void testEpicStartDateCalculation() {
         Epic epic = new Epic(0, "Epic 1", "Testing epic 1");
@@ -59,11 +106,39 @@ public class EpicTest {
         assertEquals(DEFAULT_DATE_TIME.minusDays(4), epic.getStartTime(), "epic stating time should be equal to the earliest subtask start date");
     }
 
+    @Test
+    public void testEpicTimesFollowSubtaskChanges() {
+        Epic epic = new Epic(0, "Epic 1", "Testing epic 1");
+        Subtask early = new Subtask(1, "name1", "desc1", NEW, 0, Duration.ofMinutes(20), DEFAULT_DATE_TIME);
+        Subtask late = new Subtask(2, "name2", "desc2", NEW, 0, Duration.ofMinutes(30), DEFAULT_DATE_TIME.plusDays(1));
+        epic.addSubtask(early);
+        epic.addSubtask(late);
+        epic.addSubtask(new Subtask(3, "name3", "desc3", NEW, 0, null, null));
+        assertEquals(DEFAULT_DATE_TIME, epic.getStartTime());
+        assertEquals(DEFAULT_DATE_TIME.plusDays(1).plusMinutes(30), epic.getEndTime());
+        assertEquals(Duration.ofMinutes(50), epic.getDuration());
+
+        early.setStartTime(DEFAULT_DATE_TIME.plusDays(2));
+        epic.addSubtask(early);
+        assertEquals(DEFAULT_DATE_TIME.plusDays(1), epic.getStartTime(), "relinked subtask should move the start");
+        assertEquals(DEFAULT_DATE_TIME.plusDays(2).plusMinutes(20), epic.getEndTime());
+
+        epic.removeSubtask(1);
+        assertEquals(DEFAULT_DATE_TIME.plusDays(1).plusMinutes(30), epic.getEndTime(), "end should fall back");
+        assertEquals(Duration.ofMinutes(30), epic.getDuration());
+
+        epic.removeSubtask(2);
+        assertNull(epic.getStartTime(), "subtasks without time should not give a start");
+        assertNull(epic.getEndTime());
+        assertNull(epic.getDuration());
+    }
+
     private static Stream<Arguments> subtaskStatuses() {
         return Stream.of(
                 Arguments.of(NEW, NEW, NEW),
                 Arguments.of(IN_PROGRESS, NEW, IN_PROGRESS),
                 Arguments.of(IN_PROGRESS, DONE, IN_PROGRESS),
+                Arguments.of(NEW, DONE, IN_PROGRESS),
                 Arguments.of(DONE, DONE, DONE)
         );
     }
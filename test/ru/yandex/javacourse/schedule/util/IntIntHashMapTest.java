@@ -0,0 +1,39 @@
+package ru.yandex.javacourse.schedule.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntIntHashMapTest {
+
+    @Test
+    public void testMatchesHashMapUnderRandomChanges() {
+        IntIntHashMap map = new IntIntHashMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(3_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals((int) expected.getOrDefault(key, IntIntHashMap.NO_VALUE), map.remove(key));
+                expected.remove(key);
+            } else {
+                assertEquals((int) expected.getOrDefault(key, IntIntHashMap.NO_VALUE), map.put(key, i));
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        Map<Integer, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited, "forEach should visit every entry");
+        for (int key = -1_000; key < 2_000; key++) {
+            assertEquals((int) expected.getOrDefault(key, IntIntHashMap.NO_VALUE), map.get(key));
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, -5), "negative values are reserved");
+    }
+}
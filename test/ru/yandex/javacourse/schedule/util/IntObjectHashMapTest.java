@@ -0,0 +1,53 @@
+package ru.yandex.javacourse.schedule.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntObjectHashMapTest {
+
+    @Test
+    public void testMatchesHashMapUnderRandomChanges() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // a small key range keeps probe runs long, so removals have to shift entries back
+            int key = random.nextInt(5_000) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key), "removed value should match");
+            } else {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), map.put(key, value), "previous value should match");
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = -100; key < 4_900; key++) {
+            assertEquals(expected.get(key), map.get(key), "value should be found after removals");
+        }
+        assertEquals(expected, map);
+        assertEquals(expected.keySet(), map.keySet());
+    }
+
+    @Test
+    public void testMapViews() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        Collection<String> values = map.values();
+        map.put(1, "one");
+        map.put(Integer.MIN_VALUE, "min");
+        assertEquals(2, values.size(), "values view should be live");
+        assertTrue(map.containsKey((Object) Integer.MIN_VALUE));
+        assertNull(map.get("1"), "non-int keys should not be found");
+        assertThrows(NullPointerException.class, () -> map.put(2, null), "null values are not supported");
+        assertThrows(ConcurrentModificationException.class, () -> {
+            for (int key : map.keySet()) {
+                map.remove(key);
+            }
+        });
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(values.iterator().hasNext());
+    }
+}
@@ -0,0 +1,44 @@
+package ru.yandex.javacourse.schedule.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LinkedIntObjectHashMapTest {
+
+    @Test
+    public void testKeepsInsertionOrderLikeLinkedHashMap() {
+        LinkedIntObjectHashMap<Integer> map = new LinkedIntObjectHashMap<>();
+        Map<Integer, Integer> expected = new LinkedHashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000);
+            if (random.nextInt(2) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, Integer.valueOf(i)));
+            }
+        }
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(map.keySet()), "order should follow insertion");
+        assertEquals(List.copyOf(expected.values()), List.copyOf(map.values()));
+        assertEquals(expected, map);
+    }
+
+    @Test
+    public void testReplacingValueKeepsPosition() {
+        LinkedIntObjectHashMap<String> map = new LinkedIntObjectHashMap<>();
+        map.put(3, "c");
+        map.put(1, "a");
+        map.put(2, "b");
+        map.put(3, "c2");
+        map.remove(1);
+        map.put(1, "a2");
+        assertEquals(List.of(3, 2, 1), List.copyOf(map.keySet()));
+        assertEquals("c2", map.get(3));
+        map.clear();
+        map.put(5, "e");
+        assertEquals(List.of(5), List.copyOf(map.keySet()), "cleared map should start over");
+    }
+}
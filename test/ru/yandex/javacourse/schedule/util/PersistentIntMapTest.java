@@ -0,0 +1,96 @@
+package ru.yandex.javacourse.schedule.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentIntMapTest {
+
+    @Test
+    public void testMatchesHashMapAndKeepsOldVersions() {
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        Map<Integer, String> expected = new HashMap<>();
+        List<PersistentIntMap<String>> versions = new ArrayList<>();
+        List<Map<Integer, String>> expectedVersions = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // negative keys use the highest bits, the last level of the trie
+            int key = random.nextInt(20_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.without(key);
+            } else {
+                expected.put(key, "v" + i);
+                map = map.with(key, "v" + i);
+            }
+            if (i % 10_000 == 0) {
+                versions.add(map);
+                expectedVersions.add(new HashMap<>(expected));
+            }
+        }
+        assertContents(expected, map);
+        for (int i = 0; i < versions.size(); i++) {
+            assertContents(expectedVersions.get(i), versions.get(i));
+        }
+        for (int key : new ArrayList<>(expected.keySet())) {
+            map = map.without(key);
+        }
+        assertTrue(map.isEmpty(), "removing every key should leave an empty map");
+        assertFalse(map.values().iterator().hasNext());
+    }
+
+    @Test
+    public void testUnchangedMapIsReturned() {
+        String value = "value";
+        PersistentIntMap<String> map = PersistentIntMap.<String>empty().with(1, value).with(Integer.MIN_VALUE, "min");
+        assertSame(map, map.with(1, value), "putting the same value should not copy");
+        assertSame(map, map.without(2), "removing an absent key should not copy");
+        assertNotSame(map, map.with(1, "other"));
+        assertEquals("min", map.get(Integer.MIN_VALUE));
+        assertThrows(NullPointerException.class, () -> map.with(3, null), "null values are not supported");
+    }
+
+    @Test
+    public void testKeysNotInAnotherVersion() {
+        PersistentIntMap<String> base = PersistentIntMap.empty();
+        for (int key = 0; key < 10_000; key++) {
+            base = base.with(key, "v" + key);
+        }
+        PersistentIntMap<String> changed = base.without(7).without(4_096).with(20_000, "new").with(8, "changed");
+        assertEquals(Set.of(7, 4_096), keysNotIn(base, changed));
+        assertEquals(Set.of(20_000), keysNotIn(changed, base));
+        assertEquals(Set.of(), keysNotIn(base, base));
+        assertEquals(Set.of(1, 2), keysNotIn(PersistentIntMap.<String>empty().with(1, "a").with(2, "b"),
+                PersistentIntMap.empty()));
+
+        Set<Integer> differences = new HashSet<>();
+        changed.forEachDifference(base, differences::add);
+        assertEquals(Set.of(7, 8, 4_096, 20_000), differences, "changed values should differ as well");
+        differences.clear();
+        base.forEachDifference(base.with(9, "v9"), differences::add);
+        assertEquals(Set.of(9), differences, "equal but new value instances should differ");
+    }
+
+    private static Set<Integer> keysNotIn(PersistentIntMap<?> map, PersistentIntMap<?> other) {
+        Set<Integer> keys = new HashSet<>();
+        map.forEachKeyNotIn(other, keys::add);
+        return keys;
+    }
+
+    private static void assertContents(Map<Integer, String> expected, PersistentIntMap<String> map) {
+        assertEquals(expected.size(), map.size());
+        for (int key = -1_000; key < 19_000; key++) {
+            assertEquals(expected.get(key), map.get(key), "old versions should not change");
+        }
+        Map<Integer, String> entries = new HashMap<>();
+        map.forEach(entries::put);
+        assertEquals(expected, entries);
+        List<String> values = new ArrayList<>(map.values());
+        values.sort(null);
+        List<String> expectedValues = new ArrayList<>(expected.values());
+        expectedValues.sort(null);
+        assertEquals(expectedValues, values);
+    }
+}
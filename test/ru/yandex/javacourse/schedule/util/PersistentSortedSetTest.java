@@ -0,0 +1,103 @@
+package ru.yandex.javacourse.schedule.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentSortedSetTest {
+
+    @Test
+    public void testMatchesTreeSetAndKeepsOldVersions() {
+        PersistentSortedSet<Integer> set = PersistentSortedSet.empty(Comparator.naturalOrder());
+        TreeSet<Integer> expected = new TreeSet<>();
+        List<PersistentSortedSet<Integer>> versions = new ArrayList<>();
+        List<TreeSet<Integer>> expectedVersions = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            int element = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(element);
+                set = set.without(element);
+            } else {
+                expected.add(element);
+                set = set.with(element);
+            }
+            if (i % 5_000 == 0) {
+                versions.add(set);
+                expectedVersions.add(new TreeSet<>(expected));
+            }
+        }
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(set.view()));
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(new ArrayList<>(expectedVersions.get(i)), new ArrayList<>(versions.get(i).view()),
+                    "old versions should not change");
+        }
+        assertSame(set, set.with(expected.first()), "adding a present element should not copy");
+        assertSame(set, set.without(-1), "removing an absent element should not copy");
+    }
+
+    @Test
+    public void testNavigationMatchesTreeSet() {
+        PersistentSortedSet<Integer> set = PersistentSortedSet.empty(Comparator.naturalOrder());
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 300; i++) {
+            int element = random.nextInt(1_000);
+            set = set.with(element);
+            expected.add(element);
+        }
+        NavigableSet<Integer> view = set.view();
+        for (int i = 0; i < 200; i++) {
+            int from = random.nextInt(1_100) - 50;
+            int to = from + 2 + random.nextInt(400);
+            boolean fromInclusive = random.nextBoolean();
+            boolean toInclusive = random.nextBoolean();
+            assertSameSet(expected.subSet(from, fromInclusive, to, toInclusive),
+                    view.subSet(from, fromInclusive, to, toInclusive));
+            assertSameSet(expected.headSet(to, toInclusive).descendingSet(),
+                    view.headSet(to, toInclusive).descendingSet());
+            assertSameSet(expected.descendingSet().subSet(to, toInclusive, from, fromInclusive).tailSet((from + to) / 2, true),
+                    view.descendingSet().subSet(to, toInclusive, from, fromInclusive).tailSet((from + to) / 2, true));
+        }
+        assertThrows(UnsupportedOperationException.class, view::pollFirst, "views should be read-only");
+        assertThrows(UnsupportedOperationException.class, () -> view.add(5));
+        assertThrows(NoSuchElementException.class, () -> view.subSet(2_000, 3_000).first());
+    }
+
+    @Test
+    public void testLiveViewFollowsSource() {
+        AtomicReference<PersistentSortedSet<Integer>> source = new AtomicReference<>(
+                PersistentSortedSet.<Integer>empty(Comparator.naturalOrder()).with(1).with(5));
+        NavigableSet<Integer> live = PersistentSortedSet.liveView(source::get);
+        NavigableSet<Integer> window = live.subSet(2, true, 10, false);
+        Iterator<Integer> started = live.iterator();
+        source.set(source.get().with(3).with(10));
+        assertEquals(List.of(3, 5), new ArrayList<>(window), "live views should see the latest version");
+        assertEquals(Integer.valueOf(1), started.next());
+        assertEquals(Integer.valueOf(5), started.next(), "an iterator should keep walking its version");
+        assertFalse(started.hasNext());
+    }
+
+    private static void assertSameSet(NavigableSet<Integer> expected, NavigableSet<Integer> actual) {
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(actual));
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        for (int probe = -60; probe < 1_600; probe += 37) {
+            assertEquals(expected.lower(probe), actual.lower(probe), "lower " + probe);
+            assertEquals(expected.floor(probe), actual.floor(probe), "floor " + probe);
+            assertEquals(expected.ceiling(probe), actual.ceiling(probe), "ceiling " + probe);
+            assertEquals(expected.higher(probe), actual.higher(probe), "higher " + probe);
+            assertEquals(expected.contains(probe), actual.contains(probe));
+        }
+        if (!expected.isEmpty()) {
+            assertEquals(expected.first(), actual.first());
+            assertEquals(expected.last(), actual.last());
+        }
+        List<Integer> descending = new ArrayList<>();
+        actual.descendingIterator().forEachRemaining(descending::add);
+        assertEquals(new ArrayList<>(expected.descendingSet()), descending);
+    }
+}